@@ -0,0 +1,87 @@
+package cc.ayakurayuki.spring.components.context;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare the {@link ThreadLocalContextStorage} and {@link ScopedValueContextStorage} backends
+ * under virtual thread fan-out, every virtual thread runs a task with a context and a nested
+ * child context, like an RPC server call doing one downstream call.
+ * <p>
+ * {@code ScopedValue} is a preview API on JDK 21, the fork runs with {@code --enable-preview}.
+ * <p>
+ * Run with {@code ./gradlew :springboot3-components-context:jmh -Pjmh.includes=ContextStorageBenchmark}
+ *
+ * @author Ayakura Yuki
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ContextStorageBenchmark {
+
+  @Param({ContextStorages.THREAD_LOCAL, ContextStorages.SCOPED})
+  String propagation;
+
+  @Param({"100", "1000"})
+  int fanOut;
+
+  ContextStorage  storage;
+  ExecutorService executor;
+  SimpleContext   parent;
+  SimpleContext   child;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    storage = ContextStorages.create(propagation);
+    if (ContextStorages.SCOPED.equals(propagation) && !(storage instanceof ScopedValueContextStorage)) {
+      throw new IllegalStateException("scoped value storage is not available on this JVM");
+    }
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    parent = SimpleContext.create("parent");
+    child = SimpleContext.create("child");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.close();
+  }
+
+  @Benchmark
+  public void virtualThreadFanOut(Blackhole blackhole) throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(fanOut);
+    for (int i = 0; i < fanOut; i++) {
+      executor.execute(() -> {
+        try {
+          storage.run(parent, () -> {
+            blackhole.consume(storage.current());
+            storage.run(child, () -> blackhole.consume(storage.current()));
+            blackhole.consume(storage.current());
+          });
+        } finally {
+          latch.countDown();
+        }
+      });
+    }
+    latch.await();
+  }
+
+}
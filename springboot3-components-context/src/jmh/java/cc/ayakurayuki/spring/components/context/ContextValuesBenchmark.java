@@ -0,0 +1,144 @@
+package cc.ayakurayuki.spring.components.context;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare the slot based {@link Context} key-values and log metadata with the former
+ * copy-on-write {@link HashMap} implementation.
+ * <p>
+ * Run with {@code ./gradlew :springboot3-components-context:jmh}
+ *
+ * @author Ayakura Yuki
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextValuesBenchmark {
+
+  @Param({"5", "20"})
+  int size;
+
+  Key<Object>[] keys;
+  String[]      logKeys;
+
+  SimpleContext         filledContext;
+  CopyOnWriteMapContext filledMapContext;
+
+  @SuppressWarnings("unchecked")
+  @Setup(Level.Trial)
+  public void setup() {
+    keys = new Key[size];
+    logKeys = new String[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = Context.key("bench-key-" + i);
+      logKeys[i] = "bench-log-" + i;
+    }
+    filledContext = SimpleContext.create("bench");
+    filledMapContext = new CopyOnWriteMapContext();
+    for (int i = 0; i < size; i++) {
+      filledContext.withValue(keys[i], i);
+      filledMapContext.withValue(keys[i], i);
+    }
+  }
+
+  @Benchmark
+  public Object withValueSlots() {
+    SimpleContext context = SimpleContext.create("bench");
+    for (Key<Object> key : keys) {
+      context.withValue(key, key);
+    }
+    return context;
+  }
+
+  @Benchmark
+  public Object withValueCopyOnWriteMap() {
+    CopyOnWriteMapContext context = new CopyOnWriteMapContext();
+    for (Key<Object> key : keys) {
+      context.withValue(key, key);
+    }
+    return context;
+  }
+
+  @Benchmark
+  public void lookupSlots(Blackhole blackhole) {
+    for (Key<Object> key : keys) {
+      blackhole.consume(filledContext.lookup(key));
+    }
+  }
+
+  @Benchmark
+  public void lookupCopyOnWriteMap(Blackhole blackhole) {
+    for (Key<Object> key : keys) {
+      blackhole.consume(filledMapContext.lookup(key));
+    }
+  }
+
+  @Benchmark
+  public Object withLogMetadataChain() {
+    SimpleContext context = SimpleContext.create("bench");
+    for (String key : logKeys) {
+      context.withLogMetadata(key, key);
+    }
+    return context.getLogMetadata();
+  }
+
+  @Benchmark
+  public Object withLogMetadataCopyOnWriteMap() {
+    CopyOnWriteMapContext context = new CopyOnWriteMapContext();
+    for (String key : logKeys) {
+      context.withLogMetadata(key, key);
+    }
+    return context.logMetadata;
+  }
+
+  /**
+   * the former implementation of {@link Context} key-values and log metadata
+   */
+  static class CopyOnWriteMapContext {
+
+    volatile Map<Key<?>, Object> keyValues;
+    volatile Map<String, Object> logMetadata;
+
+    void withValue(Key<?> key, Object v) {
+      Map<Key<?>, Object> values = new HashMap<>();
+      if (this.keyValues != null) {
+        values.putAll(this.keyValues);
+      }
+      values.put(key, v);
+      this.keyValues = values;
+    }
+
+    Object lookup(Key<?> key) {
+      return this.keyValues != null ? this.keyValues.get(key) : null;
+    }
+
+    void withLogMetadata(String k, Object v) {
+      Map<String, Object> values = new HashMap<>();
+      if (this.logMetadata != null) {
+        values.putAll(this.logMetadata);
+      }
+      values.put(k, v);
+      this.logMetadata = values;
+    }
+
+  }
+
+}
@@ -0,0 +1,90 @@
+package cc.ayakurayuki.spring.components.context.concurrent;
+
+import cc.ayakurayuki.spring.components.context.concurrent.pool.ThreadPools;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare the callback executors of {@link ContextFutures#asCompletableFuture}, a virtual thread
+ * per callback against the coalescing executor. One platform thread completes all the futures,
+ * like a gRPC event loop completing the calls of many requests.
+ * <p>
+ * Run with {@code ./gradlew :springboot3-components-context:jmh -Pjmh.includes=ContextFuturesBenchmark}
+ *
+ * @author Ayakura Yuki
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextFuturesBenchmark {
+
+  static final int FUTURES = 1024;
+
+  @Param({"virtual", "coalescing"})
+  String callback;
+
+  Executor        callbackExecutor;
+  ExecutorService eventLoop;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    callbackExecutor = "virtual".equals(callback)
+        ? ThreadPools.newVirtualExecutor("Bench-Callback-")
+        : ThreadPools.newCoalescingExecutor("Bench-Callback");
+    eventLoop = Executors.newSingleThreadExecutor();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    eventLoop.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FUTURES)
+  public void completeFromEventLoop(Blackhole blackhole) {
+    List<SettableFuture<Integer>> futures = new ArrayList<>(FUTURES);
+    CompletableFuture<?>[] stages = new CompletableFuture<?>[FUTURES];
+    for (int i = 0; i < FUTURES; i++) {
+      SettableFuture<Integer> future = SettableFuture.create();
+      futures.add(future);
+      stages[i] = ContextFutures.asCompletableFuture(future, callbackExecutor).thenAccept(blackhole::consume);
+    }
+    eventLoop.execute(() -> {
+      for (int i = 0; i < FUTURES; i++) {
+        futures.get(i).set(i);
+      }
+    });
+    CompletableFuture.allOf(stages).join();
+  }
+
+  @Benchmark
+  public void alreadyDone(Blackhole blackhole) {
+    blackhole.consume(ContextFutures.asCompletableFuture(Futures.immediateFuture(1), callbackExecutor).join());
+  }
+
+}
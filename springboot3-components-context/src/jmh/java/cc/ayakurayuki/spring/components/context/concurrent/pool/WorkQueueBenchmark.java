@@ -0,0 +1,96 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the {@link MpmcArrayBlockingQueue} with {@link LinkedBlockingQueue} as work queue, many
+ * producers put small tasks and 4 consumers take them, like Tomcat and gRPC threads submitting to
+ * a fixed pool. Both queues are bounded to the same capacity.
+ * <p>
+ * Run with {@code ./gradlew :springboot3-components-context:jmh -Pjmh.includes=WorkQueueBenchmark}
+ *
+ * @author Ayakura Yuki
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkQueueBenchmark {
+
+  static final int      CONSUMERS = 4;
+  static final int      TASKS     = 1 << 16; // divisible by every producer count
+  static final int      CAPACITY  = 1024;
+  static final Runnable TASK      = () -> {};
+
+  @Param({"mpmc", "linked"})
+  String queueType;
+
+  @Param({"4", "16", "64"})
+  int producers;
+
+  BlockingQueue<Runnable> queue;
+  ExecutorService         producerThreads;
+  ExecutorService         consumerThreads;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    queue = "mpmc".equals(queueType) ? new MpmcArrayBlockingQueue<>(CAPACITY) : new LinkedBlockingQueue<>(CAPACITY);
+    producerThreads = Executors.newFixedThreadPool(producers);
+    consumerThreads = Executors.newFixedThreadPool(CONSUMERS);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    producerThreads.shutdownNow();
+    consumerThreads.shutdownNow();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TASKS)
+  public void transfer() throws Exception {
+    List<Future<?>> futures = new ArrayList<>(producers + CONSUMERS);
+    for (int i = 0; i < CONSUMERS; i++) {
+      futures.add(consumerThreads.submit(() -> {
+        for (int n = 0; n < TASKS / CONSUMERS; n++) {
+          queue.take().run();
+        }
+        return null;
+      }));
+    }
+    for (int i = 0; i < producers; i++) {
+      futures.add(producerThreads.submit(() -> {
+        for (int n = 0; n < TASKS / producers; n++) {
+          queue.put(TASK);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+
+}
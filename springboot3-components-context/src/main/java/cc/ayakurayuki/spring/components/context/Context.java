@@ -1,14 +1,19 @@
 package cc.ayakurayuki.spring.components.context;
 
 import com.google.common.base.Preconditions;
+import com.google.common.math.LongMath;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Supplier;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -21,10 +26,14 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 @Data
-@SuppressWarnings("rawtypes")
+@SuppressWarnings({"rawtypes", "unchecked"})
 public abstract class Context<PK, PV, MK, MV> {
 
-  static ThreadLocal<Context> contextThreadLocal = new ThreadLocal<>();
+  private static final ContextStorage storage = ContextStorages.load();
+
+  private static final AtomicReferenceFieldUpdater<Context, ValueSlots> KEY_VALUES = AtomicReferenceFieldUpdater.newUpdater(Context.class, ValueSlots.class, "keyValues");
+
+  private static final Key<Long> DEADLINE_KEY = key("cc.ayakurayuki.context.deadline"); // deadline in System.nanoTime(), private to this class
 
   private          String              debugParameter; // generate a human-readable form parameter
   private          Map<PK, PV>         parameter;      // request parameters
@@ -37,10 +46,15 @@ public abstract class Context<PK, PV, MK, MV> {
   private          String              caller;         // request caller
   private          Throwable           exception;      // throw exception
   private          boolean             mirror;         // identifier to the mirror resource
-  private volatile Map<Key<?>, Object> keyValues;      // key-values
-  private volatile Map<String, Object> logMetadata;    // log metadata
   private volatile int                 error;          // error tag
 
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile ValueSlots  keyValues   = ValueSlots.EMPTY; // key-values
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile LogMetadata logMetadata;                    // log metadata
+
   public static <PK, PV, MK, MV> Context<PK, PV, MK, MV> empty() {
     return EmptyContextFactory.create();
   }
@@ -63,9 +77,13 @@ public abstract class Context<PK, PV, MK, MV> {
     return new Key<>(name, defaultValue);
   }
 
+  static ContextStorage storage() {
+    return storage;
+  }
+
   @Nonnull
   public static Context current() {
-    Context context = contextThreadLocal.get();
+    Context context = storage.current();
     if (context == null) {
       return empty();
     }
@@ -82,12 +100,7 @@ public abstract class Context<PK, PV, MK, MV> {
     if (isEmpty()) {
       return this;
     }
-    Map<String, Object> values = new HashMap<>();
-    if (this.logMetadata != null) {
-      values.putAll(this.logMetadata);
-    }
-    values.put(k, v);
-    this.logMetadata = values;
+    this.logMetadata = LogMetadata.with(this.logMetadata, k, v);
     return this;
   }
 
@@ -100,12 +113,7 @@ public abstract class Context<PK, PV, MK, MV> {
     if (isEmpty()) {
       return this;
     }
-    Map<String, Object> values = new HashMap<>();
-    if (this.logMetadata != null) {
-      values.putAll(this.logMetadata);
-    }
-    values.putAll(kv);
-    this.logMetadata = values;
+    this.logMetadata = LogMetadata.with(this.logMetadata, kv);
     return this;
   }
 
@@ -113,10 +121,11 @@ public abstract class Context<PK, PV, MK, MV> {
    * get all log metadata
    */
   public Map<String, Object> getLogMetadata() {
-    if (this.logMetadata == null) {
+    LogMetadata current = this.logMetadata;
+    if (current == null) {
       return Collections.emptyMap();
     }
-    return Collections.unmodifiableMap(this.logMetadata);
+    return current.asMap();
   }
 
   /**
@@ -130,20 +139,82 @@ public abstract class Context<PK, PV, MK, MV> {
     if (isEmpty()) {
       return this;
     }
-    Map<Key<?>, Object> values = new HashMap<>();
-    if (this.keyValues != null) {
-      values.putAll(this.keyValues);
-    }
-    values.put(key, v);
-    this.keyValues = values;
+    // compare and set, concurrent writers of other keys never lose each other's value
+    ValueSlots current;
+    do {
+      current = this.keyValues;
+    } while (!KEY_VALUES.compareAndSet(this, current, current.with(key, v)));
     return this;
   }
 
+  /**
+   * Get the value of the key, or atomically set it to the supplied one if absent.
+   * <p>
+   * The supplier may be called more than once when racing with other writers, only one of the
+   * supplied values is kept and returned to all of them.
+   *
+   * @return the current or the supplied value, null on the {@link #empty()} context
+   */
+  public <V> V computeValueIfAbsent(Key<V> key, Supplier<? extends V> supplier) {
+    if (isEmpty()) {
+      return null;
+    }
+    V created = null;
+    for (; ; ) {
+      ValueSlots current = this.keyValues;
+      V value = (V) current.get(key);
+      if (value != null) {
+        return value;
+      }
+      if (created == null) {
+        created = Preconditions.checkNotNull(supplier.get(), "supplied value");
+      }
+      if (KEY_VALUES.compareAndSet(this, current, current.with(key, created))) {
+        return created;
+      }
+    }
+  }
+
   /**
    * lookup by given key object
    */
   public Object lookup(Key key) {
-    return this.keyValues != null ? this.keyValues.get(key) : null;
+    return key != null ? this.keyValues.get(key) : null;
+  }
+
+  /**
+   * Set the deadline of this context after the given timeout from now, a deadline can only be
+   * shortened, the earlier one wins.
+   */
+  public Context<PK, PV, MK, MV> withDeadlineAfter(long timeout, TimeUnit unit) {
+    long deadline = LongMath.saturatedAdd(System.nanoTime(), unit.toNanos(timeout));
+    Long current = (Long) lookup(DEADLINE_KEY);
+    if (current != null && current - deadline <= 0) {
+      return this;
+    }
+    return withValue(DEADLINE_KEY, deadline);
+  }
+
+  /**
+   * @return {@code true} if this context has a deadline
+   */
+  public boolean hasDeadline() {
+    return lookup(DEADLINE_KEY) != null;
+  }
+
+  /**
+   * @return remaining nanoseconds to the deadline, negative if expired, {@link Long#MAX_VALUE} if no deadline
+   */
+  public long remainingNanos() {
+    Long deadline = (Long) lookup(DEADLINE_KEY);
+    return deadline == null ? Long.MAX_VALUE : deadline - System.nanoTime();
+  }
+
+  /**
+   * @return {@code true} if the deadline of this context is expired
+   */
+  public boolean isDeadlineExpired() {
+    return remainingNanos() <= 0;
   }
 
   public Throwable getException() {
@@ -161,9 +232,8 @@ public abstract class Context<PK, PV, MK, MV> {
    * Attach this context, thus enter a new scope within which this context is {@link #current}.
    */
   public Context attach() {
-    Context previous = current();
-    contextThreadLocal.set(this);
-    return previous;
+    Context previous = storage.attach(this);
+    return previous != null ? previous : empty();
   }
 
   /**
@@ -175,11 +245,15 @@ public abstract class Context<PK, PV, MK, MV> {
    * call. If an {@code attach()} and a {@code detach()} meet above requirements, they match.
    */
   public void detach(@Nullable Context context) {
-    if (context != empty()) {
-      contextThreadLocal.set(context);
-    } else {
-      contextThreadLocal.remove();
-    }
+    storage.restore(context);
+  }
+
+  /**
+   * Called when the context is handed off to another thread, e.g. by {@link ContextSnapshot#capture()}
+   * or {@link #wrap(Runnable)}. A context reading from a request that is only safe to read on its own
+   * thread copies what it reads here, the hook may be called many times.
+   */
+  protected void onHandOff() {
   }
 
   /**
@@ -196,7 +270,10 @@ public abstract class Context<PK, PV, MK, MV> {
     error = 1;
   }
 
-  private boolean isEmpty() {
+  /**
+   * whether this is the {@link #empty()} context, which ignores every write
+   */
+  public boolean isEmpty() {
     return this == empty();
   }
 
@@ -207,12 +284,7 @@ public abstract class Context<PK, PV, MK, MV> {
    */
   public void run(Runnable r) {
     Preconditions.checkNotNull(r, "runner");
-    Context previous = attach();
-    try {
-      r.run();
-    } finally {
-      detach(previous);
-    }
+    storage.run(this, r);
   }
 
   /**
@@ -220,12 +292,7 @@ public abstract class Context<PK, PV, MK, MV> {
    */
   public <V> V supplier(Supplier<V> c) {
     Preconditions.checkNotNull(c, "supplier");
-    Context previous = attach();
-    try {
-      return c.get();
-    } finally {
-      detach(previous);
-    }
+    return storage.supply(this, c);
   }
 
   /**
@@ -233,12 +300,7 @@ public abstract class Context<PK, PV, MK, MV> {
    */
   public <V> V callable(Callable<V> c) throws Exception {
     Preconditions.checkNotNull(c, "call");
-    Context previous = attach();
-    try {
-      return c.call();
-    } finally {
-      detach(previous);
-    }
+    return storage.call(this, c);
   }
 
   /**
@@ -246,14 +308,8 @@ public abstract class Context<PK, PV, MK, MV> {
    */
   public Runnable wrap(Runnable r) {
     Preconditions.checkNotNull(r, "runner");
-    return () -> {
-      Context previous = attach();
-      try {
-        r.run();
-      } finally {
-        detach(previous);
-      }
-    };
+    onHandOff();
+    return () -> storage.run(this, r);
   }
 
   /**
@@ -261,14 +317,8 @@ public abstract class Context<PK, PV, MK, MV> {
    */
   public <V> Supplier<V> wrap(Supplier<V> s) {
     Preconditions.checkNotNull(s, "supplier");
-    return () -> {
-      Context previous = attach();
-      try {
-        return s.get();
-      } finally {
-        detach(previous);
-      }
-    };
+    onHandOff();
+    return () -> storage.supply(this, s);
   }
 
   /**
@@ -276,14 +326,8 @@ public abstract class Context<PK, PV, MK, MV> {
    */
   public <V> Callable<V> wrap(Callable<V> c) {
     Preconditions.checkNotNull(c, "call");
-    return () -> {
-      Context previous = attach();
-      try {
-        return c.call();
-      } finally {
-        detach(previous);
-      }
-    };
+    onHandOff();
+    return () -> storage.call(this, c);
   }
 
 }
@@ -0,0 +1,167 @@
+package cc.ayakurayuki.spring.components.context;
+
+import com.google.common.base.Preconditions;
+import io.opentelemetry.context.Scope;
+import jakarta.annotation.Nonnull;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * An immutable pair of {@link Context} and OpenTelemetry {@link io.opentelemetry.context.Context},
+ * restored together by one structured call of the context storage.
+ * <p>
+ * Wrapping a task with a snapshot allocates one wrapper instead of one per context, and the
+ * OpenTelemetry attach is skipped by its storage when the captured context is already current.
+ *
+ * @author Ayakura Yuki
+ */
+@SuppressWarnings("rawtypes")
+public final class ContextSnapshot {
+
+  private final Context                          context;
+  private final io.opentelemetry.context.Context otelContext;
+
+  private ContextSnapshot(Context context, io.opentelemetry.context.Context otelContext) {
+    this.context = context;
+    this.otelContext = otelContext;
+  }
+
+  /**
+   * Capture both the current {@link Context} and the current OpenTelemetry context, to hand them off
+   * to another thread.
+   */
+  public static ContextSnapshot capture() {
+    Context context = Context.current();
+    context.onHandOff();
+    return new ContextSnapshot(context, io.opentelemetry.context.Context.current());
+  }
+
+  /**
+   * Capture only the current OpenTelemetry context, with the {@link Context#empty() empty} context,
+   * for work outliving the request, e.g. periodic schedules, which must not keep the request context
+   * and what it holds reachable.
+   */
+  public static ContextSnapshot captureTelemetry() {
+    return new ContextSnapshot(Context.empty(), io.opentelemetry.context.Context.current());
+  }
+
+  /**
+   * Pair the given contexts without handing them off, e.g. to attach them on the thread of the
+   * request, the {@code wrap} methods hand them off.
+   */
+  public static ContextSnapshot of(@Nonnull Context context, @Nonnull io.opentelemetry.context.Context otelContext) {
+    Preconditions.checkNotNull(context, "context");
+    Preconditions.checkNotNull(otelContext, "otelContext");
+    return new ContextSnapshot(context, otelContext);
+  }
+
+  public Context getContext() {
+    return this.context;
+  }
+
+  public io.opentelemetry.context.Context getOtelContext() {
+    return this.otelContext;
+  }
+
+  /**
+   * @return {@code true} if both captured contexts are empty, e.g. captured outside a request
+   */
+  public boolean isEmpty() {
+    return this.context.isEmpty() && this.otelContext == io.opentelemetry.context.Context.root();
+  }
+
+  /**
+   * @return {@code true} if both contexts are the current ones of this thread, running with the
+   * snapshot doesn't need an attach then
+   */
+  public boolean isCurrent() {
+    return Context.current() == this.context && io.opentelemetry.context.Context.current() == this.otelContext;
+  }
+
+  /**
+   * Attach both contexts, closing the returned scope restores the previous ones.
+   * <p>
+   * This is the unstructured escape hatch for callbacks that cannot wrap the work, e.g. interceptor
+   * listeners, it always takes the thread local path of the storage. Prefer {@link #run(Runnable)},
+   * {@link #supply(Supplier)} and {@link #call(Callable)}, which bind a scoped frame when
+   * {@code context_propagation=scoped}.
+   * <p>
+   * The scope must be closed on the same thread, in the reverse order of attaching.
+   */
+  public Scope attach() {
+    ContextStorage storage = Context.storage();
+    Context previous = storage.attach(this.context);
+    Scope otelScope = this.otelContext.makeCurrent();
+    return () -> {
+      otelScope.close();
+      storage.restore(previous);
+    };
+  }
+
+  /**
+   * Execute a {@link Runnable} immediately with both contexts as current, through the structured
+   * call of the context storage.
+   */
+  public void run(Runnable r) {
+    Preconditions.checkNotNull(r, "runner");
+    Context.storage().run(this.context, () -> {
+      try (Scope ignored = this.otelContext.makeCurrent()) {
+        r.run();
+      }
+    });
+  }
+
+  /**
+   * Execute a {@link Supplier} immediately with both contexts as current, through the structured
+   * call of the context storage.
+   */
+  public <V> V supply(Supplier<V> s) {
+    Preconditions.checkNotNull(s, "supplier");
+    return Context.storage().supply(this.context, () -> {
+      try (Scope ignored = this.otelContext.makeCurrent()) {
+        return s.get();
+      }
+    });
+  }
+
+  /**
+   * Execute a {@link Callable} immediately with both contexts as current, through the structured
+   * call of the context storage.
+   */
+  public <V> V call(Callable<V> c) throws Exception {
+    Preconditions.checkNotNull(c, "call");
+    return Context.storage().call(this.context, () -> {
+      try (Scope ignored = this.otelContext.makeCurrent()) {
+        return c.call();
+      }
+    });
+  }
+
+  /**
+   * Wrap a {@link Runnable} so that it executes with both contexts as current.
+   */
+  public Runnable wrap(Runnable r) {
+    Preconditions.checkNotNull(r, "runner");
+    this.context.onHandOff();
+    return () -> run(r);
+  }
+
+  /**
+   * Wrap a {@link Supplier} so that it executes with both contexts as current.
+   */
+  public <V> Supplier<V> wrap(Supplier<V> s) {
+    Preconditions.checkNotNull(s, "supplier");
+    this.context.onHandOff();
+    return () -> supply(s);
+  }
+
+  /**
+   * Wrap a {@link Callable} so that it executes with both contexts as current.
+   */
+  public <V> Callable<V> wrap(Callable<V> c) {
+    Preconditions.checkNotNull(c, "call");
+    this.context.onHandOff();
+    return () -> call(c);
+  }
+
+}
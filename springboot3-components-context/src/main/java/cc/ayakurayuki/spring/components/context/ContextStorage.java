@@ -0,0 +1,48 @@
+package cc.ayakurayuki.spring.components.context;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Storage backend holding the {@link Context#current()} context of a thread.
+ *
+ * @author Ayakura Yuki
+ * @see ThreadLocalContextStorage
+ * @see ScopedValueContextStorage
+ */
+@SuppressWarnings("rawtypes")
+interface ContextStorage {
+
+  /**
+   * @return the attached context of the current thread, or {@code null} if nothing attached
+   */
+  Context current();
+
+  /**
+   * Unstructured attach, make the given context current until {@link #restore(Context)} is called.
+   *
+   * @return the previous context, or {@code null} if nothing attached
+   */
+  Context attach(Context context);
+
+  /**
+   * Reverse an {@link #attach(Context)}, {@code null} or the empty context clear the current thread.
+   */
+  void restore(Context previous);
+
+  /**
+   * Structured attach, run the given runnable with the context as current.
+   */
+  void run(Context context, Runnable runnable);
+
+  /**
+   * Structured attach, get from the given supplier with the context as current.
+   */
+  <V> V supply(Context context, Supplier<V> supplier);
+
+  /**
+   * Structured attach, call the given callable with the context as current.
+   */
+  <V> V call(Context context, Callable<V> callable) throws Exception;
+
+}
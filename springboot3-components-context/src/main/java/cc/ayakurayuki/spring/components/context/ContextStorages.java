@@ -0,0 +1,49 @@
+package cc.ayakurayuki.spring.components.context;
+
+import cc.ayakurayuki.spring.components.env.Environment;
+import cc.ayakurayuki.spring.components.env.Environments;
+import cc.ayakurayuki.spring.components.env.Key;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Select the {@link ContextStorage} backend by environment {@code context_propagation}:
+ * <ul>
+ *   <li>{@code threadlocal}: the default, context is held by a static {@link ThreadLocal}</li>
+ *   <li>{@code scoped}: context is bound by {@code java.lang.ScopedValue}, falls back to
+ *   {@code threadlocal} if scoped values are not usable on the running JVM
+ *   (JDK 21 requires {@code --enable-preview})</li>
+ * </ul>
+ *
+ * @author Ayakura Yuki
+ */
+@Slf4j
+final class ContextStorages {
+
+  static final String THREAD_LOCAL = "threadlocal";
+  static final String SCOPED       = "scoped";
+
+  /**
+   * context propagation backend, see {@link ContextStorages}
+   */
+  private static final Key<String> CONTEXT_PROPAGATION = Environment.keyWithDefault("context_propagation", Environments.STRING_MARSHALLER, THREAD_LOCAL);
+
+  private ContextStorages() {
+  }
+
+  static ContextStorage load() {
+    String propagation = Environment.ofNullable(CONTEXT_PROPAGATION).orElse(THREAD_LOCAL);
+    return create(propagation);
+  }
+
+  static ContextStorage create(String propagation) {
+    if (SCOPED.equalsIgnoreCase(propagation)) {
+      if (ScopedValueContextStorage.isAvailable()) {
+        log.info("context propagation is using scoped value storage");
+        return new ScopedValueContextStorage();
+      }
+      log.warn("context propagation '%s' is not available on this JVM, fallback to '%s'".formatted(SCOPED, THREAD_LOCAL));
+    }
+    return new ThreadLocalContextStorage();
+  }
+
+}
@@ -1,14 +1,32 @@
 package cc.ayakurayuki.spring.components.context;
 
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
+ * Key of a {@link Context} value, compared by name: keys with the same name read and write the
+ * same value.
+ *
  * @author Yann
  */
 public class Key<T> {
 
+  /**
+   * slots in use by name, keys with the same name share their slot, and the slot is freed once
+   * neither a key nor a context value holds it, so keys created per instance do not grow the slot
+   * space of every context
+   */
+  private static final Map<String, WeakReference<Slot>> SLOTS   = new HashMap<>();
+  private static final BitSet                           INDEXES = new BitSet();
+  private static final Cleaner                          CLEANER = Cleaner.create();
+
   private final String name;
   private final T      defaultValue;
+  private final Slot   slot;
 
   public Key(String name) {
     this(name, null);
@@ -17,6 +35,7 @@ public class Key<T> {
   public Key(String name, T defaultValue) {
     this.name = name;
     this.defaultValue = defaultValue;
+    this.slot = acquire(name);
   }
 
   /**
@@ -35,6 +54,37 @@ public class Key<T> {
     return value == null ? defaultValue : value;
   }
 
+  /**
+   * slot of this key, shared by the keys with the same name
+   */
+  Slot slot() {
+    return slot;
+  }
+
+  private static Slot acquire(String name) {
+    synchronized (SLOTS) {
+      WeakReference<Slot> ref = SLOTS.get(name);
+      Slot slot = ref != null ? ref.get() : null;
+      if (slot == null) {
+        int index = INDEXES.nextClearBit(0);
+        INDEXES.set(index);
+        slot = new Slot(name, index);
+        WeakReference<Slot> created = new WeakReference<>(slot);
+        SLOTS.put(name, created);
+        // the index is only reused once the slot is unreachable, so no context holds a value in it
+        CLEANER.register(slot, () -> release(name, index, created));
+      }
+      return slot;
+    }
+  }
+
+  private static void release(String name, int index, WeakReference<Slot> ref) {
+    synchronized (SLOTS) {
+      SLOTS.remove(name, ref);
+      INDEXES.clear(index);
+    }
+  }
+
   @Override
   public String toString() {
     return name;
@@ -57,4 +107,28 @@ public class Key<T> {
     return Objects.hash(name);
   }
 
+  /**
+   * dense index of a {@link ValueSlots} slot, shared by the keys of one name
+   */
+  static final class Slot {
+
+    private final String name;
+    private final int    index;
+
+    private Slot(String name, int index) {
+      this.name = name;
+      this.index = index;
+    }
+
+    int index() {
+      return index;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
 }
@@ -0,0 +1,89 @@
+package cc.ayakurayuki.spring.components.context;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent log metadata of {@link Context}.
+ * <p>
+ * Every write appends an immutable node in front of the previous one, nothing is copied
+ * on write. The merged map is built once on the first read of a node and cached, later
+ * writes never touch a node that was already published. Equality is the one of the merged map.
+ *
+ * @author Ayakura Yuki
+ */
+final class LogMetadata {
+
+  private final LogMetadata         parent;
+  private final int                 depth;
+  private final String              key;
+  private final Object              value;
+  private final Map<String, Object> entries;
+
+  private volatile Map<String, Object> view;
+
+  private LogMetadata(LogMetadata parent, String key, Object value, Map<String, Object> entries) {
+    this.parent = parent;
+    this.depth = parent == null ? 1 : parent.depth + 1;
+    this.key = key;
+    this.value = value;
+    this.entries = entries;
+  }
+
+  static LogMetadata with(LogMetadata parent, String key, Object value) {
+    return new LogMetadata(parent, key, value, null);
+  }
+
+  static LogMetadata with(LogMetadata parent, Map<String, Object> entries) {
+    return new LogMetadata(parent, null, null, new HashMap<>(entries));
+  }
+
+  Map<String, Object> asMap() {
+    Map<String, Object> current = this.view;
+    if (current == null) {
+      current = Collections.unmodifiableMap(merge());
+      this.view = current;
+    }
+    return current;
+  }
+
+  private Map<String, Object> merge() {
+    LogMetadata[] nodes = new LogMetadata[this.depth];
+    int i = this.depth;
+    for (LogMetadata node = this; node != null; node = node.parent) {
+      nodes[--i] = node;
+    }
+    Map<String, Object> merged = new HashMap<>();
+    for (LogMetadata node : nodes) {
+      if (node.entries != null) {
+        merged.putAll(node.entries);
+      } else {
+        merged.put(node.key, node.value);
+      }
+    }
+    return merged;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof LogMetadata that)) {
+      return false;
+    }
+    return asMap().equals(that.asMap());
+  }
+
+  @Override
+  public int hashCode() {
+    return asMap().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return asMap().toString();
+  }
+
+}
@@ -0,0 +1,190 @@
+package cc.ayakurayuki.spring.components.context;
+
+import com.google.common.base.Throwables;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ContextStorage} based on {@code java.lang.ScopedValue}.
+ * <p>
+ * Structured calls ({@link Context#run(Runnable)}, {@link Context#wrap(Runnable)} and so on)
+ * bind a scoped frame instead of touching a {@link ThreadLocal}, so short-lived virtual
+ * threads never allocate a thread local map for the context.
+ * <p>
+ * Unstructured {@link Context#attach()} inside a bound frame only swaps the context of that
+ * frame, outside any frame (e.g. interceptor callbacks) it falls back to a thread local.
+ * <p>
+ * {@code ScopedValue} is a preview API on JDK 21, this storage is accessed through method
+ * handles and is only used if a probe binding succeeds on the running JVM, see
+ * {@link ContextStorages}.
+ *
+ * @author Ayakura Yuki
+ */
+@Slf4j
+@SuppressWarnings("rawtypes")
+final class ScopedValueContextStorage implements ContextStorage {
+
+  private static final Frame UNBOUND = new Frame(null, null);
+
+  private static final MethodHandle WHERE;   // (ScopedValue, Object) -> Carrier
+  private static final MethodHandle RUN;     // (Carrier, Runnable) -> void
+  private static final MethodHandle OR_ELSE; // (ScopedValue, Object) -> Object
+  private static final Object       SCOPED_FRAME;
+
+  static {
+    MethodHandle where = null;
+    MethodHandle run = null;
+    MethodHandle orElse = null;
+    Object scopedFrame = null;
+    try {
+      Class<?> scopedValueClass = Class.forName("java.lang.ScopedValue");
+      Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      scopedFrame = lookup.findStatic(scopedValueClass, "newInstance", MethodType.methodType(scopedValueClass)).invoke();
+      where = lookup.findStatic(scopedValueClass, "where", MethodType.methodType(carrierClass, scopedValueClass, Object.class))
+          .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+      run = lookup.findVirtual(carrierClass, "run", MethodType.methodType(void.class, Runnable.class))
+          .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+      orElse = lookup.findVirtual(scopedValueClass, "orElse", MethodType.methodType(Object.class, Object.class))
+          .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+    } catch (Throwable e) {
+      log.debug("java.lang.ScopedValue is not accessible on this JVM", e);
+      where = null;
+      run = null;
+      orElse = null;
+      scopedFrame = null;
+    }
+    WHERE = where;
+    RUN = run;
+    OR_ELSE = orElse;
+    SCOPED_FRAME = scopedFrame;
+  }
+
+  private final ThreadLocal<Context> fallback = new ThreadLocal<>();
+
+  /**
+   * @return {@code true} if scoped values could be bound and read on this JVM
+   */
+  static boolean isAvailable() {
+    if (SCOPED_FRAME == null) {
+      return false;
+    }
+    try {
+      Frame probe = new Frame(Thread.currentThread(), null);
+      boolean[] bound = new boolean[1];
+      Object carrier = (Object) WHERE.invokeExact(SCOPED_FRAME, (Object) probe);
+      RUN.invokeExact(carrier, (Runnable) () -> bound[0] = frame() == probe);
+      return bound[0] && frame() == UNBOUND;
+    } catch (Throwable e) {
+      log.debug("java.lang.ScopedValue probe binding failed", e);
+      return false;
+    }
+  }
+
+  @Override
+  public Context current() {
+    Frame frame = frame();
+    if (frame == UNBOUND) {
+      return fallback.get();
+    }
+    if (frame.owner == Thread.currentThread()) {
+      return frame.context;
+    }
+    // frame inherited by a forked thread, the thread's own attach wins
+    Context attached = fallback.get();
+    return attached != null ? attached : frame.context;
+  }
+
+  @Override
+  public Context attach(Context context) {
+    Frame frame = frame();
+    if (frame != UNBOUND && frame.owner == Thread.currentThread()) {
+      Context previous = frame.context;
+      frame.context = context;
+      return previous;
+    }
+    Context previous = fallback.get();
+    fallback.set(context);
+    return previous;
+  }
+
+  @Override
+  public void restore(Context previous) {
+    Frame frame = frame();
+    if (frame != UNBOUND && frame.owner == Thread.currentThread()) {
+      frame.context = previous;
+      return;
+    }
+    if (previous != null && previous != Context.empty()) {
+      fallback.set(previous);
+    } else {
+      fallback.remove();
+    }
+  }
+
+  @Override
+  public void run(Context context, Runnable runnable) {
+    try {
+      Object carrier = (Object) WHERE.invokeExact(SCOPED_FRAME, (Object) new Frame(Thread.currentThread(), context));
+      RUN.invokeExact(carrier, runnable);
+    } catch (Throwable e) {
+      Throwables.throwIfUnchecked(e);
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V> V supply(Context context, Supplier<V> supplier) {
+    Object[] result = new Object[1];
+    run(context, () -> result[0] = supplier.get());
+    return (V) result[0];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V> V call(Context context, Callable<V> callable) throws Exception {
+    Object[] result = new Object[1];
+    Exception[] error = new Exception[1];
+    run(context, () -> {
+      try {
+        result[0] = callable.call();
+      } catch (Exception e) {
+        error[0] = e;
+      }
+    });
+    if (error[0] != null) {
+      throw error[0];
+    }
+    return (V) result[0];
+  }
+
+  private static Frame frame() {
+    try {
+      return (Frame) (Object) OR_ELSE.invokeExact(SCOPED_FRAME, (Object) UNBOUND);
+    } catch (Throwable e) {
+      Throwables.throwIfUnchecked(e);
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * a scoped binding, owned by the thread which bound it
+   */
+  private static final class Frame {
+
+    private final Thread  owner;
+    private       Context context;
+
+    private Frame(Thread owner, Context context) {
+      this.owner = owner;
+      this.context = context;
+    }
+
+  }
+
+}
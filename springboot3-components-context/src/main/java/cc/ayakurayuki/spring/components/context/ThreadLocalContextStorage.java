@@ -0,0 +1,67 @@
+package cc.ayakurayuki.spring.components.context;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * The default {@link ContextStorage} based on a static {@link ThreadLocal}.
+ *
+ * @author Ayakura Yuki
+ */
+@SuppressWarnings("rawtypes")
+final class ThreadLocalContextStorage implements ContextStorage {
+
+  private static final ThreadLocal<Context> contextThreadLocal = new ThreadLocal<>();
+
+  @Override
+  public Context current() {
+    return contextThreadLocal.get();
+  }
+
+  @Override
+  public Context attach(Context context) {
+    Context previous = contextThreadLocal.get();
+    contextThreadLocal.set(context);
+    return previous;
+  }
+
+  @Override
+  public void restore(Context previous) {
+    if (previous != null && previous != Context.empty()) {
+      contextThreadLocal.set(previous);
+    } else {
+      contextThreadLocal.remove();
+    }
+  }
+
+  @Override
+  public void run(Context context, Runnable runnable) {
+    Context previous = attach(context);
+    try {
+      runnable.run();
+    } finally {
+      restore(previous);
+    }
+  }
+
+  @Override
+  public <V> V supply(Context context, Supplier<V> supplier) {
+    Context previous = attach(context);
+    try {
+      return supplier.get();
+    } finally {
+      restore(previous);
+    }
+  }
+
+  @Override
+  public <V> V call(Context context, Callable<V> callable) throws Exception {
+    Context previous = attach(context);
+    try {
+      return callable.call();
+    } finally {
+      restore(previous);
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+package cc.ayakurayuki.spring.components.context;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Persistent slot array for {@link Context} key-values, indexed by the {@link Key.Slot} of the key.
+ * <p>
+ * Slots are grouped into chunks of 16, a write copies the chunk index and the single
+ * chunk that changed, the instance that was read before stays untouched, so readers
+ * always see a safe snapshot.
+ * <p>
+ * Every slot holds the {@link Key.Slot} of its key next to the value, an index reused by another
+ * name never reads the value of the former. Equality is the one of a map of key to value.
+ *
+ * @author Ayakura Yuki
+ */
+final class ValueSlots {
+
+  static final ValueSlots EMPTY = new ValueSlots(new Object[0][]);
+
+  private static final int SHIFT = 4;
+  private static final int CHUNK = 1 << SHIFT;
+  private static final int MASK  = CHUNK - 1;
+
+  // slot of the key at 2 * i, value at 2 * i + 1
+  private final Object[][] chunks;
+
+  private ValueSlots(Object[][] chunks) {
+    this.chunks = chunks;
+  }
+
+  Object get(Key<?> key) {
+    Key.Slot owner = key.slot();
+    int slot = owner.index();
+    int index = slot >>> SHIFT;
+    Object[][] current = this.chunks;
+    if (index >= current.length) {
+      return null;
+    }
+    Object[] chunk = current[index];
+    if (chunk == null) {
+      return null;
+    }
+    int i = (slot & MASK) << 1;
+    return chunk[i] == owner ? chunk[i + 1] : null;
+  }
+
+  ValueSlots with(Key<?> key, Object value) {
+    Key.Slot owner = key.slot();
+    int slot = owner.index();
+    int index = slot >>> SHIFT;
+    Object[][] copied = Arrays.copyOf(this.chunks, Math.max(this.chunks.length, index + 1));
+    Object[] chunk = copied[index];
+    chunk = chunk == null ? new Object[CHUNK << 1] : chunk.clone();
+    int i = (slot & MASK) << 1;
+    chunk[i] = owner;
+    chunk[i + 1] = value;
+    copied[index] = chunk;
+    return new ValueSlots(copied);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ValueSlots that)) {
+      return false;
+    }
+    int length = Math.max(this.chunks.length, that.chunks.length);
+    for (int c = 0; c < length; c++) {
+      Object[] a = c < this.chunks.length ? this.chunks[c] : null;
+      Object[] b = c < that.chunks.length ? that.chunks[c] : null;
+      for (int i = 0; i < CHUNK << 1; i += 2) {
+        Object keyA = a == null ? null : a[i];
+        Object keyB = b == null ? null : b[i];
+        if (keyA != keyB || keyA != null && !Objects.equals(a[i + 1], b[i + 1])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 0;
+    for (Object[] chunk : chunks) {
+      if (chunk == null) {
+        continue;
+      }
+      for (int i = 0; i < CHUNK << 1; i += 2) {
+        if (chunk[i] != null) {
+          hash += chunk[i].hashCode() ^ Objects.hashCode(chunk[i + 1]);
+        }
+      }
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    for (Object[] chunk : chunks) {
+      if (chunk == null) {
+        continue;
+      }
+      for (int i = 0; i < CHUNK << 1; i += 2) {
+        if (chunk[i] != null) {
+          joiner.add(chunk[i] + "=" + chunk[i + 1]);
+        }
+      }
+    }
+    return joiner.toString();
+  }
+
+}
@@ -0,0 +1,232 @@
+package cc.ayakurayuki.spring.components.context.cache;
+
+import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
+import cc.ayakurayuki.spring.components.context.Key;
+import cc.ayakurayuki.spring.components.context.concurrent.pool.ThreadPools;
+import com.google.common.base.Preconditions;
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * DataLoader-style batching of downstream lookups, scoped to the current {@link Context}.
+ * <p>
+ * Single {@link #load(Object)} calls of one request within a short window are collected and
+ * sent as one call to the bulk function, e.g. one multi-get RPC. A batch is sent as soon as it
+ * reaches the max batch size, or when the window is over, whichever comes first. Duplicated keys
+ * in one batch are loaded once, keys missing from the bulk result complete with {@code null}.
+ * <p>
+ * The bulk function runs in a virtual thread with the context of the request, so RPC clients
+ * see the request deadline. A batch never waits beyond the deadline, and its futures fail with
+ * {@link TimeoutException} once the deadline expires.
+ * <p>
+ * Create a loader once and keep it, e.g. as a bean or a static field.
+ * <pre>{@code
+ * BatchLoader<Long, User> users = BatchLoader.create("user", ids -> userClient.multiGet(ids), 100, Duration.ofMillis(2));
+ * CompletableFuture<User> user = users.load(id);
+ * }</pre>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ *
+ * @author Ayakura Yuki
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class BatchLoader<K, V> {
+
+  private static final AtomicLong               SEQUENCE  = new AtomicLong();
+  private static final ScheduledExecutorService SCHEDULER = ThreadPools.newScheduledThreadPool("Batch-Loader-Scheduler", 1);
+  private static final Executor                 EXECUTOR  = ThreadPools.newVirtualExecutor("Batch-Loader-");
+
+  private final String                                                  name;
+  private final Function<List<K>, ? extends CompletableFuture<Map<K, V>>> bulkFunction;
+  private final int                                                     maxBatchSize;
+  private final long                                                    windowNanos;
+  private final Key<Queue>                                              key;
+
+  private BatchLoader(String name, Function<List<K>, ? extends CompletableFuture<Map<K, V>>> bulkFunction, int maxBatchSize, Duration window) {
+    Preconditions.checkNotNull(bulkFunction, "bulkFunction");
+    Preconditions.checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+    Preconditions.checkArgument(!window.isNegative(), "window must not be negative");
+    this.name = name;
+    this.bulkFunction = bulkFunction;
+    this.maxBatchSize = maxBatchSize;
+    this.windowNanos = window.toNanos();
+    this.key = Context.key("batch-loader-%s-%d".formatted(name, SEQUENCE.incrementAndGet()));
+  }
+
+  /**
+   * Create a loader with max batch size 100 and a 1 ms window.
+   */
+  public static <K, V> BatchLoader<K, V> create(@Nonnull String name, @Nonnull Function<List<K>, ? extends CompletableFuture<Map<K, V>>> bulkFunction) {
+    return new BatchLoader<>(name, bulkFunction, 100, Duration.ofMillis(1));
+  }
+
+  /**
+   * Create a loader.
+   *
+   * @param name         loader name, for thread and debug names
+   * @param bulkFunction loads a batch of keys in one call
+   * @param maxBatchSize max keys in one batch
+   * @param window       time to collect keys after the first key of a batch
+   */
+  public static <K, V> BatchLoader<K, V> create(@Nonnull String name,
+                                                @Nonnull Function<List<K>, ? extends CompletableFuture<Map<K, V>>> bulkFunction,
+                                                int maxBatchSize,
+                                                @Nonnull Duration window) {
+    return new BatchLoader<>(name, bulkFunction, maxBatchSize, window);
+  }
+
+  /**
+   * Load the value of a key with the next batch of the current request.
+   */
+  public CompletableFuture<V> load(K k) {
+    ContextSnapshot snapshot = ContextSnapshot.capture();
+    Context context = snapshot.getContext();
+    long remaining = context.remainingNanos();
+    if (remaining <= 0) {
+      return CompletableFuture.failedFuture(new TimeoutException("deadline exceeded before loading from " + this.name));
+    }
+    if (context == Context.empty()) {
+      // no request to batch with
+      Batch batch = new Batch(snapshot);
+      CompletableFuture<V> future = batch.add(k);
+      dispatch(batch);
+      return future;
+    }
+
+    Queue queue = queueOf(context);
+    Batch full = null;
+    CompletableFuture<V> future;
+    synchronized (queue) {
+      Batch batch = queue.batch;
+      if (batch == null) {
+        batch = new Batch(snapshot);
+        queue.batch = batch;
+        Batch scheduled = batch;
+        SCHEDULER.schedule(() -> onWindowClosed(queue, scheduled), Math.min(this.windowNanos, remaining), TimeUnit.NANOSECONDS);
+      }
+      future = batch.add(k);
+      if (batch.size() >= this.maxBatchSize) {
+        queue.batch = null;
+        full = batch;
+      }
+    }
+    if (full != null) {
+      dispatch(full);
+    }
+    return future;
+  }
+
+  /**
+   * Load the values of keys with the next batches of the current request.
+   */
+  public CompletableFuture<Map<K, V>> loadMany(@Nonnull Collection<K> keys) {
+    Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+    for (K k : keys) {
+      futures.put(k, load(k));
+    }
+    return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+        .thenApply(v -> {
+          Map<K, V> values = new LinkedHashMap<>();
+          futures.forEach((k, future) -> values.put(k, future.join()));
+          return values;
+        });
+  }
+
+  private Queue queueOf(Context context) {
+    Queue queue = (Queue) context.lookup(this.key);
+    if (queue != null) {
+      return queue;
+    }
+    return (Queue) context.computeValueIfAbsent(this.key, Queue::new);
+  }
+
+  private void onWindowClosed(Queue queue, Batch batch) {
+    synchronized (queue) {
+      if (queue.batch == batch) {
+        queue.batch = null;
+      }
+    }
+    dispatch(batch);
+  }
+
+  private void dispatch(Batch batch) {
+    if (!batch.dispatched.compareAndSet(false, true)) {
+      return; // already sent as a full batch
+    }
+    EXECUTOR.execute(() -> batch.snapshot.run(() -> {
+      long remaining = batch.snapshot.getContext().remainingNanos();
+      if (remaining <= 0) {
+        batch.fail(new TimeoutException("deadline exceeded before sending the batch of " + this.name));
+        return;
+      }
+      CompletableFuture<Map<K, V>> result;
+      try {
+        result = ((CompletableFuture<Map<K, V>>) this.bulkFunction.apply(List.copyOf(batch.futures.keySet()))).copy();
+      } catch (Throwable e) {
+        result = CompletableFuture.failedFuture(e);
+      }
+      if (remaining != Long.MAX_VALUE) {
+        result = result.orTimeout(remaining, TimeUnit.NANOSECONDS);
+      }
+      result.whenComplete((values, e) -> {
+        if (e != null) {
+          batch.fail(e);
+        } else {
+          batch.complete(values);
+        }
+      });
+    }));
+  }
+
+  /**
+   * batches of a loader in one request
+   */
+  private final class Queue {
+
+    private Batch batch; // the collecting batch, guarded by this queue
+
+  }
+
+  private final class Batch {
+
+    private final ContextSnapshot              snapshot;
+    private final Map<K, CompletableFuture<V>> futures    = new LinkedHashMap<>();
+    private final AtomicBoolean                dispatched = new AtomicBoolean(false);
+
+    private Batch(ContextSnapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    private CompletableFuture<V> add(K k) {
+      return this.futures.computeIfAbsent(k, ignored -> new CompletableFuture<>()).copy();
+    }
+
+    private int size() {
+      return this.futures.size();
+    }
+
+    private void complete(Map<K, V> values) {
+      this.futures.forEach((k, future) -> future.complete(values == null ? null : values.get(k)));
+    }
+
+    private void fail(Throwable e) {
+      this.futures.values().forEach(future -> future.completeExceptionally(e));
+    }
+
+  }
+
+}
@@ -0,0 +1,186 @@
+package cc.ayakurayuki.spring.components.context.cache;
+
+import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.Key;
+import cc.ayakurayuki.spring.components.stats.model.RequestCache;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import jakarta.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Request scoped memoization cache, hung off the current {@link Context}.
+ * <p>
+ * A value is loaded at most once per request, concurrent loads of the same key wait for the
+ * first one. Failed loads are not cached. A loader that loads its own key again in the thread
+ * running it fails with {@link IllegalStateException} rather than waiting for itself. Without a current context (e.g. outside a request)
+ * nothing is cached and the loader is always called.
+ * <p>
+ * The cache is dropped by {@link #discard(Context)} at the end of the request, which also
+ * reports the hits and misses of the request.
+ *
+ * @author Ayakura Yuki
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class ContextCache {
+
+  private static final Key<ContextCache> KEY = Context.key("context-cache");
+
+  private final ConcurrentMap<CacheKey, CompletableFuture<Object>> entries = new ConcurrentHashMap<>();
+  private final LongAdder                                          hits    = new LongAdder();
+  private final LongAdder                                          misses  = new LongAdder();
+
+  private ContextCache() {
+  }
+
+  /**
+   * Get the cached value of the key, or load it with the async loader.
+   *
+   * @param name   name of the key space, e.g. {@code "user"}, also the metric label
+   * @param key    key in the key space
+   * @param loader async loader, called at most once per request for the key
+   *
+   * @return a new future completed with the cached value
+   */
+  public static <K, V> CompletableFuture<V> computeIfAbsentAsync(@Nonnull String name, K key, @Nonnull Function<? super K, ? extends CompletableFuture<V>> loader) {
+    Preconditions.checkNotNull(loader, "loader");
+    ContextCache cache = of(Context.current());
+    if (cache == null) {
+      return loader.apply(key);
+    }
+    CacheKey cacheKey = new CacheKey(name, key);
+    CompletableFuture<Object> entry = cache.entries.get(cacheKey);
+    if (entry == null) {
+      Loading placeholder = new Loading();
+      entry = cache.entries.putIfAbsent(cacheKey, placeholder);
+      if (entry == null) {
+        cache.miss(name);
+        CompletableFuture<V> loading;
+        try {
+          loading = loader.apply(key);
+        } catch (Throwable e) {
+          loading = CompletableFuture.failedFuture(e);
+        } finally {
+          placeholder.loader = null;
+        }
+        if (loading == null) {
+          // fail the waiters of the placeholder rather than leaving them blocked forever
+          loading = CompletableFuture.failedFuture(new NullPointerException("loader of %s %s returned null".formatted(name, key)));
+        }
+        loading.whenComplete((value, e) -> cache.complete(cacheKey, placeholder, value, e));
+        return (CompletableFuture<V>) placeholder.copy();
+      }
+    }
+    cache.hit(name);
+    return (CompletableFuture<V>) entry.copy();
+  }
+
+  /**
+   * Get the cached value of the key, or load it with the loader in the calling thread.
+   *
+   * @param name   name of the key space, e.g. {@code "user"}, also the metric label
+   * @param key    key in the key space
+   * @param loader loader, called at most once per request for the key
+   *
+   * @return the cached value
+   */
+  public static <K, V> V computeIfAbsent(@Nonnull String name, K key, @Nonnull Function<? super K, ? extends V> loader) {
+    Preconditions.checkNotNull(loader, "loader");
+    ContextCache cache = of(Context.current());
+    if (cache == null) {
+      return loader.apply(key);
+    }
+    CacheKey cacheKey = new CacheKey(name, key);
+    CompletableFuture<Object> entry = cache.entries.get(cacheKey);
+    if (entry == null) {
+      Loading placeholder = new Loading();
+      entry = cache.entries.putIfAbsent(cacheKey, placeholder);
+      if (entry == null) {
+        cache.miss(name);
+        V value;
+        try {
+          value = loader.apply(key);
+        } catch (Throwable e) {
+          placeholder.loader = null;
+          cache.complete(cacheKey, placeholder, null, e);
+          throw e;
+        }
+        placeholder.loader = null;
+        cache.complete(cacheKey, placeholder, value, null);
+        return value;
+      }
+    }
+    if (entry instanceof Loading loading && loading.loader == Thread.currentThread()) {
+      // joining would wait for the loader running below in this very thread
+      throw new IllegalStateException("recursive load of %s %s in its own loader".formatted(name, key));
+    }
+    cache.hit(name);
+    try {
+      return (V) entry.join();
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * Drop the cache of the context and report its hits and misses, call it at the end of the request.
+   */
+  public static void discard(@Nonnull Context context) {
+    ContextCache cache = (ContextCache) context.lookup(KEY);
+    if (cache == null) {
+      return;
+    }
+    context.withValue(KEY, null);
+    cache.entries.clear();
+    // not by path, the path of an unmatched request is its raw uri
+    RequestCache.REQUEST_CACHE_HIT_PER_REQUEST.observe(cache.hits.sum());
+    RequestCache.REQUEST_CACHE_MISS_PER_REQUEST.observe(cache.misses.sum());
+  }
+
+  private static ContextCache of(Context context) {
+    ContextCache cache = (ContextCache) context.lookup(KEY);
+    if (cache != null || context.isEmpty()) {
+      return cache;
+    }
+    return (ContextCache) context.computeValueIfAbsent(KEY, ContextCache::new);
+  }
+
+  private void complete(CacheKey cacheKey, CompletableFuture<Object> placeholder, Object value, Throwable e) {
+    if (e != null) {
+      this.entries.remove(cacheKey, placeholder); // never cache a failure
+      placeholder.completeExceptionally(e);
+    } else {
+      placeholder.complete(value);
+    }
+  }
+
+  private void hit(String name) {
+    this.hits.increment();
+    RequestCache.REQUEST_CACHE_HIT.inc(name);
+  }
+
+  private void miss(String name) {
+    this.misses.increment();
+    RequestCache.REQUEST_CACHE_MISS.inc(name);
+  }
+
+  private record CacheKey(String name, Object key) {
+
+  }
+
+  /**
+   * placeholder of a load in progress, knows the thread running the loader until it returns
+   */
+  private static final class Loading extends CompletableFuture<Object> {
+
+    private volatile Thread loader = Thread.currentThread();
+
+  }
+
+}
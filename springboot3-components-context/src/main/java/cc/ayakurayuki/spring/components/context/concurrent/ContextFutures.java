@@ -1,13 +1,16 @@
 package cc.ayakurayuki.spring.components.context.concurrent;
 
-import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import cc.ayakurayuki.spring.components.context.concurrent.pool.ThreadPools;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import io.opentelemetry.context.Scope;
+import com.google.common.util.concurrent.MoreExecutors;
 import jakarta.annotation.Nonnull;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 
 public class ContextFutures {
@@ -15,43 +18,72 @@ public class ContextFutures {
   private static final Executor FUTURE_CALLBACK;
 
   static {
-    FUTURE_CALLBACK = ThreadPools.newVirtualExecutor("Future-Callback-");
+    FUTURE_CALLBACK = ThreadPools.newStripedCoalescingExecutor("Future-Callback", PoolSizing.cpus());
   }
 
   /**
    * Convert a {@link ListenableFuture} to {@link CompletableFuture}.
    * <p>
-   * Be warned! Do NOT do anything blocking in {@link CompletableFuture}, otherwise use async api.
+   * The {@link CompletableFuture} completes with the context of the caller. A future done already
+   * completes it in the calling thread, and so does a completing thread which runs with the same
+   * request context already. Otherwise the completion is handed off to striped coalescing executors,
+   * one per cpu, so the completing thread (e.g. a gRPC event loop) doesn't run the dependent stages
+   * attached before the completion.
+   * <p>
+   * Be warned! Dependent stages which are not {@code *Async} run in the thread completing the
+   * future, a blocking one holds up the other completions of its stripe. Do NOT do anything
+   * blocking in them, use the async api with an executor of your own.
    */
-  @SuppressWarnings("rawtypes")
   public static <T> CompletableFuture<T> asCompletableFuture(@Nonnull ListenableFuture<T> listenableFuture) {
-    Context context = Context.current();
-    io.opentelemetry.context.Context otelContext = io.opentelemetry.context.Context.current();
+    return asCompletableFuture(listenableFuture, FUTURE_CALLBACK);
+  }
+
+  static <T> CompletableFuture<T> asCompletableFuture(ListenableFuture<T> listenableFuture, Executor callbackExecutor) {
     CompletableFuture<T> completableFuture = new CompletableFuture<>();
+    if (listenableFuture.isDone()) {
+      // completed on the calling thread, which has the context already
+      try {
+        completableFuture.complete(Futures.getDone(listenableFuture));
+      } catch (ExecutionException e) {
+        completableFuture.completeExceptionally(e.getCause());
+      } catch (CancellationException e) {
+        completableFuture.completeExceptionally(e);
+      }
+      return completableFuture;
+    }
+    ContextSnapshot snapshot = ContextSnapshot.capture();
     Futures.addCallback(
         listenableFuture,
         new FutureCallback<>() {
           @Override
           public void onSuccess(T result) {
-            context.run(() -> {
-              try (Scope ignored = otelContext.makeCurrent()) {
-                completableFuture.complete(result);
-              }
-            });
+            if (inPlace(snapshot)) {
+              completableFuture.complete(result);
+            } else {
+              callbackExecutor.execute(() -> snapshot.run(() -> completableFuture.complete(result)));
+            }
           }
 
           @Override
-          public void onFailure(Throwable t) {
-            context.run(() -> {
-              try (Scope ignored = otelContext.makeCurrent()) {
-                completableFuture.completeExceptionally(t);
-              }
-            });
+          public void onFailure(@Nonnull Throwable t) {
+            if (inPlace(snapshot)) {
+              completableFuture.completeExceptionally(t);
+            } else {
+              callbackExecutor.execute(() -> snapshot.run(() -> completableFuture.completeExceptionally(t)));
+            }
           }
         },
-        FUTURE_CALLBACK
+        MoreExecutors.directExecutor()
     );
     return completableFuture;
   }
 
+  /**
+   * complete in the completing thread only if it runs with the captured request context, an empty
+   * context is the current one of every event loop
+   */
+  private static boolean inPlace(ContextSnapshot snapshot) {
+    return !snapshot.isEmpty() && snapshot.isCurrent();
+  }
+
 }
@@ -1,6 +1,7 @@
 package cc.ayakurayuki.spring.components.context.concurrent;
 
 import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
 import java.util.concurrent.Callable;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -37,120 +38,84 @@ public class Contexts {
   }
 
   /**
-   * wrap a {@link Runnable} with {@link Context}
+   * wrap a {@link Runnable} with {@link Context} and the OpenTelemetry context
    *
    * @param r the given runnable to be wrapped
    *
    * @return wrapped runnable
    */
   public static Runnable runnable(Runnable r) {
-    return Context.current().wrap(r);
+    return ContextSnapshot.capture().wrap(r);
   }
 
   /**
-   * wrap a {@link Callable} with {@link Context}
+   * wrap a {@link Callable} with {@link Context} and the OpenTelemetry context
    *
    * @param c the given callable to be wrapped
    *
    * @return wrapped callable
    */
   public static <V> Callable<V> callable(Callable<V> c) {
-    return Context.current().wrap(c);
+    return ContextSnapshot.capture().wrap(c);
   }
 
   /**
-   * wrap a {@link Function} with {@link Context}
+   * wrap a {@link Function} with {@link Context} and the OpenTelemetry context
    *
    * @param f the given function to be wrapped
    *
    * @return wrapped function
    */
   public static <T, R> Function<T, R> function(Function<T, R> f) {
-    Context context = Context.current();
-    return t -> {
-      Context prev = context.attach();
-      try {
-        return f.apply(t);
-      } finally {
-        context.detach(prev);
-      }
-    };
+    ContextSnapshot snapshot = ContextSnapshot.capture();
+    return t -> snapshot.supply(() -> f.apply(t));
   }
 
   /**
-   * wrap a {@link BiFunction} with {@link Context}
+   * wrap a {@link BiFunction} with {@link Context} and the OpenTelemetry context
    *
    * @param f the given biFunction to be wrapped
    *
    * @return wrapped biFunction
    */
   public static <T, U, R> BiFunction<T, U, R> biFunction(BiFunction<T, U, R> f) {
-    Context context = Context.current();
-    return (v, u) -> {
-      Context prev = context.attach();
-      try {
-        return f.apply(v, u);
-      } finally {
-        context.detach(prev);
-      }
-    };
+    ContextSnapshot snapshot = ContextSnapshot.capture();
+    return (v, u) -> snapshot.supply(() -> f.apply(v, u));
   }
 
   /**
-   * wrap a {@link Supplier} with {@link Context}
+   * wrap a {@link Supplier} with {@link Context} and the OpenTelemetry context
    *
    * @param s the given supplier to be wrapped
    *
    * @return wrapped supplier
    */
   public static <T> Supplier<T> supplier(Supplier<T> s) {
-    Context context = Context.current();
-    return () -> {
-      Context prev = context.attach();
-      try {
-        return s.get();
-      } finally {
-        context.detach(prev);
-      }
-    };
+    return ContextSnapshot.capture().wrap(s);
   }
 
   /**
-   * wrap a {@link Consumer} with {@link Context}
+   * wrap a {@link Consumer} with {@link Context} and the OpenTelemetry context
    *
    * @param c the given consumer to be wrapped
    *
    * @return wrapped consumer
    */
   public static <T> Consumer<T> consumer(Consumer<T> c) {
-    Context context = Context.current();
-    return v -> {
-      Context prev = context.attach();
-      try {
-        c.accept(v);
-      } finally {
-        context.detach(prev);
-      }
-    };
+    ContextSnapshot snapshot = ContextSnapshot.capture();
+    return v -> snapshot.run(() -> c.accept(v));
   }
 
   /**
-   * wrap a {@link BiConsumer} with {@link Context}
+   * wrap a {@link BiConsumer} with {@link Context} and the OpenTelemetry context
    *
    * @param c the given biConsumer to be wrapped
    *
    * @return wrapped biConsumer
    */
   public static <T, U> BiConsumer<T, U> biConsumer(BiConsumer<T, U> c) {
-    Context context = Context.current();
-    return (v, u) -> {
-      Context prev = context.attach();
-      try {
-        c.accept(v, u);
-      } finally {
-        context.detach(prev);
-      }
-    };
+    ContextSnapshot snapshot = ContextSnapshot.capture();
+    return (v, u) -> snapshot.run(() -> c.accept(v, u));
   }
 
 }
@@ -0,0 +1,347 @@
+package cc.ayakurayuki.spring.components.context.concurrent;
+
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
+import cc.ayakurayuki.spring.components.context.concurrent.pool.ManagedBlocking;
+import com.google.common.base.Preconditions;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Structured fan-out of subtasks on virtual threads.
+ * <p>
+ * Every subtask runs in its own virtual thread with the {@link cc.ayakurayuki.spring.components.context.Context}
+ * and the OpenTelemetry context of the thread which opened the scope. At most {@code parallelism}
+ * subtasks run at the same time, the first failed subtask cancels all the others, and when the
+ * deadline (the given timeout or the deadline of the current context, whichever is earlier)
+ * expires the unfinished subtasks are cancelled and the finished ones are kept as partial results.
+ * <pre>{@code
+ * try (FanOutScope<Item> scope = FanOutScope.open("item-fan-out", 8, Duration.ofMillis(200))) {
+ *   for (long id : ids) {
+ *     scope.fork(() -> itemClient.get(id));
+ *   }
+ *   List<Item> items = scope.join().results();
+ * }
+ * }</pre>
+ * <p>
+ * Modeled after {@code StructuredTaskScope.ShutdownOnFailure}, which is a preview API on JDK 21.
+ * The scope is owned by the thread which opened it, only that thread forks, joins and closes it.
+ *
+ * @param <T> result type of subtasks
+ *
+ * @author Ayakura Yuki
+ */
+public final class FanOutScope<T> implements AutoCloseable {
+
+  private final Thread          owner;
+  private final ThreadFactory   factory;
+  private final ContextSnapshot snapshot;
+  private final Semaphore       permits;
+  private final long            deadlineNanos;
+  private final boolean         hasDeadline;
+
+  private final List<Task>    tasks   = new ArrayList<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final ReentrantLock lock    = new ReentrantLock();
+  private final Condition     changed = lock.newCondition();
+
+  private volatile boolean   shutdown;
+  private volatile Throwable failure;
+  private          boolean   joined;
+  private          boolean   timedOut;
+
+  private FanOutScope(String name, int parallelism, @Nullable Duration timeout) {
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+    this.owner = Thread.currentThread();
+    this.factory = Thread.ofVirtual().name(name + "-", 0).factory();
+    this.snapshot = ContextSnapshot.capture();
+    this.permits = parallelism == Integer.MAX_VALUE ? null : new Semaphore(parallelism);
+    long remaining = this.snapshot.getContext().remainingNanos(); // deadline of the request
+    if (timeout != null) {
+      remaining = Math.min(remaining, timeout.toNanos());
+    }
+    this.hasDeadline = remaining != Long.MAX_VALUE;
+    this.deadlineNanos = System.nanoTime() + remaining;
+  }
+
+  /**
+   * Open a scope without parallelism bound, stops at the deadline of the current context if any.
+   */
+  public static <T> FanOutScope<T> open(@Nonnull String name) {
+    return new FanOutScope<>(name, Integer.MAX_VALUE, null);
+  }
+
+  /**
+   * Open a scope.
+   *
+   * @param name        thread prefix name of subtasks
+   * @param parallelism max subtasks running at the same time
+   * @param timeout     time to wait in {@link #join()}, capped by the deadline of the current context
+   */
+  public static <T> FanOutScope<T> open(@Nonnull String name, int parallelism, @Nullable Duration timeout) {
+    return new FanOutScope<>(name, parallelism, timeout);
+  }
+
+  /**
+   * Start a subtask in a new virtual thread.
+   */
+  public Subtask<T> fork(@Nonnull Callable<? extends T> callable) {
+    Preconditions.checkNotNull(callable, "callable");
+    ensureOwner();
+    Preconditions.checkState(!this.joined, "scope is already joined");
+    Task task = new Task(callable);
+    this.tasks.add(task);
+    if (this.shutdown) {
+      return task; // a subtask failed, never start new ones
+    }
+    this.pending.incrementAndGet();
+    task.thread = this.factory.newThread(task);
+    task.thread.start();
+    return task;
+  }
+
+  /**
+   * Wait until all subtasks are done, any subtask failed, or the deadline expires.
+   * <p>
+   * On deadline the unfinished subtasks are cancelled, see {@link #isTimedOut()} and {@link #results()}.
+   * The wait is a managed block, a fork join worker waiting here is compensated by its pool.
+   *
+   * @throws ExecutionException   the first failed subtask with its exception as cause, all other subtasks are cancelled
+   * @throws InterruptedException interrupted while waiting, all subtasks are cancelled
+   */
+  public FanOutScope<T> join() throws ExecutionException, InterruptedException {
+    ensureOwner();
+    this.joined = true;
+    try {
+      ManagedBlocking.block(new ForkJoinPool.ManagedBlocker() {
+        @Override
+        public boolean block() throws InterruptedException {
+          awaitDone();
+          return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+          return pending.get() == 0 || failure != null;
+        }
+      });
+    } catch (InterruptedException e) {
+      shutdown();
+      throw e;
+    }
+    if (this.failure != null) {
+      shutdown();
+      throw new ExecutionException(this.failure);
+    }
+    if (this.timedOut) {
+      shutdown();
+    }
+    return this;
+  }
+
+  private void awaitDone() throws InterruptedException {
+    this.lock.lock();
+    try {
+      while (this.pending.get() > 0 && this.failure == null) {
+        if (!this.hasDeadline) {
+          this.changed.await();
+          continue;
+        }
+        long remaining = this.deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+          this.timedOut = true;
+          break;
+        }
+        this.changed.awaitNanos(remaining);
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return {@code true} if the deadline expired in {@link #join()} before all subtasks were done
+   */
+  public boolean isTimedOut() {
+    return this.timedOut;
+  }
+
+  /**
+   * Results of the succeeded subtasks in fork order, call it after {@link #join()}.
+   */
+  public List<T> results() {
+    Preconditions.checkState(this.joined, "scope is not joined yet");
+    List<T> results = new ArrayList<>(this.tasks.size());
+    for (Task task : this.tasks) {
+      if (task.state == Subtask.State.SUCCESS) {
+        results.add(task.result);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Cancel all unfinished subtasks, and wait for their threads to exit.
+   */
+  @Override
+  public void close() {
+    ensureOwner();
+    shutdown();
+    for (Task task : this.tasks) {
+      if (task.thread == null) {
+        continue;
+      }
+      try {
+        task.thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void shutdown() {
+    if (this.shutdown) {
+      return;
+    }
+    this.shutdown = true;
+    for (Task task : this.tasks) {
+      if (task.state == Subtask.State.UNAVAILABLE && task.thread != null) {
+        task.thread.interrupt();
+      }
+    }
+  }
+
+  private void ensureOwner() {
+    Preconditions.checkState(Thread.currentThread() == this.owner, "scope is owned by %s", this.owner);
+  }
+
+  private void onDone(boolean failed) {
+    if (this.pending.decrementAndGet() > 0 && !failed) {
+      return;
+    }
+    this.lock.lock();
+    try {
+      this.changed.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * handle of a forked subtask
+   */
+  public interface Subtask<T> {
+
+    enum State {
+      /**
+       * not finished yet, or cancelled
+       */
+      UNAVAILABLE,
+      /**
+       * completed with a result
+       */
+      SUCCESS,
+      /**
+       * completed with an exception
+       */
+      FAILED,
+    }
+
+    State state();
+
+    /**
+     * @return result of the subtask
+     *
+     * @throws IllegalStateException the subtask is not succeeded
+     */
+    T get();
+
+    /**
+     * @return exception of the subtask
+     *
+     * @throws IllegalStateException the subtask is not failed
+     */
+    Throwable exception();
+
+  }
+
+  private final class Task implements Subtask<T>, Runnable {
+
+    private final    Callable<? extends T> callable;
+    private volatile Thread                thread;
+    private volatile State                 state = State.UNAVAILABLE;
+    private          T                     result;
+    private          Throwable             error;
+
+    private Task(Callable<? extends T> callable) {
+      this.callable = callable;
+    }
+
+    @Override
+    public void run() {
+      boolean acquired = false;
+      boolean failed = false;
+      try {
+        if (permits != null) {
+          permits.acquire();
+          acquired = true;
+        }
+        if (shutdown) {
+          return;
+        }
+        T value = snapshot.call(this.callable);
+        if (!shutdown) {
+          this.result = value;
+          this.state = State.SUCCESS;
+        }
+      } catch (Throwable e) {
+        if (!shutdown) {
+          // the first failure wins, siblings failing by the cancellation are ignored
+          this.error = e;
+          this.state = State.FAILED;
+          failed = true;
+          synchronized (FanOutScope.this) {
+            if (failure == null) {
+              failure = e;
+            }
+          }
+        }
+      } finally {
+        if (acquired) {
+          permits.release();
+        }
+        onDone(failed);
+      }
+    }
+
+    @Override
+    public State state() {
+      return this.state;
+    }
+
+    @Override
+    public T get() {
+      Preconditions.checkState(this.state == State.SUCCESS, "subtask is %s", this.state);
+      return this.result;
+    }
+
+    @Override
+    public Throwable exception() {
+      Preconditions.checkState(this.state == State.FAILED, "subtask is %s", this.state);
+      return this.error;
+    }
+
+  }
+
+}
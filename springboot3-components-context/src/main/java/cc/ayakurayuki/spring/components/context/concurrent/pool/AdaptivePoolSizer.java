@@ -0,0 +1,90 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Tune the core and max size of an {@link Executor} from its measured throughput, run time
+ * and queue wait time, called once per second.
+ * <p>
+ * The base size comes from Little's law, {@code threads = throughput * run time / utilization}.
+ * When tasks wait in the queue longer than the target, the size climbs by a quarter per tick
+ * (at least one thread) on top of that, and it never drops by more than a quarter per tick,
+ * so a short burst doesn't make the pool flap. The max size is twice the core size, giving
+ * {@link TaskQueue} room to spawn threads for bursts between two ticks.
+ *
+ * @author Ayakura Yuki
+ */
+final class AdaptivePoolSizer implements Runnable {
+
+  /**
+   * target busy ratio of the core threads
+   */
+  private static final double TARGET_UTILIZATION = 0.8;
+
+  private final WeakReference<Executor> executorReference;
+  private final int                     minPoolSize;
+  private final int                     maxPoolSize;
+  private final long                    targetWaitNanos;
+
+  private long lastTickNanos;
+  private long lastFinished;
+  private long lastWaitNanos;
+  private long lastRunNanos;
+
+  AdaptivePoolSizer(Executor executor, int minPoolSize, int maxPoolSize, long targetWaitNanos) {
+    this.executorReference = new WeakReference<>(executor);
+    this.minPoolSize = minPoolSize;
+    this.maxPoolSize = maxPoolSize;
+    this.targetWaitNanos = targetWaitNanos;
+    this.lastTickNanos = System.nanoTime();
+  }
+
+  @Override
+  public void run() {
+    Executor executor = this.executorReference.get();
+    if (executor == null) {
+      throw new IllegalArgumentException("Current executor reference is null, cancel the task");
+    }
+    if (executor.isShutdown()) {
+      throw new IllegalArgumentException("Current executor reference is shutdown, cancel the task");
+    }
+
+    long now = System.nanoTime();
+    long finished = executor.getFinishedCount();
+    long waitNanos = executor.getWaitNanos();
+    long runNanos = executor.getRunNanos();
+    long elapsed = now - this.lastTickNanos;
+    long finishedDelta = finished - this.lastFinished;
+    long waitDelta = waitNanos - this.lastWaitNanos;
+    long runDelta = runNanos - this.lastRunNanos;
+    this.lastTickNanos = now;
+    this.lastFinished = finished;
+    this.lastWaitNanos = waitNanos;
+    this.lastRunNanos = runNanos;
+    if (elapsed <= 0) {
+      return;
+    }
+
+    int current = executor.getCorePoolSize();
+    int step = Math.max(1, current / 4);
+    int queued = executor.getQueue().size();
+    int desired;
+    if (finishedDelta == 0) {
+      // nothing finished in this tick, grow if tasks are stuck in the queue, otherwise follow the busy threads
+      desired = queued > 0 ? current + step : executor.getActiveCount();
+    } else {
+      // Little's law: busy threads = arrival rate * run time, run time over elapsed is the same
+      desired = (int) Math.ceil((double) runDelta / elapsed / TARGET_UTILIZATION);
+      if (waitDelta / finishedDelta > this.targetWaitNanos) {
+        desired = Math.max(desired, current + step);
+      }
+    }
+    desired = Math.max(desired, current - step);
+    desired = Math.clamp(desired, this.minPoolSize, this.maxPoolSize);
+    int desiredMax = Math.clamp(desired * 2L, desired, this.maxPoolSize);
+    if (desired != current || desiredMax != executor.getMaximumPoolSize()) {
+      executor.resize(desired, desiredMax);
+    }
+  }
+
+}
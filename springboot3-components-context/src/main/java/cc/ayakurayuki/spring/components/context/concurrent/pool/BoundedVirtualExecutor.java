@@ -0,0 +1,123 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import cc.ayakurayuki.spring.components.stats.stats.WindowPeak;
+import jakarta.annotation.Nonnull;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread per task virtual thread executor with an admission limit.
+ * <p>
+ * At most {@code maxConcurrency} tasks run at the same time, like a semaphore, but the submitter
+ * never blocks: tasks over the limit wait in a queue of at most {@code maxQueued} tasks, and get
+ * rejected with {@link RejectedExecutionException} beyond that. A finishing task starts the next
+ * waiting one in a new virtual thread.
+ *
+ * @author Ayakura Yuki
+ */
+class BoundedVirtualExecutor implements java.util.concurrent.Executor {
+
+  private final String          name;
+  private final ExecutorService delegate;
+  private final int             maxConcurrency;
+  private final int             maxQueued;
+
+  private final AtomicInteger   inFlight   = new AtomicInteger();
+  private final AtomicInteger   queued     = new AtomicInteger();
+  private final Queue<Runnable> waiting    = new ConcurrentLinkedQueue<>();
+  private final WindowPeak      activePeak = new WindowPeak();
+
+  BoundedVirtualExecutor(String name, ExecutorService delegate, int maxConcurrency, int maxQueued) {
+    this.name = name;
+    this.delegate = delegate;
+    this.maxConcurrency = maxConcurrency;
+    this.maxQueued = maxQueued;
+    VirtualThreadPinning.watch(name);
+  }
+
+  @Override
+  public void execute(@Nonnull Runnable command) {
+    TimedTask task = CommandWrapper.wrap(name, command, true);
+    if (tryAcquire()) {
+      start(task);
+      return;
+    }
+    if (queued.incrementAndGet() > maxQueued) {
+      queued.decrementAndGet();
+      ThreadPool.POOL_TASK_REJECTED.inc(name);
+      throw new RejectedExecutionException("Task %s rejected from %s, %d running and %d queued".formatted(command, name, maxConcurrency, maxQueued));
+    }
+    waiting.offer(task);
+    drain(); // a running task may have finished before the task was queued
+  }
+
+  String getName() {
+    return name;
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  int getQueued() {
+    return queued.get();
+  }
+
+  WindowPeak getActivePeak() {
+    return activePeak;
+  }
+
+  private boolean tryAcquire() {
+    for (; ; ) {
+      int current = inFlight.get();
+      if (current >= maxConcurrency) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        activePeak.update(current + 1);
+        return true;
+      }
+    }
+  }
+
+  private void start(Runnable task) {
+    try {
+      delegate.execute(() -> {
+        try {
+          task.run();
+        } finally {
+          inFlight.decrementAndGet();
+          drain();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlight.decrementAndGet();
+      ThreadPool.POOL_TASK_REJECTED.inc(name);
+      throw e;
+    }
+  }
+
+  /**
+   * start waiting tasks while permits are available
+   */
+  private void drain() {
+    while (!waiting.isEmpty() && tryAcquire()) {
+      Runnable task = waiting.poll();
+      if (task == null) {
+        inFlight.decrementAndGet(); // taken by another thread, check again
+        continue;
+      }
+      queued.decrementAndGet();
+      try {
+        start(task);
+      } catch (RejectedExecutionException ignored) {
+        // shutdown, the submitter is gone
+      }
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import jakarta.annotation.Nonnull;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executor draining runs of tiny tasks in batches on one virtual thread, e.g. completing futures
+ * or handing a result over to another stage.
+ * <p>
+ * A virtual thread per task costs a thread start, a mount and a context wrapper, far more than
+ * such a task itself. Here tasks go to one queue, the submitter bringing the queue from empty to
+ * non-empty starts a virtual thread draining it, and the drainer runs up to a batch of tasks
+ * before handing the rest to a fresh virtual thread, so a busy queue doesn't keep one carrier
+ * forever.
+ * <p>
+ * Tasks run in submission order, without the {@link cc.ayakurayuki.spring.components.context.Context}
+ * of the submitter and without timing, they should carry their own context if they need it. A
+ * failed task is logged and doesn't stop the tasks behind it. Do NOT block in the tasks, a
+ * blocked task holds up the whole queue.
+ *
+ * @author Ayakura Yuki
+ */
+@Slf4j
+class CoalescingExecutor implements java.util.concurrent.Executor {
+
+  private final String          name;
+  private final ExecutorService delegate;
+  private final int             batch;
+
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger   count = new AtomicInteger(); // pending tasks, the one bringing it from 0 starts a drainer
+  private final Runnable        drainer = this::drain;
+
+  CoalescingExecutor(String name, ExecutorService delegate, int batch) {
+    this.name = name;
+    this.delegate = delegate;
+    this.batch = batch;
+    VirtualThreadPinning.watch(name);
+  }
+
+  @Override
+  public void execute(@Nonnull Runnable command) {
+    tasks.offer(command);
+    if (count.getAndIncrement() == 0) {
+      schedule();
+    }
+  }
+
+  String getName() {
+    return name;
+  }
+
+  int getPending() {
+    return count.get();
+  }
+
+  private void schedule() {
+    try {
+      delegate.execute(drainer);
+    } catch (RejectedExecutionException e) {
+      // shutdown, drop the queued tasks so the next submitter gets rejected as well
+      int dropped = 0;
+      while (tasks.poll() != null) {
+        dropped++;
+      }
+      count.addAndGet(-dropped);
+      ThreadPool.POOL_TASK_REJECTED.inc(dropped, name);
+      throw e;
+    }
+  }
+
+  private void drain() {
+    for (int i = 1; i <= batch; i++) {
+      Runnable task = tasks.poll();
+      try {
+        task.run();
+      } catch (Throwable e) {
+        log.error("%s task failed".formatted(name), e);
+      }
+      if (count.decrementAndGet() == 0) {
+        ThreadPool.POOL_TASK_COMPLETED.inc(i, name);
+        return;
+      }
+    }
+    ThreadPool.POOL_TASK_COMPLETED.inc(batch, name);
+    // yield the carrier, the rest of the queue goes on in a new virtual thread
+    schedule();
+  }
+
+}
@@ -1,22 +1,42 @@
 package cc.ayakurayuki.spring.components.context.concurrent.pool;
 
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
 import java.util.concurrent.Callable;
 
 /**
- * wrap command with multiple contexts
+ * wrap command with multiple contexts, {@link cc.ayakurayuki.spring.components.context.Context}
+ * and opentelemetry context are captured as one {@link ContextSnapshot}
+ * <p>
+ * A one-shot task keeps the request context reachable until it has run. Periodic tasks only capture
+ * the opentelemetry context, as a schedule started within a request would keep the finished request,
+ * its headers and its cached values for the life of the schedule otherwise.
  *
  * @author Ayakura Yuki
  */
 public class CommandWrapper {
 
   public static Runnable wrap(Runnable command) {
-    command = io.opentelemetry.context.Context.current().wrap(command); // opentelemetry enhancement
-    return command;
+    return ContextSnapshot.capture().wrap(command);
   }
 
   public static <V> Callable<V> wrap(Callable<V> callable) {
-    callable = io.opentelemetry.context.Context.current().wrap(callable); // opentelemetry enhancement
-    return callable;
+    return ContextSnapshot.capture().wrap(callable);
+  }
+
+  /**
+   * wrap periodic command, only the opentelemetry context is captured
+   */
+  public static Runnable wrapPeriodic(Runnable command) {
+    return ContextSnapshot.captureTelemetry().wrap(command);
+  }
+
+  /**
+   * wrap command submitted to the named pool, and record its enqueue time
+   *
+   * @param selfObserved the task observes its own queue wait and run time, for pools without execution hooks
+   */
+  static TimedTask wrap(String name, Runnable command, boolean selfObserved) {
+    return new TimedTask(name, ContextSnapshot.capture(), command, selfObserved);
   }
 
 }
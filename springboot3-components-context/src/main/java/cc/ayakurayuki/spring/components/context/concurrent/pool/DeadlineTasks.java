@@ -0,0 +1,250 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import com.google.common.base.Preconditions;
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Submit tasks with a deadline to any executor of {@link ThreadPools}.
+ * <p>
+ * The deadline is the given timeout from submission, or the deadline of the current
+ * {@link Context} (whichever is earlier). When it expires:
+ * <ul>
+ *   <li>a task still in the queue is dropped, it never starts;</li>
+ *   <li>a running task is interrupted, blocking calls in it throw {@link InterruptedException} and
+ *   loops should check {@link Thread#isInterrupted()};</li>
+ *   <li>the returned future completes with {@link TimeoutException} right away, without waiting
+ *   for the task to stop.</li>
+ * </ul>
+ * Cancelling the returned future stops the task the same way. Timeouts are counted by
+ * {@link ThreadPool#POOL_TASK_TIMEOUT}, with stage {@code queued} or {@code running}.
+ * <pre>{@code
+ * CompletableFuture<Report> report = DeadlineTasks.submit(executor, () -> build(id), Duration.ofSeconds(2));
+ * }</pre>
+ *
+ * @author Ayakura Yuki
+ */
+public final class DeadlineTasks {
+
+  private DeadlineTasks() {
+  }
+
+  /**
+   * Run the task before the deadline of the current context, without deadline it is a plain submit.
+   */
+  public static <T> CompletableFuture<T> submit(@Nonnull java.util.concurrent.Executor executor, @Nonnull Callable<T> task) {
+    return submit(executor, task, Long.MAX_VALUE);
+  }
+
+  /**
+   * Run the task within the timeout, or before the deadline of the current context if it is earlier.
+   */
+  public static <T> CompletableFuture<T> submit(@Nonnull java.util.concurrent.Executor executor, @Nonnull Callable<T> task, @Nonnull Duration timeout) {
+    Preconditions.checkArgument(!timeout.isNegative(), "timeout must not be negative");
+    return submit(executor, task, timeout.toNanos());
+  }
+
+  /**
+   * Run the command before the deadline of the current context, without deadline it is a plain execute.
+   */
+  public static CompletableFuture<Void> execute(@Nonnull java.util.concurrent.Executor executor, @Nonnull Runnable command) {
+    return submit(executor, callable(command), Long.MAX_VALUE);
+  }
+
+  /**
+   * Run the command within the timeout, or before the deadline of the current context if it is earlier.
+   */
+  public static CompletableFuture<Void> execute(@Nonnull java.util.concurrent.Executor executor, @Nonnull Runnable command, @Nonnull Duration timeout) {
+    return submit(executor, callable(command), timeout);
+  }
+
+  private static Callable<Void> callable(Runnable command) {
+    return () -> {
+      command.run();
+      return null;
+    };
+  }
+
+  private static <T> CompletableFuture<T> submit(java.util.concurrent.Executor executor, Callable<T> callable, long timeoutNanos) {
+    ContextSnapshot snapshot = ContextSnapshot.capture();
+    long remaining = Math.min(timeoutNanos, snapshot.getContext().remainingNanos());
+    DeadlineTask<T> task = new DeadlineTask<>(nameOf(executor), snapshot, callable, remaining);
+    if (remaining != Long.MAX_VALUE) {
+      task.timer = Timer.TIMER.schedule(task::expire, Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+    }
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      task.cancelTimer();
+      throw e;
+    }
+    return task.future;
+  }
+
+  private static String nameOf(java.util.concurrent.Executor executor) {
+    if (executor instanceof Executor e) {
+      return e.getName();
+    }
+    if (executor instanceof ForkJoin e) {
+      return e.getName();
+    }
+    if (executor instanceof VirtualExecutor e) {
+      return e.getName();
+    }
+    if (executor instanceof BoundedVirtualExecutor e) {
+      return e.getName();
+    }
+    if (executor instanceof TimingWheelScheduler e) {
+      return e.getName();
+    }
+    if (executor instanceof CoalescingExecutor e) {
+      return e.getName();
+    }
+    return executor.getClass().getSimpleName();
+  }
+
+  /**
+   * shared timer of the deadlines, created on first use
+   */
+  private static final class Timer {
+
+    private static final ScheduledExecutorService TIMER = ThreadPools.newTimingWheelScheduler("Task-deadline-timer");
+
+  }
+
+  /**
+   * a task racing with its deadline, the state decides which side completes the future
+   */
+  private static final class DeadlineTask<T> implements Runnable {
+
+    private static final int NEW          = 0;
+    private static final int RUNNING      = 1;
+    private static final int INTERRUPTING = 2; // the timer is interrupting the runner
+    private static final int DONE         = 3;
+
+    private final String               name;
+    private final ContextSnapshot      snapshot;
+    private final Callable<T>          callable;
+    private final long                 deadlineNanos;
+    private final boolean              hasDeadline;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final AtomicInteger        state  = new AtomicInteger(NEW);
+
+    private volatile Thread             runner;
+    private volatile ScheduledFuture<?> timer;
+
+    private DeadlineTask(String name, ContextSnapshot snapshot, Callable<T> callable, long remainingNanos) {
+      this.name = name;
+      this.snapshot = snapshot;
+      this.callable = callable;
+      this.hasDeadline = remainingNanos != Long.MAX_VALUE;
+      this.deadlineNanos = hasDeadline ? System.nanoTime() + remainingNanos : 0;
+      this.future.whenComplete((r, e) -> {
+        cancelTimer();
+        if (this.future.isCancelled()) {
+          stop(false);
+        }
+      });
+    }
+
+    @Override
+    public void run() {
+      if (hasDeadline && deadlineNanos - System.nanoTime() <= 0) {
+        // dequeued after the deadline, the timer may not have fired yet
+        stop(true);
+        return;
+      }
+      runner = Thread.currentThread();
+      if (!state.compareAndSet(NEW, RUNNING)) {
+        runner = null; // expired or cancelled in the queue
+        return;
+      }
+      T result = null;
+      Throwable failure = null;
+      try {
+        result = snapshot.call(callable);
+      } catch (Throwable e) {
+        failure = e;
+      }
+      if (finish()) {
+        future.completeExceptionally(timeout());
+      } else if (failure != null) {
+        future.completeExceptionally(failure);
+      } else {
+        future.complete(result);
+      }
+    }
+
+    private void expire() {
+      stop(true);
+    }
+
+    /**
+     * Drop the task if queued, interrupt it if running.
+     *
+     * @param timedOut stopped by the deadline rather than cancellation, counted and completes the future
+     */
+    private void stop(boolean timedOut) {
+      if (state.compareAndSet(NEW, DONE)) {
+        if (timedOut) {
+          ThreadPool.POOL_TASK_TIMEOUT.inc(name, "queued");
+          future.completeExceptionally(timeout());
+        }
+        return;
+      }
+      if (state.compareAndSet(RUNNING, INTERRUPTING)) {
+        Thread thread = runner;
+        if (thread != null) {
+          thread.interrupt();
+        }
+        state.set(DONE);
+        if (timedOut) {
+          ThreadPool.POOL_TASK_TIMEOUT.inc(name, "running");
+          future.completeExceptionally(timeout());
+        }
+      }
+    }
+
+    /**
+     * Mark the task done by the runner, clears the interrupt of a timeout so it doesn't leak to the
+     * next task of the thread.
+     *
+     * @return {@code true} if the task was interrupted by its deadline or cancellation
+     */
+    private boolean finish() {
+      boolean stopped = !state.compareAndSet(RUNNING, DONE);
+      if (stopped) {
+        while (state.get() == INTERRUPTING) {
+          Thread.onSpinWait();
+        }
+        Thread.interrupted();
+      }
+      runner = null;
+      return stopped;
+    }
+
+    private void cancelTimer() {
+      ScheduledFuture<?> t = timer;
+      if (t != null) {
+        t.cancel(false);
+      }
+    }
+
+    private TimeoutException timeout() {
+      return new TimeoutException("Task of %s exceeded its deadline".formatted(name));
+    }
+
+  }
+
+}
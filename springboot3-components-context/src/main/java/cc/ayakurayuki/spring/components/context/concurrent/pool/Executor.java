@@ -1,38 +1,70 @@
 package cc.ayakurayuki.spring.components.context.concurrent.pool;
 
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import cc.ayakurayuki.spring.components.stats.stats.WindowPeak;
 import jakarta.annotation.Nonnull;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 class Executor extends ThreadPoolExecutor {
 
   static final RejectedExecutionHandler DEFAULT_HANDLER = new AbortPolicy();
 
+  private final String        name;
   private final AtomicInteger submittedCount = new AtomicInteger(0);
+  private final LongAdder     finishedCount  = new LongAdder(); // tasks finished, for adaptive sizing
+  private final LongAdder     waitNanos      = new LongAdder(); // total queue wait time of started tasks
+  private final LongAdder     runNanos       = new LongAdder(); // total run time of finished tasks
+  private final AtomicInteger running        = new AtomicInteger(0);
+  private final WindowPeak    activePeak     = new WindowPeak(); // peak running tasks within the window
+  private final WindowPeak    waitingPeak    = new WindowPeak(); // peak queued tasks within the window
 
-  public Executor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
-    this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, DEFAULT_HANDLER);
+  private volatile Consumer<? super Runnable> shedCallback; // told about the shed tasks, optional
+
+  public Executor(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+    this(name, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, DEFAULT_HANDLER);
   }
 
-  public Executor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+  public Executor(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
     super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+    this.name = name;
     setRejectedExecutionHandler(handler);
   }
 
   @Override
   public void execute(@Nonnull Runnable command) {
     submittedCount.incrementAndGet();
-    var wrap = CommandWrapper.wrap(command);
+    var wrap = CommandWrapper.wrap(name, command, false);
     super.execute(wrap);
+    waitingPeak.update(getQueue().size());
+  }
+
+  @Override
+  protected void beforeExecute(Thread t, Runnable r) {
+    super.beforeExecute(t, r);
+    activePeak.update(running.incrementAndGet());
+    if (r instanceof TimedTask task) {
+      waitNanos.add(task.start());
+    }
   }
 
   @Override
   protected void afterExecute(Runnable r, Throwable t) {
     super.afterExecute(r, t);
+    running.decrementAndGet();
+    if (r instanceof TimedTask task) {
+      runNanos.add(task.finish());
+    }
+    finishedCount.increment();
     submittedCount.decrementAndGet();
   }
 
@@ -40,20 +72,117 @@ class Executor extends ThreadPoolExecutor {
   public void setRejectedExecutionHandler(@Nonnull RejectedExecutionHandler handler) {
     super.setRejectedExecutionHandler((task, executor) -> {
       BlockingQueue<Runnable> queue = getQueue();
-      if (queue instanceof TaskQueue taskQueue) {
-        if (!taskQueue.force(task)) {
-          submittedCount.decrementAndGet();
-          handler.rejectedExecution(task, executor);
-        }
-      } else {
+      boolean forced = switch (queue) {
+        case TaskQueue taskQueue -> taskQueue.force(task);
+        case MpmcTaskQueue taskQueue -> taskQueue.force(task);
+        default -> false;
+      };
+      if (!forced) {
         submittedCount.decrementAndGet();
+        ThreadPool.POOL_TASK_REJECTED.inc(name);
         handler.rejectedExecution(task, executor);
       }
     });
   }
 
+  /**
+   * Remove the queued task of the command, commands are queued wrapped in a {@link TimedTask}.
+   */
+  @Override
+  public boolean remove(Runnable task) {
+    for (Runnable queued : getQueue()) {
+      if ((queued == task || queued instanceof TimedTask timed && timed.getCommand() == task) && super.remove(queued)) {
+        submittedCount.decrementAndGet();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Remove the queued tasks submitted as a {@link Future} and cancelled since.
+   */
+  @Override
+  public void purge() {
+    for (Runnable queued : getQueue()) {
+      Runnable command = queued instanceof TimedTask timed ? timed.getCommand() : queued;
+      if (command instanceof Future<?> future && future.isCancelled() && super.remove(queued)) {
+        submittedCount.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Drop a task shed by the {@link TaskQueue} for waiting too long, called in the worker thread.
+   * <p>
+   * The task is counted and dropped, a task submitted as a {@link Future} is cancelled to release
+   * whoever waits on it. The rejection handler is not called, it is meant for the submitter, e.g.
+   * {@link CallerRunsPolicy} would run the late task in the worker anyway, and
+   * {@link DiscardOldestPolicy} would drop yet another task of the queue.
+   */
+  void shed(Runnable task) {
+    submittedCount.decrementAndGet();
+    ThreadPool.POOL_TASK_SHED.inc(name);
+    Runnable command = task instanceof TimedTask timed ? timed.getCommand() : task;
+    if (command instanceof Future<?> future) {
+      future.cancel(false);
+    }
+    Consumer<? super Runnable> callback = shedCallback;
+    if (callback != null) {
+      try {
+        callback.accept(command);
+      } catch (RuntimeException e) {
+        log.error("%s shed callback failed".formatted(name), e); // never break the worker dequeuing the task
+      }
+    }
+  }
+
+  /**
+   * @param shedCallback told about every task shed by the {@link TaskQueue} in the worker thread, may be null
+   */
+  void setShedCallback(Consumer<? super Runnable> shedCallback) {
+    this.shedCallback = shedCallback;
+  }
+
+  public String getName() {
+    return name;
+  }
+
   public int getSubmittedCount() {
     return submittedCount.get();
   }
 
+  WindowPeak getActivePeak() {
+    return activePeak;
+  }
+
+  WindowPeak getWaitingPeak() {
+    return waitingPeak;
+  }
+
+  long getFinishedCount() {
+    return finishedCount.sum();
+  }
+
+  long getWaitNanos() {
+    return waitNanos.sum();
+  }
+
+  long getRunNanos() {
+    return runNanos.sum();
+  }
+
+  /**
+   * Resize the pool, the order of updates keeps core size never above max size.
+   */
+  void resize(int corePoolSize, int maximumPoolSize) {
+    if (maximumPoolSize >= getMaximumPoolSize()) {
+      setMaximumPoolSize(maximumPoolSize);
+      setCorePoolSize(corePoolSize);
+    } else {
+      setCorePoolSize(corePoolSize);
+      setMaximumPoolSize(maximumPoolSize);
+    }
+  }
+
 }
@@ -1,20 +1,92 @@
 package cc.ayakurayuki.spring.components.context.concurrent.pool;
 
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import cc.ayakurayuki.spring.components.stats.stats.WindowPeak;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ForkJoin extends ForkJoinPool {
 
+  private final String        name;
+  private final AtomicInteger running     = new AtomicInteger(0);
+  private final AtomicInteger waiting     = new AtomicInteger(0);
+  private final WindowPeak    activePeak  = new WindowPeak(); // peak running tasks within the window
+  private final WindowPeak    waitingPeak = new WindowPeak(); // peak queued tasks within the window
+
   public ForkJoin(int parallelism, ForkJoinWorkerThreadFactory factory) {
-    this(parallelism, factory, null, true);
+    this("ForkJoin", parallelism, factory);
   }
 
   public ForkJoin(int parallelism, ForkJoinWorkerThreadFactory factory, Thread.UncaughtExceptionHandler handler, boolean asyncMode) {
+    this("ForkJoin", parallelism, factory, handler, asyncMode);
+  }
+
+  public ForkJoin(String name, int parallelism, ForkJoinWorkerThreadFactory factory) {
+    this(name, parallelism, factory, null, true);
+  }
+
+  public ForkJoin(String name, int parallelism, ForkJoinWorkerThreadFactory factory, Thread.UncaughtExceptionHandler handler, boolean asyncMode) {
     super(parallelism, factory, handler, asyncMode);
+    this.name = name;
   }
 
+  /**
+   * Run the command in the pool, the peaks only count commands of this method, not the
+   * {@link java.util.concurrent.ForkJoinTask}s forked or submitted directly.
+   */
   @Override
   public void execute(Runnable command) {
-    super.execute(CommandWrapper.wrap(command));
+    Runnable task = new PeakTracked(CommandWrapper.wrap(name, command, true));
+    waitingPeak.update(waiting.incrementAndGet());
+    try {
+      super.execute(task);
+    } catch (RejectedExecutionException e) {
+      waiting.decrementAndGet();
+      ThreadPool.POOL_TASK_REJECTED.inc(name);
+      throw e;
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  int getRunning() {
+    return running.get();
+  }
+
+  int getWaiting() {
+    return waiting.get();
+  }
+
+  WindowPeak getActivePeak() {
+    return activePeak;
+  }
+
+  WindowPeak getWaitingPeak() {
+    return waitingPeak;
+  }
+
+  private final class PeakTracked implements Runnable {
+
+    private final Runnable command;
+
+    private PeakTracked(Runnable command) {
+      this.command = command;
+    }
+
+    @Override
+    public void run() {
+      waiting.decrementAndGet();
+      activePeak.update(running.incrementAndGet());
+      try {
+        command.run();
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+
   }
 
 }
@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.context.concurrent.pool;
 
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.ForkJoinWorkerThread;
@@ -15,7 +16,11 @@ public class ForkJoinThreadFactory implements ForkJoinWorkerThreadFactory {
   }
 
   public final ForkJoinWorkerThread newThread(ForkJoinPool pool) {
-    return new NamedForkJoinWorkerThread(String.format("%s-%d", name, count.incrementAndGet()), pool);
+    if (pool.getPoolSize() > pool.getParallelism()) {
+      // the pool size already counts the new thread, over the parallelism it replaces a blocked worker
+      ThreadPool.POOL_FORK_JOIN_COMPENSATED.inc(name);
+    }
+    return new NamedForkJoinWorkerThread(name, String.format("%s-%d", name, count.incrementAndGet()), pool);
   }
 
 }
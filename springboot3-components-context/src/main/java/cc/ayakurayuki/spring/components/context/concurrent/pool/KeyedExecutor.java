@@ -0,0 +1,240 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import cc.ayakurayuki.spring.components.stats.stats.MonitoredExecutors;
+import com.google.common.base.Preconditions;
+import jakarta.annotation.Nonnull;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executor running the tasks of the same key in submission order, and tasks of different keys in
+ * parallel, e.g. events of one user, one order or one Kafka partition key.
+ * <p>
+ * Every key with pending tasks owns a queue, and the queue itself is the unit of work of an
+ * async-mode {@link ForkJoinPool}: the submitter which brings a queue from empty to non-empty
+ * schedules it, a worker drains it, and idle workers steal whole key queues from busy ones. A
+ * queue yields its worker after a batch of tasks, so a hot key doesn't starve the others. There
+ * is no lock per key, ordering only relies on the pending counter of the queue.
+ * <p>
+ * Tasks run with the {@link cc.ayakurayuki.spring.components.context.Context} of the submitter,
+ * like {@link CommandWrapper}, and a failed task doesn't stop the tasks behind it.
+ * <p>
+ * After {@link #shutdown()} new tasks are rejected, and the tasks accepted before still run. A
+ * queue that can't be scheduled is dropped as a whole: the submitter gets the
+ * {@link RejectedExecutionException}, the futures of {@link #submit(Object, Callable)} queued
+ * behind it fail with it, and other dropped tasks are logged.
+ * <pre>{@code
+ * KeyedExecutor executor = KeyedExecutor.create("order-events", 8);
+ * executor.execute(orderId, () -> apply(event));
+ * }</pre>
+ *
+ * @author Ayakura Yuki
+ */
+@Slf4j
+public final class KeyedExecutor {
+
+  /**
+   * max tasks of a key run in one turn before the worker moves to other keys
+   */
+  private static final int BATCH = 16;
+
+  private final String                          name;
+  private final ForkJoinPool                    pool;
+  private final ConcurrentMap<Object, KeyQueue> queues  = new ConcurrentHashMap<>();
+  private final AtomicLong                      pending = new AtomicLong();
+
+  private KeyedExecutor(String name, int parallelism) {
+    this.name = name;
+    this.pool = new ForkJoinPool(parallelism, new ForkJoinThreadFactory(name), null, true);
+  }
+
+  /**
+   * Create a keyed executor.
+   *
+   * @param name        thread prefix name, and metric label
+   * @param parallelism worker threads
+   */
+  public static KeyedExecutor create(@Nonnull String name, int parallelism) {
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+    KeyedExecutor executor = new KeyedExecutor(name, parallelism);
+    MonitoredExecutors.monitor(name, executor)
+        .gauge(ThreadPool.POOL_STATE_ACTIVE, e -> e.pool.getActiveThreadCount())
+        .gauge(ThreadPool.POOL_STATE_TASK_WAITING, KeyedExecutor::getPendingTasks)
+        .gauge(ThreadPool.POOL_SIZE_CURRENT, e -> e.pool.getPoolSize());
+    return executor;
+  }
+
+  /**
+   * Run the command after all the tasks submitted before with the same key.
+   *
+   * @throws RejectedExecutionException the executor is shut down
+   */
+  public void execute(@Nonnull Object key, @Nonnull Runnable command) {
+    Preconditions.checkNotNull(key, "key");
+    if (pool.isShutdown()) {
+      ThreadPool.POOL_TASK_REJECTED.inc(name);
+      throw new RejectedExecutionException("%s is shut down".formatted(name));
+    }
+    TimedTask task = CommandWrapper.wrap(name, command, true);
+    boolean[] first = new boolean[1];
+    pending.incrementAndGet();
+    // the queue leaves the map only when empty, inside compute, so a key never has two queues
+    KeyQueue queue = queues.compute(key, (k, q) -> {
+      if (q == null) {
+        q = new KeyQueue(k);
+      }
+      q.tasks.offer(task);
+      first[0] = q.count.getAndIncrement() == 0;
+      return q;
+    });
+    if (first[0]) {
+      try {
+        pool.execute(queue);
+      } catch (RejectedExecutionException e) {
+        ThreadPool.POOL_TASK_REJECTED.inc(name);
+        drop(queue, task, e);
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Call the callable after all the tasks submitted before with the same key.
+   */
+  public <T> CompletableFuture<T> submit(@Nonnull Object key, @Nonnull Callable<T> callable) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    execute(key, new Call<>(future, callable));
+    return future;
+  }
+
+  /**
+   * @return an executor running every command with the key
+   */
+  public java.util.concurrent.Executor forKey(@Nonnull Object key) {
+    return command -> execute(key, command);
+  }
+
+  /**
+   * @return keys with pending tasks
+   */
+  public int getPendingKeys() {
+    return queues.size();
+  }
+
+  /**
+   * @return tasks submitted but not finished yet
+   */
+  public long getPendingTasks() {
+    return pending.get();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return pool.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * drop the queue which couldn't be scheduled, with all the tasks that joined it meanwhile
+   *
+   * @param submitted task of the submitter getting the exception
+   */
+  private void drop(KeyQueue queue, Runnable submitted, RejectedExecutionException e) {
+    queues.remove(queue.key, queue); // atomic with compute, no task joins the queue after it
+    Runnable task;
+    while ((task = queue.tasks.poll()) != null) {
+      queue.count.decrementAndGet();
+      pending.decrementAndGet();
+      if (task == submitted) {
+        continue;
+      }
+      ThreadPool.POOL_TASK_REJECTED.inc(name);
+      if (task instanceof TimedTask timed && timed.getCommand() instanceof Call<?> call) {
+        call.future.completeExceptionally(e);
+      } else {
+        log.error("%s task of key %s dropped, the executor is shut down".formatted(name, queue.key), e);
+      }
+    }
+  }
+
+  /**
+   * pending tasks of a key, scheduled to the pool as one task while not empty
+   */
+  private final class KeyQueue implements Runnable {
+
+    private final Object          key;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger   count = new AtomicInteger(); // pending tasks, the one bringing it from 0 schedules the queue
+
+    private KeyQueue(Object key) {
+      this.key = key;
+    }
+
+    @Override
+    public void run() {
+      for (int i = 1; ; i++) {
+        Runnable task = tasks.poll();
+        try {
+          task.run();
+        } catch (Throwable e) {
+          log.error("%s task of key %s failed".formatted(name, key), e);
+        } finally {
+          pending.decrementAndGet();
+        }
+        if (count.decrementAndGet() == 0) {
+          // drained, drop the queue unless a task came in meanwhile, which schedules it again
+          queues.computeIfPresent(key, (k, q) -> q == this && q.count.get() == 0 ? null : q);
+          return;
+        }
+        if (i % BATCH == 0 && yieldWorker()) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * yield the worker to other keys, the queue goes to the local deque and may be stolen, once the
+     * pool is shut down the queue keeps its worker and runs its accepted tasks to the end
+     */
+    private boolean yieldWorker() {
+      try {
+        pool.execute(this);
+        return true;
+      } catch (RejectedExecutionException e) {
+        return false;
+      }
+    }
+
+  }
+
+  private record Call<T>(CompletableFuture<T> future, Callable<T> callable) implements Runnable {
+
+    @Override
+    public void run() {
+      try {
+        future.complete(callable.call());
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+  }
+
+}
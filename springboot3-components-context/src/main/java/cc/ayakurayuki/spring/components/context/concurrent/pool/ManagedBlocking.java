@@ -0,0 +1,212 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import jakarta.annotation.Nonnull;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Run blocking sections as {@link ManagedBlocker managed blocks}, e.g. a blocking RPC stub call, a
+ * {@link Future#get()} or a lock wait.
+ * <p>
+ * A fork join pool sized to the cpus keeps its parallelism this way: while a worker is blocked in
+ * a managed block, the pool activates or creates a compensation thread, and the extra thread
+ * retires once the block is over. Without it, the pool either has to be sized for the worst case
+ * up front, or starves when its workers block on I/O. Outside a fork join worker, e.g. on a
+ * virtual thread, the section simply runs.
+ * <p>
+ * {@link CompletableFuture#join()} and {@link CompletableFuture#get()} are managed by the JDK
+ * already, don't wrap them into another section, or the pool compensates twice.
+ * <pre>{@code
+ * Reply reply = ManagedBlocking.supply(() -> blockingStub.query(request));
+ * }</pre>
+ * Managed blocks are counted by {@link ThreadPool#POOL_TASK_MANAGED_BLOCK}, and compensation threads
+ * by {@link ThreadPool#POOL_FORK_JOIN_COMPENSATED}.
+ *
+ * @author Ayakura Yuki
+ */
+public final class ManagedBlocking {
+
+  private ManagedBlocking() {
+  }
+
+  /**
+   * Run the blocking section as a managed block.
+   */
+  public static void run(@Nonnull Runnable section) {
+    supply(() -> {
+      section.run();
+      return null;
+    });
+  }
+
+  /**
+   * Call the blocking section as a managed block, unchecked exceptions of the section are thrown as is.
+   */
+  public static <T> T supply(@Nonnull Supplier<T> section) {
+    if (!(Thread.currentThread() instanceof ForkJoinWorkerThread worker)) {
+      return section.get();
+    }
+    Section<T> blocker = managed(worker, section::get);
+    if (blocker.failure instanceof RuntimeException e) {
+      throw e;
+    }
+    if (blocker.failure instanceof Error e) {
+      throw e;
+    }
+    return blocker.result;
+  }
+
+  /**
+   * Call the blocking section as a managed block.
+   */
+  public static <T> T call(@Nonnull Callable<T> section) throws Exception {
+    if (!(Thread.currentThread() instanceof ForkJoinWorkerThread worker)) {
+      return section.call();
+    }
+    Section<T> blocker = managed(worker, section);
+    if (blocker.failure instanceof Exception e) {
+      throw e;
+    }
+    if (blocker.failure instanceof Error e) {
+      throw e;
+    }
+    return blocker.result;
+  }
+
+  /**
+   * Wait for the future as a managed block.
+   */
+  public static <T> T get(@Nonnull Future<T> future) throws InterruptedException, ExecutionException {
+    if (!future.isDone() && !(future instanceof CompletableFuture<?>)) {
+      block(new FutureBlocker(future, false, 0));
+    }
+    return future.get();
+  }
+
+  /**
+   * Wait for the future as a managed block, at most the timeout.
+   */
+  public static <T> T get(@Nonnull Future<T> future, long timeout, @Nonnull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    if (!future.isDone() && !(future instanceof CompletableFuture<?>)) {
+      block(new FutureBlocker(future, true, System.nanoTime() + unit.toNanos(timeout)));
+      if (!future.isDone()) {
+        throw new TimeoutException();
+      }
+    }
+    return future.get(timeout, unit);
+  }
+
+  /**
+   * Join the future, it is managed by the JDK already and only counted here.
+   */
+  public static <T> T join(@Nonnull CompletableFuture<T> future) {
+    if (!future.isDone() && Thread.currentThread() instanceof ForkJoinWorkerThread worker) {
+      count(worker);
+    }
+    return future.join();
+  }
+
+  /**
+   * Run the blocker as a managed block, see {@link ForkJoinPool#managedBlock(ManagedBlocker)}.
+   */
+  public static void block(@Nonnull ManagedBlocker blocker) throws InterruptedException {
+    if (!blocker.isReleasable() && Thread.currentThread() instanceof ForkJoinWorkerThread worker) {
+      count(worker);
+    }
+    ForkJoinPool.managedBlock(blocker);
+  }
+
+  private static <T> Section<T> managed(ForkJoinWorkerThread worker, Callable<T> section) {
+    Section<T> blocker = new Section<>(section);
+    count(worker);
+    try {
+      ForkJoinPool.managedBlock(blocker);
+    } catch (InterruptedException e) {
+      // the section never throws it, keep the flag for the caller
+      Thread.currentThread().interrupt();
+    }
+    return blocker;
+  }
+
+  private static void count(ForkJoinWorkerThread worker) {
+    String name;
+    if (worker instanceof NamedForkJoinWorkerThread named) {
+      name = named.getPoolName();
+    } else if (worker.getPool() instanceof ForkJoin forkJoin) {
+      name = forkJoin.getName();
+    } else {
+      name = "ForkJoinPool";
+    }
+    ThreadPool.POOL_TASK_MANAGED_BLOCK.inc(name);
+  }
+
+  /**
+   * a blocking section, runs once in {@link #block()}
+   */
+  private static final class Section<T> implements ManagedBlocker {
+
+    private final    Callable<T> section;
+    private          T           result;
+    private          Throwable   failure;
+    private volatile boolean     done;
+
+    private Section(Callable<T> section) {
+      this.section = section;
+    }
+
+    @Override
+    public boolean block() {
+      try {
+        result = section.call();
+      } catch (Throwable e) {
+        failure = e;
+      } finally {
+        done = true;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return done;
+    }
+
+  }
+
+  /**
+   * waits until the future is done or the deadline expires, the outcome is read by the caller
+   */
+  private record FutureBlocker(Future<?> future, boolean timed, long deadlineNanos) implements ManagedBlocker {
+
+    @Override
+    public boolean block() throws InterruptedException {
+      try {
+        if (!timed) {
+          future.get();
+        } else {
+          future.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+      } catch (ExecutionException | CancellationException | TimeoutException ignored) {
+        // read by the caller
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return future.isDone() || (timed && deadlineNanos - System.nanoTime() <= 0);
+    }
+
+  }
+
+}
@@ -0,0 +1,360 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import com.google.common.base.Preconditions;
+import jakarta.annotation.Nonnull;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer array queue (Vyukov's algorithm), for thread
+ * pools with many submitting threads.
+ * <p>
+ * Every slot carries a sequence number telling whether it is ready to be written or read for the
+ * current lap, so producers and consumers only race on a CAS of the tail or head index, never on
+ * a lock. Blocking operations park the waiting thread, and the other side unparks one waiter after
+ * each successful offer or poll.
+ * <p>
+ * The capacity is rounded up to a power of two. Removing an element from the middle, e.g. by
+ * {@link java.util.concurrent.ThreadPoolExecutor#remove(Runnable)} or
+ * {@link java.util.concurrent.ThreadPoolExecutor#purge()}, marks its slot removed, and the slot is
+ * skipped and freed when it reaches the head, so it holds its capacity until then. The iterator is
+ * a weakly consistent snapshot, its {@link Iterator#remove()} removes the very slot it returned.
+ *
+ * @param <E> element type
+ *
+ * @author Ayakura Yuki
+ */
+public class MpmcArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  private static final Object REMOVED = new Object(); // marks a slot removed from the middle
+
+  private final int                          capacity;
+  private final int                          mask;
+  private final AtomicReferenceArray<Object> buffer;
+  private final AtomicLongArray              sequences;
+  private final AtomicLong                   head    = new AtomicLong(); // next position to poll
+  private final AtomicLong                   tail    = new AtomicLong(); // next position to offer
+  private final AtomicLong                   removed = new AtomicLong(); // removed slots not polled yet
+
+  private final ConcurrentLinkedQueue<Thread> consumers = new ConcurrentLinkedQueue<>(); // parked in take/poll
+  private final ConcurrentLinkedQueue<Thread> producers = new ConcurrentLinkedQueue<>(); // parked in put/offer
+
+  public MpmcArrayBlockingQueue(int capacity) {
+    Preconditions.checkArgument(capacity > 0 && capacity <= 1 << 30, "capacity must be in (0, 2^30]");
+    this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = this.capacity - 1;
+    this.buffer = new AtomicReferenceArray<>(this.capacity);
+    this.sequences = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      this.sequences.set(i, i);
+    }
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public boolean offer(@Nonnull E e) {
+    Preconditions.checkNotNull(e);
+    long position = tail.get();
+    for (; ; ) {
+      int index = (int) (position & mask);
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          buffer.set(index, e);
+          sequences.set(index, position + 1); // publish to consumers
+          signal(consumers);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false; // the slot is not consumed since last lap, full
+      } else {
+        position = tail.get(); // another producer took the slot
+      }
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    long position = head.get();
+    for (; ; ) {
+      int index = (int) (position & mask);
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          Object e = buffer.getAndSet(index, null); // atomic against a concurrent remove of the slot
+          sequences.set(index, position + mask + 1); // free the slot for the next lap
+          signal(producers);
+          if (e != REMOVED) {
+            return (E) e;
+          }
+          removed.decrementAndGet();
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        return null; // the slot is not published yet, empty
+      } else {
+        position = head.get(); // another consumer took the slot
+      }
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E peek() {
+    retry:
+    for (; ; ) {
+      long h = head.get();
+      for (long position = h; ; position++) {
+        int index = (int) (position & mask);
+        if (sequences.get(index) - (position + 1) < 0) {
+          if (head.get() != h) {
+            continue retry;
+          }
+          return null; // not published yet, no element after the removed ones
+        }
+        Object e = buffer.get(index);
+        if (head.get() != h) {
+          continue retry;
+        }
+        if (e != REMOVED && e != null) {
+          return (E) e;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void put(@Nonnull E e) throws InterruptedException {
+    while (!offer(e)) {
+      await(producers, () -> remainingCapacity() > 0, 0);
+    }
+  }
+
+  @Override
+  public boolean offer(E e, long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!offer(e)) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      await(producers, () -> remainingCapacity() > 0, remaining);
+    }
+    return true;
+  }
+
+  @Nonnull
+  @Override
+  public E take() throws InterruptedException {
+    E e;
+    while ((e = poll()) == null) {
+      await(consumers, () -> !isEmpty(), 0);
+    }
+    return e;
+  }
+
+  @Override
+  public E poll(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    E e;
+    while ((e = poll()) == null) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return null;
+      }
+      await(consumers, () -> !isEmpty(), remaining);
+    }
+    return e;
+  }
+
+  @Override
+  public int size() {
+    return Math.clamp(occupied() - removed.get(), 0, capacity);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * @return free slots, a removed slot is only free again after it reached the head
+   */
+  @Override
+  public int remainingCapacity() {
+    return capacity - occupied();
+  }
+
+  /**
+   * Remove one element equal to the given one, its slot is freed when it reaches the head.
+   */
+  @Override
+  public boolean remove(Object o) {
+    if (o == null) {
+      return false;
+    }
+    long t = tail.get();
+    for (long position = head.get(); position < t; position++) {
+      Object e = buffer.get((int) (position & mask));
+      if (e != null && e != REMOVED && o.equals(e) && removeAt(position, e)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int drainTo(@Nonnull Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(@Nonnull Collection<? super E> c, int maxElements) {
+    Preconditions.checkArgument(c != this, "drain to self");
+    int count = 0;
+    E e;
+    while (count < maxElements && (e = poll()) != null) {
+      c.add(e);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * weakly consistent snapshot of the elements, removing by the iterator removes the slot of the
+   * returned element if it is still queued
+   */
+  @Nonnull
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterator<E> iterator() {
+    List<E> elements = new ArrayList<>(size());
+    List<Long> positions = new ArrayList<>(size());
+    long t = tail.get();
+    for (long position = head.get(); position < t; position++) {
+      Object e = buffer.get((int) (position & mask));
+      if (e != null && e != REMOVED) {
+        elements.add((E) e);
+        positions.add(position);
+      }
+    }
+    return new SnapshotIterator(elements, positions);
+  }
+
+  private int occupied() {
+    for (; ; ) {
+      long h = head.get();
+      long t = tail.get();
+      if (h == head.get()) {
+        return Math.clamp(t - h, 0, capacity);
+      }
+    }
+  }
+
+  /**
+   * mark the slot of the position removed if it still holds the element, by identity
+   */
+  private boolean removeAt(long position, Object e) {
+    int index = (int) (position & mask);
+    if (sequences.get(index) != position + 1) {
+      return false; // polled, or not published yet
+    }
+    if (!buffer.compareAndSet(index, e, REMOVED)) {
+      return false;
+    }
+    removed.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Park the current thread as a waiter until signaled, the condition is checked again after
+   * registering, so a signal between the failed attempt and parking is never missed.
+   *
+   * @param nanos max time to park, 0 for no timeout
+   */
+  private void await(ConcurrentLinkedQueue<Thread> waiters, BooleanSupplier ready, long nanos) throws InterruptedException {
+    Thread current = Thread.currentThread();
+    waiters.add(current);
+    boolean parked = false;
+    if (!ready.getAsBoolean()) {
+      parked = true;
+      if (nanos > 0) {
+        LockSupport.parkNanos(this, nanos);
+      } else {
+        LockSupport.park(this);
+      }
+    }
+    if (!waiters.remove(current) && !parked) {
+      // signaled while about to retry without parking, the signal may be for another element, pass it on
+      signal(waiters);
+    }
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+  }
+
+  private static void signal(ConcurrentLinkedQueue<Thread> waiters) {
+    if (waiters.isEmpty()) {
+      return;
+    }
+    Thread waiter = waiters.poll();
+    if (waiter != null) {
+      LockSupport.unpark(waiter);
+    }
+  }
+
+  private final class SnapshotIterator implements Iterator<E> {
+
+    private final List<E>    elements;
+    private final List<Long> positions;
+    private       int        next;
+    private       int        last = -1;
+
+    private SnapshotIterator(List<E> elements, List<Long> positions) {
+      this.elements = elements;
+      this.positions = positions;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < elements.size();
+    }
+
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      last = next++;
+      return elements.get(last);
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) {
+        throw new IllegalStateException();
+      }
+      removeAt(positions.get(last), elements.get(last));
+      last = -1;
+    }
+
+  }
+
+}
@@ -0,0 +1,36 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * The {@link TaskQueue} of scalable thread pools over a bounded lock-free
+ * {@link MpmcArrayBlockingQueue}: threads are spawned up to the max pool size before tasks are
+ * queued, and tasks are rejected once the queue is full.
+ *
+ * @author Ayakura Yuki
+ */
+class MpmcTaskQueue extends MpmcArrayBlockingQueue<Runnable> {
+
+  private volatile Executor parent = null;
+
+  public MpmcTaskQueue(int capacity) {
+    super(capacity);
+  }
+
+  public void setParent(Executor parent) {
+    this.parent = parent;
+  }
+
+  public boolean force(Runnable o) {
+    if (parent == null || parent.isShutdown()) {
+      return false;
+    }
+    return super.offer(o); // forces the item onto the queue, to be used if the task is rejected
+  }
+
+  @Override
+  public boolean offer(@Nonnull Runnable o) {
+    return !TaskQueue.spawnThread(parent) && super.offer(o);
+  }
+
+}
@@ -5,10 +5,21 @@ import java.util.concurrent.ForkJoinWorkerThread;
 
 public class NamedForkJoinWorkerThread extends ForkJoinWorkerThread {
 
+  private final String poolName;
+
   protected NamedForkJoinWorkerThread(String name, ForkJoinPool pool) {
+    this(name, name, pool);
+  }
+
+  protected NamedForkJoinWorkerThread(String poolName, String name, ForkJoinPool pool) {
     super(pool);
     super.setName(name);
     super.setContextClassLoader(ClassLoader.getSystemClassLoader());
+    this.poolName = poolName;
+  }
+
+  public String getPoolName() {
+    return poolName;
   }
 
 }
@@ -0,0 +1,244 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.env.Environment;
+import cc.ayakurayuki.spring.components.env.Environments;
+import cc.ayakurayuki.spring.components.env.Key;
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Default pool sizes from the resources the process may really use, rather than the cores of the
+ * host.
+ * <p>
+ * The CPU limit comes from the cgroup quota ({@code cpu.max} of cgroup v2, or
+ * {@code cpu.cfs_quota_us / cpu.cfs_period_us} of cgroup v1), never above
+ * {@link Runtime#availableProcessors()}. The memory limit ({@code memory.max} or
+ * {@code memory.limit_in_bytes}) caps the platform threads, so their stacks fit in half of the
+ * memory left outside the heap.
+ * <p>
+ * The blocking coefficient (share of run time a task spends waiting) of {@link #parallelism()} is
+ * 0.9, or environment {@code thread_pool_blocking_coefficient}. It is not measured, pools that
+ * should follow their real load use {@link ThreadPools#newAdaptiveThreadPool(String, int, int)},
+ * which sizes itself from the run time of its own tasks.
+ * <p>
+ * Detected resources are reported by {@link ThreadPool#POOL_SIZING_RESOURCE}, and the sizes chosen
+ * from them by {@link ThreadPool#POOL_SIZING_DEFAULT}.
+ *
+ * @author Ayakura Yuki
+ */
+@Slf4j
+public final class PoolSizing {
+
+  private static final Path CGROUP_ROOT = Path.of("/sys/fs/cgroup");
+
+  /**
+   * default platform thread stack size, {@code -Xss1m}
+   */
+  private static final long THREAD_STACK_BYTES = 1 << 20;
+
+  private static final double DEFAULT_BLOCKING_COEFFICIENT = 0.9;
+
+  /**
+   * max blocking coefficient, no more than 20 threads per cpu
+   */
+  private static final double MAX_BLOCKING_COEFFICIENT = 0.95;
+
+  private static final Key<Double> BLOCKING_COEFFICIENT = Environment.key("thread_pool_blocking_coefficient", Environments.DOUBLE_MARSHALLER);
+
+  private static final double CONFIGURED_BLOCKING_COEFFICIENT = Math.clamp(Environment.ofNullable(BLOCKING_COEFFICIENT).orElse(DEFAULT_BLOCKING_COEFFICIENT), 0, MAX_BLOCKING_COEFFICIENT);
+
+  private static final double CPU_LIMIT;
+  private static final int    CPUS;
+  private static final long   MEMORY_LIMIT;
+  private static final int    MAX_THREADS;
+
+  static {
+    int processors = Runtime.getRuntime().availableProcessors();
+    double quota = readCpuQuota();
+    CPU_LIMIT = quota > 0 ? Math.min(quota, processors) : processors;
+    CPUS = Math.max(1, (int) Math.ceil(CPU_LIMIT));
+    MEMORY_LIMIT = readMemoryLimit();
+    if (MEMORY_LIMIT > 0) {
+      long offHeap = MEMORY_LIMIT - Runtime.getRuntime().maxMemory();
+      long stacks = (offHeap > 0 ? offHeap : MEMORY_LIMIT / 4) / 2;
+      MAX_THREADS = (int) Math.clamp(stacks / THREAD_STACK_BYTES, CPUS * 2L, Integer.MAX_VALUE);
+    } else {
+      MAX_THREADS = Integer.MAX_VALUE;
+    }
+    log.info("pool sizing: cpu limit %.2f, memory limit %d, max threads %d".formatted(CPU_LIMIT, MEMORY_LIMIT, MAX_THREADS));
+
+    ThreadPool.POOL_SIZING_RESOURCE.set(CPU_LIMIT, "cpu_limit");
+    ThreadPool.POOL_SIZING_RESOURCE.set(CPUS, "cpus");
+    ThreadPool.POOL_SIZING_RESOURCE.set(MEMORY_LIMIT, "memory_limit_bytes");
+    ThreadPool.POOL_SIZING_RESOURCE.set(MAX_THREADS, "max_threads");
+    ThreadPool.POOL_SIZING_RESOURCE.set(CONFIGURED_BLOCKING_COEFFICIENT, "blocking_coefficient");
+  }
+
+  private PoolSizing() {
+  }
+
+  /**
+   * @return cpus the process may use, may be fractional under a cgroup quota
+   */
+  public static double cpuLimit() {
+    return CPU_LIMIT;
+  }
+
+  /**
+   * @return cpu limit rounded up, at least 1
+   */
+  public static int cpus() {
+    return CPUS;
+  }
+
+  /**
+   * @return memory limit of the cgroup in bytes, -1 if unlimited or unknown
+   */
+  public static long memoryLimit() {
+    return MEMORY_LIMIT;
+  }
+
+  /**
+   * @return max platform threads whose stacks fit in the memory limit
+   */
+  public static int maxThreads() {
+    return MAX_THREADS;
+  }
+
+  /**
+   * @return configured blocking coefficient, 0.9 as default
+   */
+  public static double blockingCoefficient() {
+    return CONFIGURED_BLOCKING_COEFFICIENT;
+  }
+
+  /**
+   * @return threads keeping the cpus busy with the blocking coefficient, {@code cpus / (1 - blockingCoefficient)}
+   */
+  public static int parallelism() {
+    return (int) Math.min(Math.ceil(CPUS / (1 - blockingCoefficient())), MAX_THREADS);
+  }
+
+  /**
+   * @return {@code threadsPerCpu} threads for each cpu, within {@link #maxThreads()}
+   */
+  public static int threads(int threadsPerCpu) {
+    return (int) Math.clamp((long) CPUS * threadsPerCpu, 1, MAX_THREADS);
+  }
+
+  /**
+   * Report the size chosen for a pool.
+   *
+   * @return the size
+   */
+  public static int report(String name, int size) {
+    ThreadPool.POOL_SIZING_DEFAULT.set(size, name);
+    return size;
+  }
+
+  /**
+   * @return cpus of the cgroup quota, -1 if unlimited or unknown
+   */
+  private static double readCpuQuota() {
+    // cgroup v2: "$MAX $PERIOD", $MAX is "max" for no limit
+    String max = readCgroupFile("", "cpu.max");
+    if (max != null) {
+      String[] parts = max.split("\\s+");
+      if (parts.length == 2 && !"max".equals(parts[0])) {
+        return ratio(parts[0], parts[1]);
+      }
+      return -1;
+    }
+    // cgroup v1: quota is -1 for no limit
+    for (String controller : List.of("cpu,cpuacct", "cpuacct,cpu", "cpu")) {
+      String quota = readCgroupFile(controller, "cpu.cfs_quota_us");
+      String period = readCgroupFile(controller, "cpu.cfs_period_us");
+      if (quota != null && period != null) {
+        return ratio(quota, period);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return bytes of the cgroup memory limit, -1 if unlimited or unknown
+   */
+  private static long readMemoryLimit() {
+    String limit = readCgroupFile("", "memory.max");
+    if (limit == null) {
+      limit = readCgroupFile("memory", "memory.limit_in_bytes");
+    }
+    if (limit == null || "max".equals(limit)) {
+      return -1;
+    }
+    try {
+      long bytes = Long.parseLong(limit);
+      // cgroup v1 reports no limit as a huge page-aligned number
+      return bytes > 0 && bytes < Long.MAX_VALUE >> 2 ? bytes : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static double ratio(String quota, String period) {
+    try {
+      double q = Double.parseDouble(quota);
+      double p = Double.parseDouble(period);
+      return q > 0 && p > 0 ? q / p : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Read a file of the cgroup of this process, from the path in {@code /proc/self/cgroup} first,
+   * then the root, which is the cgroup itself inside a container with its own cgroup namespace.
+   *
+   * @param controller cgroup v1 controller, empty for cgroup v2
+   */
+  private static String readCgroupFile(String controller, String file) {
+    Path mount = controller.isEmpty() ? CGROUP_ROOT : CGROUP_ROOT.resolve(controller);
+    String path = cgroupPath(controller);
+    if (path != null && !path.isEmpty() && !"/".equals(path)) {
+      String value = read(mount.resolve(path.substring(1)).resolve(file));
+      if (value != null) {
+        return value;
+      }
+    }
+    return read(mount.resolve(file));
+  }
+
+  /**
+   * @return path of the controller in {@code /proc/self/cgroup}, lines of cgroup v2 look like
+   * {@code 0::/path} and lines of cgroup v1 look like {@code 4:cpu,cpuacct:/path}
+   */
+  private static String cgroupPath(String controller) {
+    String content = read(Path.of("/proc/self/cgroup"));
+    if (content == null) {
+      return null;
+    }
+    for (String line : content.split("\n")) {
+      String[] parts = line.split(":", 3);
+      if (parts.length == 3 && (controller.isEmpty() ? "0".equals(parts[0]) && parts[1].isEmpty() : List.of(parts[1].split(",")).containsAll(List.of(controller.split(","))))) {
+        return parts[2];
+      }
+    }
+    return null;
+  }
+
+  private static String read(Path path) {
+    if (!Files.isReadable(path)) {
+      return null;
+    }
+    try {
+      return Files.readString(path).trim();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+}
@@ -38,13 +38,13 @@ class ScheduledExecutor extends ScheduledThreadPoolExecutor {
   @Nonnull
   @Override
   public ScheduledFuture<?> scheduleAtFixedRate(@Nonnull Runnable command, long initialDelay, long period, @Nonnull TimeUnit unit) {
-    return super.scheduleAtFixedRate(CommandWrapper.wrap(command), initialDelay, period, unit);
+    return super.scheduleAtFixedRate(CommandWrapper.wrapPeriodic(command), initialDelay, period, unit);
   }
 
   @Nonnull
   @Override
   public ScheduledFuture<?> scheduleWithFixedDelay(@Nonnull Runnable command, long initialDelay, long delay, @Nonnull TimeUnit unit) {
-    return super.scheduleWithFixedDelay(CommandWrapper.wrap(command), initialDelay, delay, unit);
+    return super.scheduleWithFixedDelay(CommandWrapper.wrapPeriodic(command), initialDelay, delay, unit);
   }
 
 }
@@ -2,7 +2,8 @@ package cc.ayakurayuki.spring.components.context.concurrent.pool;
 
 import jakarta.annotation.Nonnull;
 import java.io.Serial;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 /**
  * As task queue specifically designed to run with a thread pool executor. The
@@ -10,16 +11,46 @@ import java.util.concurrent.LinkedBlockingQueue;
  * executor. If you use a normal queue, the executor will spawn threads when
  * there are idle threads, and you won't be able to force items onto the queue
  * itself.
+ * <p>
+ * Optionally the queue sheds tasks by their sojourn time (time spent in the queue), in the
+ * CoDel style: when the queue has not been empty for a whole {@code interval}, it is overloaded
+ * and tasks waiting longer than {@code target} are dropped at dequeue, otherwise tasks waiting
+ * longer than {@code interval} are dropped. With adaptive LIFO, an overloaded queue serves the
+ * newest task first, so fresh requests still meet their callers while the backlog is shed.
+ * Dropped tasks are counted and cancelled by the executor, see {@link Executor#shed(Runnable)}.
  */
-class TaskQueue extends LinkedBlockingQueue<Runnable> {
+class TaskQueue extends LinkedBlockingDeque<Runnable> {
 
   @Serial
   private static final long serialVersionUID = -1930693771858182898L;
 
-  private transient volatile Executor parent = null;
+  private final long    targetNanos;
+  private final long    intervalNanos;
+  private final boolean shedding;
+  private final boolean adaptiveLifo;
+
+  private transient volatile Executor parent         = null;
+  private transient volatile long     lastEmptyNanos = System.nanoTime();
 
   public TaskQueue() {
     super();
+    this.targetNanos = 0;
+    this.intervalNanos = 0;
+    this.shedding = false;
+    this.adaptiveLifo = false;
+  }
+
+  /**
+   * @param targetNanos   max sojourn time of tasks when the queue is overloaded
+   * @param intervalNanos time the queue stays non-empty before it is overloaded
+   * @param adaptiveLifo  serve the newest task first when the queue is overloaded
+   */
+  public TaskQueue(long targetNanos, long intervalNanos, boolean adaptiveLifo) {
+    super();
+    this.targetNanos = targetNanos;
+    this.intervalNanos = intervalNanos;
+    this.shedding = true;
+    this.adaptiveLifo = adaptiveLifo;
   }
 
   public void setParent(Executor parent) {
@@ -30,29 +61,123 @@ class TaskQueue extends LinkedBlockingQueue<Runnable> {
     if (parent == null || parent.isShutdown()) {
       return false;
     }
+    markEmpty();
     return super.offer(o); // forces the item onto the queue, to be used if the task is rejected
   }
 
   @Override
   public boolean offer(@Nonnull Runnable o) {
+    markEmpty();
+    return !spawnThread(parent) && super.offer(o);
+  }
+
+  /**
+   * @return {@code true} if the executor should create a new thread for the task instead of queueing it
+   */
+  static boolean spawnThread(Executor parent) {
     // we can't do any checks
     if (parent == null) {
-      return super.offer(o);
+      return false;
     }
     // we are maxed out on threads, queue the object
     if (parent.getPoolSize() == parent.getMaximumPoolSize()) {
-      return super.offer(o);
+      return false;
     }
     // we have idle threads, add it to the queue
     if (parent.getSubmittedCount() <= parent.getPoolSize()) {
-      return super.offer(o);
+      return false;
     }
     // if we have fewer threads than maximum force creation of a new thread
-    if (parent.getPoolSize() < parent.getMaximumPoolSize()) {
-      return false;
+    return parent.getPoolSize() < parent.getMaximumPoolSize();
+  }
+
+  @Override
+  public Runnable take() throws InterruptedException {
+    if (!shedding) {
+      return takeFirst();
+    }
+    for (; ; ) {
+      Runnable task = serveLifo() ? takeLast() : takeFirst();
+      if (admit(task)) {
+        return task;
+      }
+    }
+  }
+
+  @Override
+  public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+    if (!shedding) {
+      return pollFirst(timeout, unit);
+    }
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (; ; ) {
+      long remaining = deadline - System.nanoTime();
+      Runnable task = serveLifo() ? pollLast(remaining, TimeUnit.NANOSECONDS) : pollFirst(remaining, TimeUnit.NANOSECONDS);
+      if (task == null || admit(task)) {
+        return task;
+      }
+    }
+  }
+
+  @Override
+  public Runnable poll() {
+    if (!shedding) {
+      return pollFirst();
+    }
+    for (; ; ) {
+      Runnable task = serveLifo() ? pollLast() : pollFirst();
+      if (task == null || admit(task)) {
+        return task;
+      }
+    }
+  }
+
+  boolean isShedding() {
+    return shedding;
+  }
+
+  /**
+   * @return {@code true} if the queue has not been empty for a whole interval
+   */
+  boolean isOverloaded() {
+    return shedding && System.nanoTime() - lastEmptyNanos > intervalNanos;
+  }
+
+  /**
+   * an idle queue is not overloaded, restart the interval when a task comes to an empty queue
+   */
+  private void markEmpty() {
+    if (shedding && isEmpty()) {
+      lastEmptyNanos = System.nanoTime();
+    }
+  }
+
+  private boolean serveLifo() {
+    return adaptiveLifo && isOverloaded();
+  }
+
+  /**
+   * check the sojourn time of a dequeued task, shed it if it waited too long
+   */
+  private boolean admit(Runnable task) {
+    long now = System.nanoTime();
+    boolean overloaded = now - lastEmptyNanos > intervalNanos;
+    if (isEmpty()) {
+      lastEmptyNanos = now;
+    }
+    if (!(task instanceof TimedTask timed)) {
+      return true;
+    }
+    long sojournNanos = now - timed.getEnqueueNanos();
+    if (sojournNanos <= (overloaded ? targetNanos : intervalNanos)) {
+      return true;
+    }
+    Executor executor = parent;
+    if (executor == null) {
+      return true;
     }
-    // if we reached here, we need to add it to the queue
-    return super.offer(o);
+    executor.shed(task);
+    return false;
   }
 
 }
@@ -1,22 +1,27 @@
 package cc.ayakurayuki.spring.components.context.concurrent.pool;
 
 import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import cc.ayakurayuki.spring.components.stats.stats.MonitoredExecutors;
 import cc.ayakurayuki.spring.components.stats.stats.ScheduledStats;
+import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import jakarta.annotation.Nonnull;
 import java.lang.Thread.UncaughtExceptionHandler;
-import java.lang.ref.WeakReference;
+import java.time.Duration;
 import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Tips:
@@ -27,7 +32,7 @@ import java.util.concurrent.TimeUnit;
  *     <ul>
  *       <li>key: {@code java.util.concurrent.ForkJoinPool.common.parallelism}</li>
  *       <li>value: {@code <DEFAULT_PARALLELISM>}</li>
- *       <li>DEFAULT_PARALLELISM = {@code (availableProcessors / (1 - blockingCoefficient)) * 2}</li>
+ *       <li>DEFAULT_PARALLELISM = {@code cpus}, blocking sections run in {@link ManagedBlocking} to get compensation threads</li>
  *     </ul>
  *   </li>
  *   <li>
@@ -58,18 +63,12 @@ import java.util.concurrent.TimeUnit;
 public class ThreadPools {
 
   /**
-   * the default blocking coefficient
+   * the default parallelism (cpus), cpus from the cgroup quota, workers blocked in {@link ManagedBlocking}
+   * sections are compensated by extra threads
    * <p>
-   * 默认阻塞系数
+   * 默认线程池并发度 容器核数，阻塞段通过 {@link ManagedBlocking} 补偿线程
    */
-  private static final double DEFAULT_BLOCKING_COEFFICIENT = 0.9;
-
-  /**
-   * the default parallelism ((available_cores / (1 - blocking_coefficient)) * 2)
-   * <p>
-   * 默认线程池并发度 核数 / (1 - 阻塞系数) * 2
-   */
-  private static final int DEFAULT_PARALLELISM = (int) (Runtime.getRuntime().availableProcessors() / (1 - DEFAULT_BLOCKING_COEFFICIENT)) * 2;
+  private static final int DEFAULT_PARALLELISM = PoolSizing.report("Fork-Join-Common-Pool", PoolSizing.cpus());
 
   /**
    * customized ForkJoinPool
@@ -83,7 +82,7 @@ public class ThreadPools {
    */
   public static java.util.concurrent.Executor newVirtualExecutor(String name) {
     ThreadFactory factory = Thread.ofVirtual().name(name).factory();
-    return Executors.newThreadPerTaskExecutor(factory);
+    return new VirtualExecutor(name, Executors.newThreadPerTaskExecutor(factory));
   }
 
   /**
@@ -94,7 +93,7 @@ public class ThreadPools {
    */
   public static java.util.concurrent.Executor newVirtualExecutor(String name, long start) {
     ThreadFactory factory = Thread.ofVirtual().name(name, start).factory();
-    return Executors.newThreadPerTaskExecutor(factory);
+    return new VirtualExecutor(name, Executors.newThreadPerTaskExecutor(factory));
   }
 
   /**
@@ -108,7 +107,7 @@ public class ThreadPools {
         .name(name)
         .inheritInheritableThreadLocals(inherit)
         .factory();
-    return Executors.newThreadPerTaskExecutor(factory);
+    return new VirtualExecutor(name, Executors.newThreadPerTaskExecutor(factory));
   }
 
   /**
@@ -123,7 +122,7 @@ public class ThreadPools {
         .name(name, start)
         .inheritInheritableThreadLocals(inherit)
         .factory();
-    return Executors.newThreadPerTaskExecutor(factory);
+    return new VirtualExecutor(name, Executors.newThreadPerTaskExecutor(factory));
   }
 
   /**
@@ -137,7 +136,7 @@ public class ThreadPools {
         .name(name)
         .uncaughtExceptionHandler(uncaughtExceptionHandler)
         .factory();
-    return Executors.newThreadPerTaskExecutor(factory);
+    return new VirtualExecutor(name, Executors.newThreadPerTaskExecutor(factory));
   }
 
   /**
@@ -152,7 +151,7 @@ public class ThreadPools {
         .name(name, start)
         .uncaughtExceptionHandler(uncaughtExceptionHandler)
         .factory();
-    return Executors.newThreadPerTaskExecutor(factory);
+    return new VirtualExecutor(name, Executors.newThreadPerTaskExecutor(factory));
   }
 
   /**
@@ -169,7 +168,101 @@ public class ThreadPools {
         .inheritInheritableThreadLocals(inherit)
         .uncaughtExceptionHandler(uncaughtExceptionHandler)
         .factory();
-    return Executors.newThreadPerTaskExecutor(factory);
+    return new VirtualExecutor(name, Executors.newThreadPerTaskExecutor(factory));
+  }
+
+  /**
+   * Create a new virtual thread executor with an admission limit, tasks over the limit wait
+   * without bound
+   *
+   * @param name           Thread prefix name
+   * @param maxConcurrency max tasks running at the same time
+   *
+   * @see #newBoundedVirtualExecutor(String, int, int)
+   */
+  public static java.util.concurrent.Executor newBoundedVirtualExecutor(String name, int maxConcurrency) {
+    return newBoundedVirtualExecutor(name, maxConcurrency, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Create a new virtual thread executor with an admission limit.
+   * <p>
+   * At most {@code maxConcurrency} tasks run at the same time, so the executor doesn't flood the
+   * connection pools behind it. Tasks over the limit wait in a queue without blocking the submitter,
+   * and are rejected with {@link java.util.concurrent.RejectedExecutionException} when {@code maxQueued}
+   * tasks are already waiting.
+   * <p>
+   * Running and waiting tasks are reported by {@link ThreadPool#POOL_STATE_ACTIVE} and
+   * {@link ThreadPool#POOL_STATE_TASK_WAITING}, rejections by {@link ThreadPool#POOL_TASK_REJECTED}.
+   *
+   * @param name           Thread prefix name
+   * @param maxConcurrency max tasks running at the same time
+   * @param maxQueued      max tasks waiting for a slot
+   */
+  public static java.util.concurrent.Executor newBoundedVirtualExecutor(String name, int maxConcurrency, int maxQueued) {
+    Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency must be positive");
+    Preconditions.checkArgument(maxQueued >= 0, "maxQueued must not be negative");
+    ThreadFactory factory = Thread.ofVirtual().name(name + "-", 0).factory();
+    BoundedVirtualExecutor executor = new BoundedVirtualExecutor(name, Executors.newThreadPerTaskExecutor(factory), maxConcurrency, maxQueued);
+    MonitoredExecutors.monitor(name, executor)
+        .gauge(ThreadPool.POOL_STATE_ACTIVE, BoundedVirtualExecutor::getInFlight)
+        .gauge(ThreadPool.POOL_STATE_TASK_WAITING, BoundedVirtualExecutor::getQueued)
+        .gauge(ThreadPool.POOL_STATE_ACTIVE_PEAK, e -> e.getActivePeak().get(e.getInFlight()));
+    return executor;
+  }
+
+  /**
+   * Create a new coalescing executor draining up to 256 tasks in a batch
+   *
+   * @param name Thread prefix name
+   *
+   * @see #newCoalescingExecutor(String, int)
+   */
+  public static java.util.concurrent.Executor newCoalescingExecutor(String name) {
+    return newCoalescingExecutor(name, 256);
+  }
+
+  /**
+   * Create a new executor for tiny non-blocking tasks, e.g. completing futures.
+   * <p>
+   * Tasks are queued and drained in batches on one virtual thread, instead of a virtual thread per
+   * task. Tasks don't inherit the context of the submitter and aren't timed, see
+   * {@link CoalescingExecutor}. Pending tasks are reported by {@link ThreadPool#POOL_STATE_TASK_WAITING},
+   * and run tasks by {@link ThreadPool#POOL_TASK_COMPLETED}.
+   *
+   * @param name  Thread prefix name
+   * @param batch max tasks run by a virtual thread before the rest moves to a new one
+   */
+  public static java.util.concurrent.Executor newCoalescingExecutor(String name, int batch) {
+    Preconditions.checkArgument(batch > 0, "batch must be positive");
+    ThreadFactory factory = Thread.ofVirtual().name(name + "-", 0).factory();
+    CoalescingExecutor executor = new CoalescingExecutor(name, Executors.newThreadPerTaskExecutor(factory), batch);
+    MonitoredExecutors.monitor(name, executor)
+        .gauge(ThreadPool.POOL_STATE_TASK_WAITING, CoalescingExecutor::getPending);
+    return executor;
+  }
+
+  /**
+   * Create a new executor for tiny non-blocking tasks over several coalescing queues drained in
+   * parallel.
+   * <p>
+   * Every task goes to a random one of {@code stripes} executors of
+   * {@link #newCoalescingExecutor(String, int)}, named {@code name-<stripe>}, so a slow task only
+   * holds up the tasks of its stripe. Tasks run in no particular order.
+   *
+   * @param name    Thread prefix name
+   * @param stripes coalescing executors draining in parallel
+   */
+  public static java.util.concurrent.Executor newStripedCoalescingExecutor(String name, int stripes) {
+    Preconditions.checkArgument(stripes > 0, "stripes must be positive");
+    java.util.concurrent.Executor[] executors = new java.util.concurrent.Executor[stripes];
+    for (int i = 0; i < stripes; i++) {
+      executors[i] = newCoalescingExecutor(name + "-" + i);
+    }
+    if (stripes == 1) {
+      return executors[0];
+    }
+    return command -> executors[ThreadLocalRandom.current().nextInt(stripes)].execute(command);
   }
 
   /**
@@ -260,7 +353,125 @@ public class ThreadPools {
    */
   public static ThreadPoolExecutor newScalableThreadPool(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, RejectedExecutionHandler handler, boolean daemon) {
     TaskQueue queue = new TaskQueue();
-    Executor executor = new Executor(corePoolSize, maximumPoolSize, keepAliveTime, unit, queue, getFactory(name, daemon), handler);
+    Executor executor = new Executor(name, corePoolSize, maximumPoolSize, keepAliveTime, unit, queue, getFactory(name, daemon), handler);
+    queue.setParent(executor);
+    attachMonitor(name, executor);
+    return executor;
+  }
+
+  /**
+   * Create a new scalable thread pool executor with a bounded lock-free work queue
+   *
+   * @return executor
+   *
+   * @see #newScalableThreadPool(String, int, int, long, TimeUnit, int, RejectedExecutionHandler, boolean)
+   */
+  public static ThreadPoolExecutor newScalableThreadPool(String name, int corePoolSize, int maximumPoolSize, int queueCapacity) {
+    return newScalableThreadPool(name, corePoolSize, maximumPoolSize, 5, TimeUnit.MINUTES, queueCapacity, Executor.DEFAULT_HANDLER, true);
+  }
+
+  /**
+   * Create a new scalable thread pool executor with a bounded lock-free work queue
+   * <p>
+   * Same as {@link #newScalableThreadPool(String, int, int, long, TimeUnit, RejectedExecutionHandler, boolean)},
+   * and tasks are queued in a {@link MpmcArrayBlockingQueue}, which doesn't lock on submit. The
+   * capacity is rounded up to a power of two, tasks are rejected when the queue is full.
+   *
+   * @return executor
+   */
+  public static ThreadPoolExecutor newScalableThreadPool(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, int queueCapacity,
+                                                         RejectedExecutionHandler handler, boolean daemon) {
+    MpmcTaskQueue queue = new MpmcTaskQueue(queueCapacity);
+    Executor executor = new Executor(name, corePoolSize, maximumPoolSize, keepAliveTime, unit, queue, getFactory(name, daemon), handler);
+    queue.setParent(executor);
+    attachMonitor(name, executor);
+    return executor;
+  }
+
+  /**
+   * Create a new adaptive scalable thread pool executor, targeting 10ms queue wait time
+   *
+   * @return executor
+   *
+   * @see #newAdaptiveThreadPool(String, int, int, Duration)
+   */
+  public static ThreadPoolExecutor newAdaptiveThreadPool(String name, int minPoolSize, int maxPoolSize) {
+    return newAdaptiveThreadPool(name, minPoolSize, maxPoolSize, Duration.ofMillis(10));
+  }
+
+  /**
+   * Create a new adaptive scalable thread pool executor
+   * <p>
+   * Same as {@link #newScalableThreadPool(String, int, int)}, and the core and max size are tuned
+   * every second between {@code minPoolSize} and {@code maxPoolSize}, from the measured throughput
+   * and run time (Little's law), growing while tasks wait in the queue longer than {@code targetQueueWait}.
+   * <p>
+   * Current sizes are reported by {@link ThreadPool#POOL_SIZE_CORE} and {@link ThreadPool#POOL_SIZE_MAX}.
+   *
+   * @return executor
+   */
+  public static ThreadPoolExecutor newAdaptiveThreadPool(String name, int minPoolSize, int maxPoolSize, Duration targetQueueWait) {
+    Preconditions.checkArgument(minPoolSize > 0 && minPoolSize <= maxPoolSize, "require 0 < minPoolSize <= maxPoolSize");
+    TaskQueue queue = new TaskQueue();
+    Executor executor = new Executor(name, minPoolSize, maxPoolSize, 1, TimeUnit.MINUTES, queue, getFactory(name, true));
+    queue.setParent(executor);
+    return adapt(name, executor, minPoolSize, maxPoolSize, targetQueueWait);
+  }
+
+  /**
+   * Create a new adaptive scalable thread pool executor with a bounded lock-free work queue
+   * <p>
+   * Same as {@link #newAdaptiveThreadPool(String, int, int, Duration)}, and tasks are queued in a
+   * {@link MpmcArrayBlockingQueue}, rejected when the queue is full.
+   *
+   * @return executor
+   */
+  public static ThreadPoolExecutor newAdaptiveThreadPool(String name, int minPoolSize, int maxPoolSize, Duration targetQueueWait, int queueCapacity) {
+    Preconditions.checkArgument(minPoolSize > 0 && minPoolSize <= maxPoolSize, "require 0 < minPoolSize <= maxPoolSize");
+    MpmcTaskQueue queue = new MpmcTaskQueue(queueCapacity);
+    Executor executor = new Executor(name, minPoolSize, maxPoolSize, 1, TimeUnit.MINUTES, queue, getFactory(name, true));
+    queue.setParent(executor);
+    return adapt(name, executor, minPoolSize, maxPoolSize, targetQueueWait);
+  }
+
+  private static ThreadPoolExecutor adapt(String name, Executor executor, int minPoolSize, int maxPoolSize, Duration targetQueueWait) {
+    attachMonitor(name, executor);
+    AdaptivePoolSizer sizer = new AdaptivePoolSizer(executor, minPoolSize, maxPoolSize, targetQueueWait.toNanos());
+    ScheduledStats.scheduleWithFixedDelay(sizer, 1, 1, TimeUnit.SECONDS);
+    return executor;
+  }
+
+  /**
+   * Create a new load shedding scalable thread pool executor, with 5ms target, 100ms interval and adaptive LIFO
+   *
+   * @return executor
+   *
+   * @see #newSheddingThreadPool(String, int, int, Duration, Duration, boolean, Consumer)
+   */
+  public static ThreadPoolExecutor newSheddingThreadPool(String name, int corePoolSize, int maximumPoolSize) {
+    return newSheddingThreadPool(name, corePoolSize, maximumPoolSize, Duration.ofMillis(5), Duration.ofMillis(100), true, null);
+  }
+
+  /**
+   * Create a new load shedding scalable thread pool executor with 5 mins keepAliveTime
+   * <p>
+   * Same as {@link #newScalableThreadPool(String, int, int)}, and queued tasks are shed by their queue
+   * wait time (CoDel): once the queue has not been empty for a whole {@code interval}, tasks waiting
+   * longer than {@code target} are dropped when dequeued, and with {@code adaptiveLifo} the newest
+   * tasks are served first until the queue drains. Dropped tasks are counted by
+   * {@link ThreadPool#POOL_TASK_SHED}, a task submitted as a future is cancelled, and {@code onShed}
+   * is told about the task in the worker thread. The rejection handler of the pool is not involved.
+   *
+   * @param onShed told about every shed task, e.g. to answer its caller, null for none
+   *
+   * @return executor
+   */
+  public static ThreadPoolExecutor newSheddingThreadPool(String name, int corePoolSize, int maximumPoolSize, Duration target, Duration interval, boolean adaptiveLifo,
+                                                         Consumer<? super Runnable> onShed) {
+    Preconditions.checkArgument(!target.isNegative() && target.compareTo(interval) <= 0, "require 0 <= target <= interval");
+    TaskQueue queue = new TaskQueue(target.toNanos(), interval.toNanos(), adaptiveLifo);
+    Executor executor = new Executor(name, corePoolSize, maximumPoolSize, 5, TimeUnit.MINUTES, queue, getFactory(name, true));
+    executor.setShedCallback(onShed);
     queue.setParent(executor);
     attachMonitor(name, executor);
     return executor;
@@ -281,7 +492,7 @@ public class ThreadPools {
    * @return executor
    */
   public static ThreadPoolExecutor newThreadPoolExecutor(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, boolean daemon) {
-    ThreadPoolExecutor executor = new Executor(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, getFactory(name, daemon));
+    ThreadPoolExecutor executor = new Executor(name, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, getFactory(name, daemon));
     attachMonitor(name, executor);
     return executor;
   }
@@ -303,7 +514,7 @@ public class ThreadPools {
    */
   public static ThreadPoolExecutor newThreadPoolExecutor(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue,
                                                          RejectedExecutionHandler handler, boolean daemon) {
-    ThreadPoolExecutor executor = new Executor(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, getFactory(name, daemon), handler);
+    ThreadPoolExecutor executor = new Executor(name, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, getFactory(name, daemon), handler);
     attachMonitor(name, executor);
     return executor;
   }
@@ -356,6 +567,48 @@ public class ThreadPools {
     return executor;
   }
 
+  /**
+   * Create a new timing wheel scheduler with 1ms tick, expired tasks run on virtual threads
+   *
+   * @see #newTimingWheelScheduler(String, Duration, java.util.concurrent.Executor)
+   */
+  public static ScheduledExecutorService newTimingWheelScheduler(String name) {
+    return newTimingWheelScheduler(name, Duration.ofMillis(1));
+  }
+
+  /**
+   * Create a new timing wheel scheduler, expired tasks run on virtual threads
+   *
+   * @see #newTimingWheelScheduler(String, Duration, java.util.concurrent.Executor)
+   */
+  public static ScheduledExecutorService newTimingWheelScheduler(String name, Duration tick) {
+    return newTimingWheelScheduler(name, tick, Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory()));
+  }
+
+  /**
+   * Create a new timing wheel scheduler.
+   * <p>
+   * Unlike {@link #newScheduledThreadPool(String, int)}, scheduling and cancelling a task is O(1)
+   * and never contends on a heap lock, for a huge number of timeouts which are mostly cancelled
+   * before they expire, e.g. RPC deadlines and idle checks. Tasks fire at the first tick after
+   * their deadline, never early.
+   * <p>
+   * Running and scheduled tasks are reported by {@link ThreadPool#POOL_STATE_ACTIVE} and
+   * {@link ThreadPool#POOL_STATE_TASK_WAITING}.
+   *
+   * @param name   Thread prefix name
+   * @param tick   precision of the deadlines
+   * @param worker executor to run the expired tasks, must not block the caller
+   */
+  public static ScheduledExecutorService newTimingWheelScheduler(String name, Duration tick, java.util.concurrent.Executor worker) {
+    Preconditions.checkArgument(tick.toNanos() > 0, "tick must be positive");
+    TimingWheelScheduler scheduler = new TimingWheelScheduler(name, tick.toNanos(), worker);
+    MonitoredExecutors.monitor(name, scheduler)
+        .gauge(ThreadPool.POOL_STATE_ACTIVE, TimingWheelScheduler::getRunning)
+        .gauge(ThreadPool.POOL_STATE_TASK_WAITING, TimingWheelScheduler::getPending);
+    return scheduler;
+  }
+
   /**
    * Create a new cached thread poll executor
    *
@@ -375,7 +628,7 @@ public class ThreadPools {
    * @see Executors#newCachedThreadPool(ThreadFactory)
    */
   public static ThreadPoolExecutor newCachedThreadPool(String name, boolean daemon) {
-    ThreadPoolExecutor executor = new Executor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), getFactory(name, daemon));
+    ThreadPoolExecutor executor = new Executor(name, 0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), getFactory(name, daemon));
     attachMonitor(name, executor);
     return executor;
   }
@@ -399,7 +652,35 @@ public class ThreadPools {
    * @see Executors#newFixedThreadPool(int, ThreadFactory)
    */
   public static ThreadPoolExecutor newFixedThreadPool(String name, int nThreads, boolean daemon) {
-    ThreadPoolExecutor executor = new Executor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), getFactory(name, daemon));
+    ThreadPoolExecutor executor = new Executor(name, nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), getFactory(name, daemon));
+    attachMonitor(name, executor);
+    return executor;
+  }
+
+  /**
+   * Create a new fixed thread poll executor with a bounded lock-free work queue
+   *
+   * @return executor
+   *
+   * @see #newFixedThreadPool(String, int, int, boolean)
+   */
+  public static ThreadPoolExecutor newFixedThreadPool(String name, int nThreads, int queueCapacity) {
+    return newFixedThreadPool(name, nThreads, queueCapacity, true);
+  }
+
+  /**
+   * Create a new fixed thread poll executor with a bounded lock-free work queue
+   * <p>
+   * Tasks are queued in a {@link MpmcArrayBlockingQueue}, which doesn't lock on submit, for pools
+   * fed by many threads with small tasks. The capacity is rounded up to a power of two, tasks
+   * are rejected when the queue is full. Scalable pools take the queue by
+   * {@link #newScalableThreadPool(String, int, int, int)}, other pools by
+   * {@link #newThreadPoolExecutor(String, int, int, long, TimeUnit, BlockingQueue)}.
+   *
+   * @return executor
+   */
+  public static ThreadPoolExecutor newFixedThreadPool(String name, int nThreads, int queueCapacity, boolean daemon) {
+    ThreadPoolExecutor executor = new Executor(name, nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new MpmcArrayBlockingQueue<>(queueCapacity), getFactory(name, daemon));
     attachMonitor(name, executor);
     return executor;
   }
@@ -412,7 +693,7 @@ public class ThreadPools {
    * @see Executors#newWorkStealingPool(int)
    */
   public static ForkJoinPool newForkJoinPool(String name, int parallelism) {
-    ForkJoin forkJoin = new ForkJoin(parallelism, getForkJoinFactory(name));
+    ForkJoin forkJoin = new ForkJoin(name, parallelism, getForkJoinFactory(name));
     attachMonitor(name, forkJoin);
     return forkJoin;
   }
@@ -425,7 +706,7 @@ public class ThreadPools {
    * @see Executors#newWorkStealingPool(int)
    */
   public static ForkJoinPool newForkJoinPool(String name, int parallelism, Thread.UncaughtExceptionHandler handler, boolean asyncMode) {
-    ForkJoin forkJoin = new ForkJoin(parallelism, getForkJoinFactory(name), handler, asyncMode);
+    ForkJoin forkJoin = new ForkJoin(name, parallelism, getForkJoinFactory(name), handler, asyncMode);
     attachMonitor(name, forkJoin);
     return forkJoin;
   }
@@ -441,32 +722,46 @@ public class ThreadPools {
     return new ForkJoinThreadFactory(name);
   }
 
+  /**
+   * Report the pool state on scrape, the registry only holds a weak reference of the executor.
+   */
   private static void attachMonitor(String name, AbstractExecutorService executor) {
-    WeakReference<AbstractExecutorService> executorReference = new WeakReference<>(executor);
-    ScheduledStats.scheduleWithFixedDelay(
-        () -> {
-          AbstractExecutorService currentExecutor = executorReference.get();
-          if (currentExecutor == null) {
-            throw new IllegalArgumentException("Current executor reference is null, cancel the task");
-          }
-          if (currentExecutor.isShutdown()) {
-            throw new IllegalArgumentException("Current executor reference is shutdown, cancel the task");
-          }
-          if (currentExecutor instanceof ThreadPoolExecutor) {
-            ThreadPoolExecutor t = (ThreadPoolExecutor) currentExecutor;
-            ThreadPool.POOL_STATE_ACTIVE.set(t.getActiveCount(), name); // 返回正在积极执行任务的线程的大致数目
-            if (!(currentExecutor instanceof ScheduledThreadPoolExecutor)) {
-              ThreadPool.POOL_STATE_TASK_WAITING.set(t.getQueue().size(), name); // 提交到此池中，但未开始执行的任务数量
-            }
-          }
-          if (currentExecutor instanceof ForkJoinPool) {
-            ForkJoinPool f = (ForkJoinPool) currentExecutor;
-            ThreadPool.POOL_STATE_ACTIVE.set(f.getActiveThreadCount(), name); // 正在窃取或运行中的线程数
-            ThreadPool.POOL_STATE_TASK_WAITING.set(f.getQueuedSubmissionCount(), name); // 提交到此池中，但未开始执行的任务数量
-          }
-        },
-        1, 1, TimeUnit.SECONDS
-    );
+    if (executor instanceof ForkJoinPool forkJoinPool) {
+      MonitoredExecutors.Registration<ForkJoinPool> registration = MonitoredExecutors.monitor(name, forkJoinPool)
+          .gauge(ThreadPool.POOL_STATE_ACTIVE, ForkJoinPool::getActiveThreadCount) // 正在窃取或运行中的线程数
+          .gauge(ThreadPool.POOL_STATE_TASK_WAITING, ForkJoinPool::getQueuedSubmissionCount) // 提交到此池中，但未开始执行的任务数量
+          .gauge(ThreadPool.POOL_SIZE_CORE, ForkJoinPool::getParallelism)
+          .gauge(ThreadPool.POOL_SIZE_CURRENT, ForkJoinPool::getPoolSize); // 包括补偿阻塞的线程
+      if (forkJoinPool instanceof ForkJoin) {
+        // peaks within the window of WindowPeak, tracked by the pool on every executed command
+        registration
+            .gauge(ThreadPool.POOL_STATE_ACTIVE_PEAK, t -> ((ForkJoin) t).getActivePeak().get(((ForkJoin) t).getRunning()))
+            .gauge(ThreadPool.POOL_STATE_TASK_WAITING_PEAK, t -> ((ForkJoin) t).getWaitingPeak().get(((ForkJoin) t).getWaiting()));
+      }
+      return;
+    }
+    if (executor instanceof ScheduledThreadPoolExecutor scheduled) {
+      MonitoredExecutors.monitor(name, scheduled)
+          .gauge(ThreadPool.POOL_STATE_ACTIVE, ThreadPoolExecutor::getActiveCount); // 返回正在积极执行任务的线程的大致数目
+      return;
+    }
+    if (executor instanceof ThreadPoolExecutor threadPool) {
+      MonitoredExecutors.Registration<ThreadPoolExecutor> registration = MonitoredExecutors.monitor(name, threadPool)
+          .gauge(ThreadPool.POOL_STATE_ACTIVE, ThreadPoolExecutor::getActiveCount) // 返回正在积极执行任务的线程的大致数目
+          .gauge(ThreadPool.POOL_STATE_TASK_WAITING, t -> t.getQueue().size()) // 提交到此池中，但未开始执行的任务数量
+          .gauge(ThreadPool.POOL_SIZE_CORE, ThreadPoolExecutor::getCorePoolSize)
+          .gauge(ThreadPool.POOL_SIZE_MAX, ThreadPoolExecutor::getMaximumPoolSize)
+          .gauge(ThreadPool.POOL_SIZE_CURRENT, ThreadPoolExecutor::getPoolSize);
+      if (threadPool instanceof Executor) {
+        // peaks within the window of WindowPeak, tracked by the executor on every task
+        registration
+            .gauge(ThreadPool.POOL_STATE_ACTIVE_PEAK, t -> ((Executor) t).getActivePeak().get(t.getActiveCount()))
+            .gauge(ThreadPool.POOL_STATE_TASK_WAITING_PEAK, t -> ((Executor) t).getWaitingPeak().get(t.getQueue().size()));
+      }
+      if (threadPool.getQueue() instanceof TaskQueue taskQueue && taskQueue.isShedding()) {
+        registration.gauge(ThreadPool.POOL_QUEUE_OVERLOADED, t -> ((TaskQueue) t.getQueue()).isOverloaded() ? 1 : 0);
+      }
+    }
   }
 
 }
@@ -0,0 +1,81 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSimpleCollector;
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+
+/**
+ * A task submitted to a pool of {@link ThreadPools}, runs with the contexts of the submitter and
+ * is stamped with its enqueue time.
+ * <p>
+ * Queue wait and run time are observed by the pool ({@link Executor#beforeExecute(Thread, Runnable)}
+ * and {@link Executor#afterExecute(Runnable, Throwable)}), or by the task itself for pools without
+ * those hooks.
+ *
+ * @author Ayakura Yuki
+ */
+final class TimedTask implements Runnable {
+
+  private final    String          name;
+  private final    ContextSnapshot snapshot;
+  private final    Runnable        command;
+  private final    boolean         selfObserved;
+  private final    long            enqueueNanos;
+  private volatile long            startNanos;
+
+  TimedTask(String name, ContextSnapshot snapshot, Runnable command, boolean selfObserved) {
+    this.name = name;
+    this.snapshot = snapshot;
+    this.command = command;
+    this.selfObserved = selfObserved;
+    this.enqueueNanos = System.nanoTime();
+  }
+
+  Runnable getCommand() {
+    return this.command;
+  }
+
+  long getEnqueueNanos() {
+    return this.enqueueNanos;
+  }
+
+  long getStartNanos() {
+    return this.startNanos;
+  }
+
+  /**
+   * mark the task started and observe its queue wait, returns the nanoseconds it waited
+   */
+  long start() {
+    long now = System.nanoTime();
+    this.startNanos = now;
+    long waitNanos = now - this.enqueueNanos;
+    ThreadPool.POOL_TASK_WAIT.observe(AYSimpleCollector.escapeMillisFromNanos(waitNanos), this.name);
+    return waitNanos;
+  }
+
+  /**
+   * mark the task finished and observe its run time, returns the nanoseconds it ran
+   */
+  long finish() {
+    long runNanos = System.nanoTime() - this.startNanos;
+    ThreadPool.POOL_TASK_RUN.observe(AYSimpleCollector.escapeMillisFromNanos(runNanos), this.name);
+    ThreadPool.POOL_TASK_COMPLETED.inc(this.name);
+    return runNanos;
+  }
+
+  @Override
+  public void run() {
+    if (!this.selfObserved) {
+      this.snapshot.run(this.command);
+      return;
+    }
+    start();
+    try {
+      this.snapshot.run(this.command);
+    } finally {
+      finish();
+    }
+  }
+
+}
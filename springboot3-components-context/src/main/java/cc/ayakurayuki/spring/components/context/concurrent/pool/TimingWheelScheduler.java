@@ -0,0 +1,506 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import com.google.common.base.Preconditions;
+import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link ScheduledExecutorService} on a hierarchical hashed timing wheel, for a huge number of
+ * timeouts which are mostly cancelled before they expire.
+ * <p>
+ * Schedule and cancel are O(1): submitters only push the task to a lock-free inbox, and a single
+ * ticker thread moves it into a wheel slot, or unlinks it from its slot after cancellation. The
+ * wheel has 8 levels of 256 slots, level {@code n} slots span {@code 256^n} ticks, and tasks of a
+ * higher level cascade down when the lower level wraps, so a delay up to {@code 2^63} ticks is
+ * placed without overflow rounds. The precision is one tick, tasks never fire early.
+ * <p>
+ * Expired tasks run on the worker executor with the contexts captured at schedule time, periodic
+ * ones with the opentelemetry context only, like {@link CommandWrapper#wrapPeriodic(Runnable)}. Their
+ * dispatch delay and run time are observed like other pool tasks. The ticker sleeps while no task
+ * is scheduled.
+ *
+ * @author Ayakura Yuki
+ */
+class TimingWheelScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+  private static final int BITS   = 8;
+  private static final int SLOTS  = 1 << BITS;
+  private static final int MASK   = SLOTS - 1;
+  private static final int LEVELS = 8;
+
+  /**
+   * max delay, about 146 years, keeps the deadline arithmetic away from overflow
+   */
+  private static final long MAX_DELAY_NANOS = Long.MAX_VALUE >> 1;
+
+  private final String                        name;
+  private final long                          tickNanos;
+  private final long                          startNanos;
+  private final java.util.concurrent.Executor worker;
+  private final Thread                        ticker;
+  private final Bucket[][]                    wheel;
+
+  private final Queue<WheelTask<?>> inbox      = new ConcurrentLinkedQueue<>();
+  private final Queue<WheelTask<?>> cancelled  = new ConcurrentLinkedQueue<>();
+  private final AtomicLong          pending    = new AtomicLong(); // scheduled, not done nor cancelled
+  private final AtomicInteger       running    = new AtomicInteger();
+  private final CountDownLatch      terminated = new CountDownLatch(1);
+
+  private volatile boolean shutdown;
+  private volatile boolean shutdownNow;
+  private volatile boolean idle;
+
+  // owned by the ticker thread
+  private long           currentTick;
+  private long           wheelSize;
+  private boolean        periodicCancelled;
+  private List<Runnable> dropped;
+
+  TimingWheelScheduler(String name, long tickNanos, java.util.concurrent.Executor worker) {
+    this.name = name;
+    this.tickNanos = tickNanos;
+    this.worker = worker;
+    this.startNanos = System.nanoTime();
+    this.wheel = new Bucket[LEVELS][SLOTS];
+    for (int level = 0; level < LEVELS; level++) {
+      for (int slot = 0; slot < SLOTS; slot++) {
+        this.wheel[level][slot] = new Bucket();
+      }
+    }
+    this.ticker = Thread.ofPlatform().name(name + "-ticker").daemon(true).unstarted(this::tick);
+    this.ticker.start();
+  }
+
+  String getName() {
+    return name;
+  }
+
+  long getPending() {
+    return pending.get();
+  }
+
+  int getRunning() {
+    return running.get();
+  }
+
+  // ---- ScheduledExecutorService ----
+
+  @Nonnull
+  @Override
+  public ScheduledFuture<?> schedule(@Nonnull Runnable command, long delay, @Nonnull TimeUnit unit) {
+    return enqueue(new WheelTask<>(Executors.callable(command, null), triggerTime(delay, unit), 0));
+  }
+
+  @Nonnull
+  @Override
+  public <V> ScheduledFuture<V> schedule(@Nonnull Callable<V> callable, long delay, @Nonnull TimeUnit unit) {
+    return enqueue(new WheelTask<>(callable, triggerTime(delay, unit), 0));
+  }
+
+  @Nonnull
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(@Nonnull Runnable command, long initialDelay, long period, @Nonnull TimeUnit unit) {
+    Preconditions.checkArgument(period > 0, "period must be positive");
+    return enqueue(new WheelTask<>(Executors.callable(command, null), triggerTime(initialDelay, unit), unit.toNanos(period)));
+  }
+
+  @Nonnull
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(@Nonnull Runnable command, long initialDelay, long delay, @Nonnull TimeUnit unit) {
+    Preconditions.checkArgument(delay > 0, "delay must be positive");
+    return enqueue(new WheelTask<>(Executors.callable(command, null), triggerTime(initialDelay, unit), -unit.toNanos(delay)));
+  }
+
+  @Override
+  public void execute(@Nonnull Runnable command) {
+    schedule(command, 0, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Stop accepting tasks and cancel periodic ones, delayed tasks still fire.
+   */
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    LockSupport.unpark(ticker);
+  }
+
+  /**
+   * Stop accepting tasks and drop all the scheduled ones, running tasks are not interrupted.
+   */
+  @Nonnull
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown = true;
+    shutdownNow = true;
+    LockSupport.unpark(ticker);
+    try {
+      ticker.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return dropped == null ? List.of() : dropped;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return terminated.getCount() == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+    return terminated.await(timeout, unit);
+  }
+
+  // ---- submitters ----
+
+  private long triggerTime(long delay, TimeUnit unit) {
+    return System.nanoTime() + Math.clamp(unit.toNanos(delay), 0, MAX_DELAY_NANOS);
+  }
+
+  private <V> WheelTask<V> enqueue(WheelTask<V> task) {
+    if (shutdown) {
+      ThreadPool.POOL_TASK_REJECTED.inc(name);
+      throw new RejectedExecutionException("Task %s rejected from %s, shut down".formatted(task, name));
+    }
+    pending.incrementAndGet();
+    inbox.offer(task);
+    if (idle) {
+      LockSupport.unpark(ticker);
+    }
+    return task;
+  }
+
+  // ---- ticker ----
+
+  /**
+   * tick of a deadline, rounded up so a task never fires early
+   */
+  private long tickOf(long deadlineNanos) {
+    long elapsed = deadlineNanos - startNanos;
+    return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+  }
+
+  /**
+   * last tick passed by now
+   */
+  private long currentTickOf(long nowNanos) {
+    return (nowNanos - startNanos) / tickNanos;
+  }
+
+  private void tick() {
+    try {
+      while (!shutdownNow) {
+        if (wheelSize == 0) {
+          // nothing in the wheel, jump it to now instead of walking through the idle ticks
+          currentTick = Math.max(currentTick, currentTickOf(System.nanoTime()));
+        }
+        drainInbox();
+        if (shutdown && !periodicCancelled) {
+          cancelPeriodic();
+        }
+        drainCancelled();
+        if (shutdown && wheelSize == 0 && inbox.isEmpty()) {
+          break;
+        }
+        if (wheelSize == 0) {
+          // sleep until a task comes
+          idle = true;
+          if (inbox.isEmpty() && !shutdown) {
+            LockSupport.park(this);
+          }
+          idle = false;
+          continue;
+        }
+        long now = currentTickOf(System.nanoTime());
+        while (currentTick < now && !shutdownNow) {
+          advance(++currentTick);
+        }
+        long sleep = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+        if (sleep > 0 && inbox.isEmpty()) {
+          LockSupport.parkNanos(this, sleep);
+        }
+      }
+      if (shutdownNow) {
+        dropAll();
+      }
+    } finally {
+      terminated.countDown();
+    }
+  }
+
+  private void drainInbox() {
+    WheelTask<?> task;
+    while ((task = inbox.poll()) != null) {
+      if (task.isCancelled()) {
+        continue;
+      }
+      if (shutdown && task.isPeriodic()) {
+        task.cancel(false);
+        continue;
+      }
+      insert(task);
+    }
+  }
+
+  private void drainCancelled() {
+    WheelTask<?> task;
+    while ((task = cancelled.poll()) != null) {
+      if (task.bucket != null) {
+        task.bucket.unlink(task);
+        wheelSize--;
+      }
+    }
+  }
+
+  private void cancelPeriodic() {
+    periodicCancelled = true;
+    for (Bucket[] buckets : wheel) {
+      for (Bucket bucket : buckets) {
+        for (WheelTask<?> task = bucket.head; task != null; task = task.next) {
+          if (task.isPeriodic()) {
+            task.cancel(false); // unlinked by drainCancelled
+          }
+        }
+      }
+    }
+  }
+
+  private void insert(WheelTask<?> task) {
+    long delta = task.tick - currentTick;
+    if (delta <= 0) {
+      fire(task);
+      return;
+    }
+    int level = Math.min((63 - Long.numberOfLeadingZeros(delta)) / BITS, LEVELS - 1);
+    int slot = (int) ((task.tick >>> (level * BITS)) & MASK);
+    wheel[level][slot].link(task);
+    wheelSize++;
+  }
+
+  /**
+   * Cascade the levels whose lower level wrapped at this tick, then fire the level 0 slot.
+   */
+  private void advance(long tick) {
+    for (int level = 1; level < LEVELS; level++) {
+      if ((tick & ((1L << (level * BITS)) - 1)) != 0) {
+        break;
+      }
+      Bucket bucket = wheel[level][(int) ((tick >>> (level * BITS)) & MASK)];
+      WheelTask<?> task = bucket.clear();
+      while (task != null) {
+        WheelTask<?> next = task.next;
+        task.next = null;
+        task.prev = null;
+        wheelSize--;
+        insert(task);
+        task = next;
+      }
+    }
+    Bucket bucket = wheel[0][(int) (tick & MASK)];
+    WheelTask<?> task = bucket.clear();
+    while (task != null) {
+      WheelTask<?> next = task.next;
+      task.next = null;
+      task.prev = null;
+      wheelSize--;
+      fire(task);
+      task = next;
+    }
+  }
+
+  private void fire(WheelTask<?> task) {
+    if (task.isCancelled()) {
+      return;
+    }
+    try {
+      worker.execute(new TimedTask(name, task.snapshot, task, true));
+    } catch (RejectedExecutionException e) {
+      ThreadPool.POOL_TASK_REJECTED.inc(name);
+      task.cancel(false);
+    }
+  }
+
+  private void dropAll() {
+    List<Runnable> tasks = new ArrayList<>();
+    WheelTask<?> task;
+    while ((task = inbox.poll()) != null) {
+      tasks.add(task);
+    }
+    for (Bucket[] buckets : wheel) {
+      for (Bucket bucket : buckets) {
+        task = bucket.clear();
+        while (task != null) {
+          tasks.add(task);
+          task = task.next;
+        }
+      }
+    }
+    for (Runnable r : tasks) {
+      ((WheelTask<?>) r).cancel(false);
+    }
+    cancelled.clear();
+    wheelSize = 0;
+    dropped = tasks;
+  }
+
+  /**
+   * doubly linked list of tasks in a slot, touched by the ticker only
+   */
+  private static final class Bucket {
+
+    private WheelTask<?> head;
+    private WheelTask<?> tail;
+
+    private void link(WheelTask<?> task) {
+      task.bucket = this;
+      task.prev = tail;
+      if (tail == null) {
+        head = task;
+      } else {
+        tail.next = task;
+      }
+      tail = task;
+    }
+
+    private void unlink(WheelTask<?> task) {
+      if (task.prev == null) {
+        head = task.next;
+      } else {
+        task.prev.next = task.next;
+      }
+      if (task.next == null) {
+        tail = task.prev;
+      } else {
+        task.next.prev = task.prev;
+      }
+      task.prev = null;
+      task.next = null;
+      task.bucket = null;
+    }
+
+    /**
+     * detach all the tasks, returns the first one
+     */
+    private WheelTask<?> clear() {
+      WheelTask<?> first = head;
+      for (WheelTask<?> task = first; task != null; task = task.next) {
+        task.bucket = null;
+      }
+      head = null;
+      tail = null;
+      return first;
+    }
+
+  }
+
+  private final class WheelTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+    private final ContextSnapshot snapshot;
+    private final long            period; // > 0 fixed rate, < 0 fixed delay, 0 one shot
+
+    private volatile long deadlineNanos;
+    private volatile long tick;
+
+    // owned by the ticker thread
+    private Bucket       bucket;
+    private WheelTask<?> prev;
+    private WheelTask<?> next;
+
+    private WheelTask(Callable<V> callable, long deadlineNanos, long period) {
+      super(callable);
+      // periodic tasks outlive the request, they only propagate the opentelemetry context
+      this.snapshot = period == 0 ? ContextSnapshot.capture() : ContextSnapshot.captureTelemetry();
+      this.period = period;
+      this.deadlineNanos = deadlineNanos;
+      this.tick = tickOf(deadlineNanos);
+    }
+
+    @Override
+    public boolean isPeriodic() {
+      return period != 0;
+    }
+
+    @Override
+    public long getDelay(@Nonnull TimeUnit unit) {
+      return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(@Nonnull Delayed other) {
+      if (other == this) {
+        return 0;
+      }
+      return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void run() {
+      running.incrementAndGet();
+      try {
+        if (!isPeriodic()) {
+          super.run();
+        } else if (super.runAndReset()) {
+          if (shutdown) {
+            cancel(false);
+            return;
+          }
+          deadlineNanos = period > 0 ? deadlineNanos + period : System.nanoTime() - period;
+          tick = tickOf(deadlineNanos);
+          inbox.offer(this);
+          if (idle) {
+            LockSupport.unpark(ticker);
+          }
+          if (isTerminated()) {
+            cancel(false); // the ticker is gone meanwhile
+          }
+        }
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        TimingWheelScheduler.this.cancelled.offer(this);
+      }
+      return cancelled;
+    }
+
+    /**
+     * completed, failed or cancelled, called once
+     */
+    @Override
+    protected void done() {
+      pending.decrementAndGet();
+    }
+
+  }
+
+}
@@ -0,0 +1,38 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import jakarta.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thread per task virtual thread executor, observes the start delay and run time of tasks.
+ *
+ * @author Ayakura Yuki
+ */
+class VirtualExecutor implements java.util.concurrent.Executor {
+
+  private final String          name;
+  private final ExecutorService delegate;
+
+  VirtualExecutor(String name, ExecutorService delegate) {
+    this.name = name;
+    this.delegate = delegate;
+    VirtualThreadPinning.watch(name);
+  }
+
+  String getName() {
+    return name;
+  }
+
+  @Override
+  public void execute(@Nonnull Runnable command) {
+    try {
+      delegate.execute(CommandWrapper.wrap(name, command, true));
+    } catch (RejectedExecutionException e) {
+      ThreadPool.POOL_TASK_REJECTED.inc(name);
+      throw e;
+    }
+  }
+
+}
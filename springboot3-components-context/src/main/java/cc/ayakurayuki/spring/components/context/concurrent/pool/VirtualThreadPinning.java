@@ -0,0 +1,87 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.env.Environment;
+import cc.ayakurayuki.spring.components.env.Environments;
+import cc.ayakurayuki.spring.components.env.Key;
+import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count virtual thread pinning by executor name, from the JFR event {@code jdk.VirtualThreadPinned}
+ * (a virtual thread blocked over 20ms while pinned to its carrier, e.g. in a {@code synchronized}
+ * block or a native frame).
+ * <p>
+ * Off by default, a JFR recording stream costs every process that creates a bounded virtual
+ * executor. Turn it on by environment {@code virtual_thread_pinning_monitor=true}, then the
+ * stream starts with the first watched executor. A pinned thread is attributed to the executor whose
+ * name is the longest prefix of the thread name.
+ *
+ * @author Ayakura Yuki
+ */
+@Slf4j
+final class VirtualThreadPinning {
+
+  private static final String EVENT_NAME = "jdk.VirtualThreadPinned";
+
+  private static final Key<Boolean> PINNING_MONITOR = Environment.keyWithDefault("virtual_thread_pinning_monitor", Environments.BOOLEAN_MARSHALLER, false);
+
+  private static final Set<String> NAMES = ConcurrentHashMap.newKeySet();
+
+  private static volatile boolean started;
+
+  private VirtualThreadPinning() {
+  }
+
+  /**
+   * count pinning of virtual threads named with the prefix
+   */
+  static void watch(String name) {
+    NAMES.add(name);
+    if (!started) {
+      start();
+    }
+  }
+
+  private static synchronized void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    if (!Environment.ofNullable(PINNING_MONITOR).orElse(false)) {
+      return;
+    }
+    try {
+      RecordingStream stream = new RecordingStream();
+      stream.enable(EVENT_NAME).withThreshold(Duration.ofMillis(20));
+      stream.setMaxAge(Duration.ofMinutes(1));
+      stream.onEvent(EVENT_NAME, VirtualThreadPinning::onPinned);
+      stream.startAsync();
+    } catch (Throwable e) {
+      log.warn("virtual thread pinning monitor is not available: %s".formatted(e.getMessage()));
+    }
+  }
+
+  private static void onPinned(RecordedEvent event) {
+    RecordedThread thread = event.getThread();
+    String threadName = thread == null ? null : thread.getJavaName();
+    if (threadName == null) {
+      return;
+    }
+    String matched = null;
+    for (String name : NAMES) {
+      if (threadName.startsWith(name) && (matched == null || name.length() > matched.length())) {
+        matched = name;
+      }
+    }
+    if (matched != null) {
+      ThreadPool.POOL_VIRTUAL_PINNED.inc(matched);
+    }
+  }
+
+}
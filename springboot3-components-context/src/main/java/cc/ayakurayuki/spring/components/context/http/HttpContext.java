@@ -14,11 +14,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 /**
+ * Context of an HTTP server request.
+ * <p>
+ * Headers, parameters and their debug strings are read from the request only when something
+ * reads them, the request is dropped by {@link #release()} at the end of the request, after
+ * which nothing that was not read before is available. Handing the context off to another
+ * thread copies the headers and parameters, which are read from the copies from then on.
+ *
  * @author Yann
  */
 @Slf4j
@@ -28,38 +34,99 @@ public final class HttpContext extends Context<String, String[], String, String>
   private static final Joiner           joiner          = Joiner.on(",").skipNulls();
   private static final List<String>     excludeParams   = Lists.newArrayList("phone");
 
+  private final    HttpHeaderMetadata headers;
+  private volatile HttpServletRequest request;
+
   private HttpContext(String patternUrl, HttpServletRequest request) {
     super();
+    this.request = request;
     final String clientIP = request.getRemoteAddr();
     String realIP = this.getRealIp(request);
     int realPort = this.getRealPort(request);
     // http headers metadata
-    HashMap<String, String> metadata = new HashMap<>();
-    Enumeration<String> headerNames = request.getHeaderNames();
-    while (headerNames.hasMoreElements()) {
-      String headerName = headerNames.nextElement();
-      metadata.put(headerName, request.getHeader(headerName));
-    }
-    Optional.ofNullable(metadata.get(HttpHeaders.MIRROR))
+    this.headers = new HttpHeaderMetadata(request);
+    Optional.ofNullable(request.getHeader(HttpHeaders.MIRROR))
         .map(StringUtils::isNotEmpty)
         .ifPresent(this::setMirror);
     this.setIp(new IP(clientIP, realIP, realPort));
-    this.setParameter(request.getParameterMap());
-    this.setCaller(metadata.getOrDefault(HttpHeaders.CALLER, "unknown"));
+    this.setCaller(Optional.ofNullable(request.getHeader(HttpHeaders.CALLER)).orElse("unknown"));
     this.setPath(patternUrl);
-    this.setMetadata(metadata);
-    this.setDebugParameter(debugParameters(request));
-    try {
-      this.setDebugHeader(this.assembleRequestHeadersToQueryString(request));
-    } catch (Exception e) {
-      log.error("this.setDebugHeader exception!!", e);
-    }
+    this.setMetadata(this.headers);
   }
 
   public static HttpContext create(String patternUrl, HttpServletRequest request) {
     return new HttpContext(patternUrl, request);
   }
 
+  /**
+   * Drop the request, call it once the request is completed and before the servlet
+   * container recycles it.
+   */
+  public void release() {
+    this.request = null;
+    this.headers.release();
+  }
+
+  @Override
+  protected void onHandOff() {
+    HttpServletRequest carrier = this.request;
+    if (carrier == null || this.headers.isSnapshot()) {
+      return;
+    }
+    // the parameter map belongs to the request as well
+    Map<String, String[]> parameter = super.getParameter();
+    super.setParameter(Map.copyOf(parameter != null ? parameter : carrier.getParameterMap()));
+    this.headers.snapshot();
+  }
+
+  @Override
+  public Map<String, String[]> getParameter() {
+    Map<String, String[]> parameter = super.getParameter();
+    HttpServletRequest carrier = this.request;
+    if (parameter == null && carrier != null) {
+      parameter = carrier.getParameterMap();
+      super.setParameter(parameter);
+    }
+    return parameter;
+  }
+
+  @Override
+  public String getDebugParameter() {
+    String debugParameter = super.getDebugParameter();
+    if (debugParameter == null) {
+      Map<String, String[]> parameter = this.getParameter();
+      if (parameter != null) {
+        debugParameter = debugParameters(parameter);
+        super.setDebugParameter(debugParameter);
+      }
+    }
+    return debugParameter;
+  }
+
+  @Override
+  public String getDebugHeader() {
+    String debugHeader = super.getDebugHeader();
+    if (debugHeader != null) {
+      return debugHeader;
+    }
+    // the request is only read on its own thread, handed off contexts read the copied headers, also
+    // after the request is released
+    Map<String, String> copied = this.headers.joinedSnapshot();
+    HttpServletRequest carrier = this.request;
+    if (copied == null && carrier == null) {
+      return null;
+    }
+    try {
+      debugHeader = copied != null
+          ? assembleParamsToQueryString(new HashMap<>(copied), null)
+          : this.assembleRequestHeadersToQueryString(carrier);
+      super.setDebugHeader(debugHeader);
+    } catch (Exception e) {
+      log.error("this.setDebugHeader exception!!", e);
+    }
+    return debugHeader;
+  }
+
   public static String assembleParamsToQueryString(Map<String, String> params, String charset) throws UnsupportedEncodingException {
     if (params == null || params.isEmpty()) {
       return null;
@@ -156,19 +223,13 @@ public final class HttpContext extends Context<String, String[], String, String>
     return port;
   }
 
-  private String debugParameters(HttpServletRequest request) {
-    Map<String, String> parameters = request.getParameterMap()
-        .entrySet()
-        .stream()
-        .filter(s -> !excludeParams.contains(s.getKey()))
-        .collect(Collectors.toMap(
-            Map.Entry::getKey,
-            e -> {
-              String[] values = e.getValue();
-              return joiner.join(values);
-            },
-            (key1, key2) -> key2
-        ));
+  private String debugParameters(Map<String, String[]> parameter) {
+    Map<String, String> parameters = new HashMap<>();
+    for (Entry<String, String[]> entry : parameter.entrySet()) {
+      if (!excludeParams.contains(entry.getKey())) {
+        parameters.put(entry.getKey(), joiner.join(entry.getValue()));
+      }
+    }
     return parameterJoiner.join(parameters);
   }
 
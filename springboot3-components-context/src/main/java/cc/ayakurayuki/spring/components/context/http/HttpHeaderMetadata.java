@@ -0,0 +1,138 @@
+package cc.ayakurayuki.spring.components.context.http;
+
+import com.google.common.collect.Maps;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Read-only header metadata view reading from the live {@link HttpServletRequest} on demand.
+ * <p>
+ * The servlet container recycles the request after completion, the view must be
+ * {@link #release() released} by then and reads nothing afterward. The request is not safe to read
+ * from other threads either, the headers are copied by {@link #snapshot()} when the context is
+ * handed off to another thread, and read from the copy from then on. The view reads the first value
+ * of a header, like {@link HttpServletRequest#getHeader(String)}, the copy keeps all of them.
+ *
+ * @author Ayakura Yuki
+ */
+final class HttpHeaderMetadata extends AbstractMap<String, String> {
+
+  private volatile HttpServletRequest        request;
+  private volatile Map<String, List<String>> snapshot;
+
+  HttpHeaderMetadata(HttpServletRequest request) {
+    this.request = request;
+  }
+
+  void release() {
+    this.request = null;
+  }
+
+  /**
+   * Copy the headers, once, on the thread owning the request.
+   */
+  void snapshot() {
+    if (this.snapshot != null) {
+      return;
+    }
+    synchronized (this) {
+      HttpServletRequest carrier = this.request;
+      if (this.snapshot != null || carrier == null) {
+        return;
+      }
+      // header names are case-insensitive, like the request
+      Map<String, List<String>> copied = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (Enumeration<String> headerNames = carrier.getHeaderNames(); headerNames.hasMoreElements(); ) {
+        String headerName = headerNames.nextElement();
+        List<String> values = Collections.list(carrier.getHeaders(headerName));
+        if (!values.isEmpty()) {
+          copied.putIfAbsent(headerName, List.copyOf(values));
+        }
+      }
+      this.snapshot = Collections.unmodifiableMap(copied);
+    }
+  }
+
+  boolean isSnapshot() {
+    return this.snapshot != null;
+  }
+
+  /**
+   * @return the copied headers with all the values of a header joined by commas, null if not copied
+   */
+  Map<String, String> joinedSnapshot() {
+    Map<String, List<String>> copied = this.snapshot;
+    return copied == null ? null : Maps.transformValues(copied, values -> String.join(",", values));
+  }
+
+  @Override
+  public String get(Object key) {
+    Map<String, List<String>> copied = this.snapshot;
+    if (copied != null) {
+      List<String> values = key instanceof String ? copied.get(key) : null;
+      return values != null ? values.getFirst() : null;
+    }
+    HttpServletRequest carrier = this.request;
+    if (carrier == null || !(key instanceof String name)) {
+      return null;
+    }
+    return carrier.getHeader(name);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    Map<String, List<String>> copied = this.snapshot;
+    if (copied != null) {
+      return Maps.transformValues(copied, List::getFirst).entrySet();
+    }
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, String>> iterator() {
+        HttpServletRequest carrier = request;
+        if (carrier == null) {
+          return Collections.emptyIterator();
+        }
+        Enumeration<String> headerNames = carrier.getHeaderNames();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return headerNames.hasMoreElements();
+          }
+
+          @Override
+          public Entry<String, String> next() {
+            String headerName = headerNames.nextElement();
+            return new SimpleImmutableEntry<>(headerName, carrier.getHeader(headerName));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        HttpServletRequest carrier = request;
+        if (carrier == null) {
+          return 0;
+        }
+        int size = 0;
+        for (Enumeration<String> headerNames = carrier.getHeaderNames(); headerNames.hasMoreElements(); headerNames.nextElement()) {
+          size++;
+        }
+        return size;
+      }
+    };
+  }
+
+}
@@ -14,4 +14,7 @@ public class HttpHeaders {
   // 全链路压测 mirror
   public static final String MIRROR = "x1-ayspy-mirror";
 
+  // time budget of the caller in milliseconds
+  public static final String TIMEOUT = "x1-ayspy-timeout";
+
 }
@@ -5,30 +5,40 @@ import cc.ayakurayuki.spring.components.context.IP;
 import com.google.common.base.Strings;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.google.protobuf.TextFormat;
 import io.grpc.Grpc;
 import io.grpc.Metadata;
 import io.grpc.ServerCall;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import org.apache.commons.lang3.StringUtils;
 
+/**
+ * Context of an RPC server call.
+ * <p>
+ * Metadata is a view over the call headers, the request parameter and its debug string
+ * are built from the received message only when something reads them.
+ */
 public final class RpcContext extends Context<FieldDescriptor, Object, String, String> {
 
+  private static final TextFormat.Printer PRINTER = TextFormat.printer().escapingNonAscii(false);
+
+  private static final Metadata.Key<String> REMOTE_IP_KEY = Metadata.Key.of(RpcHeaders.REMOTE_IP, Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> X_REAL_IP_KEY = Metadata.Key.of(RpcHeaders.X_REAL_IP, Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> MIRROR_KEY    = Metadata.Key.of(RpcHeaders.MIRROR, Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> CALLER_KEY    = Metadata.Key.of(RpcHeaders.CALLER, Metadata.ASCII_STRING_MARSHALLER);
+
+  private volatile Message request;
+
   /**
    * Reference: <a href="https://github.com/grpc/grpc-java/blob/81da3eb95be37fa0647ce8da2e19de96ab84c600/context/src/test/java/io/grpc/ContextTest.java">ContextTest.java - grpc/grpc-java | Github.com</a>
    */
   @SuppressWarnings("rawtypes")
   private RpcContext(Metadata headers, ServerCall serverCall) {
-    final Map<String, String> metadata = new HashMap<>();
-    for (String key : headers.keys()) {
-      if (!key.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
-        String value = headers.get(Metadata.Key.of(key, Metadata.ASCII_STRING_MARSHALLER));
-        metadata.put(key, value);
-      }
-    }
+    final RpcHeaderMetadata metadata = new RpcHeaderMetadata(headers);
     this.setMetadata(metadata);
 
     SocketAddress addr = serverCall.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
@@ -36,16 +46,16 @@ public final class RpcContext extends Context<FieldDescriptor, Object, String, S
     if (addr instanceof InetSocketAddress isa) {
       clientIP = isa.getAddress().getHostAddress();
     }
-    String remoteIP = metadata.get(RpcHeaders.REMOTE_IP);
+    String remoteIP = metadata.get(REMOTE_IP_KEY);
     if (Strings.isNullOrEmpty(remoteIP)) {
-      remoteIP = metadata.getOrDefault(RpcHeaders.X_REAL_IP, clientIP);
+      remoteIP = Optional.ofNullable(metadata.get(X_REAL_IP_KEY)).orElse(clientIP);
     }
     final String title = serverCall.getMethodDescriptor().getFullMethodName();
 
-    Optional.ofNullable(metadata.get(RpcHeaders.MIRROR))
+    Optional.ofNullable(metadata.get(MIRROR_KEY))
         .map(StringUtils::isNotEmpty)
         .ifPresent(this::setMirror);
-    this.setCaller(metadata.getOrDefault(RpcHeaders.CALLER, "unknown"));
+    this.setCaller(Optional.ofNullable(metadata.get(CALLER_KEY)).orElse("unknown"));
     this.setPath(title);
     this.setRealPath(title);
     this.setIp(new IP(clientIP, remoteIP, 0));
@@ -56,6 +66,38 @@ public final class RpcContext extends Context<FieldDescriptor, Object, String, S
     return new RpcContext(metadata, serverCall);
   }
 
+  /**
+   * Keep the received request message, {@link #getParameter()} and {@link #getDebugParameter()}
+   * are built from it on the first read.
+   */
+  public void setRequest(Message request) {
+    this.request = request;
+    super.setParameter(null);
+    super.setDebugParameter(null);
+  }
+
+  @Override
+  public Map<FieldDescriptor, Object> getParameter() {
+    Map<FieldDescriptor, Object> parameter = super.getParameter();
+    Message message = this.request;
+    if (parameter == null && message != null) {
+      parameter = message.getAllFields();
+      super.setParameter(parameter);
+    }
+    return parameter;
+  }
+
+  @Override
+  public String getDebugParameter() {
+    String debugParameter = super.getDebugParameter();
+    Message message = this.request;
+    if (debugParameter == null && message != null) {
+      debugParameter = PRINTER.emittingSingleLine(true).printToString(message);
+      super.setDebugParameter(debugParameter);
+    }
+    return debugParameter;
+  }
+
   @Override
   public void setDebugParameter(String debugParameter) {
     super.setDebugParameter(debugParameter);
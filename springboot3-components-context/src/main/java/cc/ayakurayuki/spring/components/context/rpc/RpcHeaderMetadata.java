@@ -0,0 +1,69 @@
+package cc.ayakurayuki.spring.components.context.rpc;
+
+import io.grpc.Metadata;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only ASCII metadata view reading from the gRPC {@link Metadata} on demand,
+ * binary headers are skipped.
+ *
+ * @author Ayakura Yuki
+ */
+final class RpcHeaderMetadata extends AbstractMap<String, String> {
+
+  private final Metadata headers;
+
+  RpcHeaderMetadata(Metadata headers) {
+    this.headers = headers;
+  }
+
+  String get(Metadata.Key<String> key) {
+    return this.headers.get(key);
+  }
+
+  @Override
+  public String get(Object key) {
+    if (!(key instanceof String name) || name.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
+      return null;
+    }
+    try {
+      return this.headers.get(Metadata.Key.of(name, Metadata.ASCII_STRING_MARSHALLER));
+    } catch (IllegalArgumentException e) {
+      return null; // not a legal header name
+    }
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, String>> iterator() {
+        return asciiKeys().stream()
+            .map(key -> (Entry<String, String>) new SimpleImmutableEntry<>(key, get(key)))
+            .iterator();
+      }
+
+      @Override
+      public int size() {
+        return asciiKeys().size();
+      }
+    };
+  }
+
+  private Set<String> asciiKeys() {
+    // the key set of the metadata is unmodifiable, filter into a new one
+    return this.headers.keys().stream()
+        .filter(key -> !key.endsWith(Metadata.BINARY_HEADER_SUFFIX))
+        .collect(Collectors.toSet());
+  }
+
+}
@@ -0,0 +1,82 @@
+package cc.ayakurayuki.spring.components.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ContextValuesTest {
+
+  @Test
+  void testWithValue() {
+    SimpleContext context = SimpleContext.create("test");
+    Key<Integer> first = Context.key("test-first");
+    Key<String> second = Context.keyWithDefault("test-second", "fallback");
+
+    assert second.get(context).equals("fallback");
+    context.withValue(first, 1);
+    context.withValue(second, "value");
+    assert first.get(context) == 1;
+    assert second.get(context).equals("value");
+
+    // keys with the same name share their value
+    Key<Integer> same = new Key<>("test-first");
+    assert same.equals(first) && same.hashCode() == first.hashCode();
+    assert same.get(context) == 1;
+    context.withValue(same, 2);
+    assert first.get(context) == 2;
+    assert !new Key<Integer>("test-other").equals(first);
+
+    // many keys spread over several chunks
+    List<Key<Integer>> keys = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      keys.add(Context.key("test-many-" + i));
+      context.withValue(keys.get(i), i);
+    }
+    for (int i = 0; i < 100; i++) {
+      assert keys.get(i).get(context) == i;
+    }
+  }
+
+  @Test
+  void testEquality() {
+    Key<Integer> key = Context.key("test-equality");
+    SimpleContext a = SimpleContext.create("test");
+    SimpleContext b = SimpleContext.create("test");
+    a.withValue(key, 1).withLogMetadata("k", "v");
+    b.withValue(key, 1).withLogMetadata(Map.of("k", "v"));
+    assert a.equals(b) && a.hashCode() == b.hashCode();
+
+    b.withValue(key, 2);
+    assert !a.equals(b);
+  }
+
+  @Test
+  void testLogMetadataSnapshot() {
+    SimpleContext context = SimpleContext.create("test");
+    assert context.getLogMetadata().isEmpty();
+
+    context.withLogMetadata("a", 1);
+    Map<String, Object> snapshot = context.getLogMetadata();
+    context.withLogMetadata(Map.of("b", 2, "a", 3));
+
+    assert snapshot.size() == 1 && snapshot.get("a").equals(1);
+    Map<String, Object> metadata = context.getLogMetadata();
+    assert metadata.size() == 2;
+    assert metadata.get("a").equals(3);
+    assert metadata.get("b").equals(2);
+  }
+
+  @Test
+  void testDeadlineKeyIsPrivate() {
+    SimpleContext context = SimpleContext.create("test");
+    Key<String> deadline = Context.key("deadline");
+    context.withValue(deadline, "not a deadline");
+    assert !context.hasDeadline();
+    context.withDeadlineAfter(1, TimeUnit.MINUTES);
+    assert context.hasDeadline() && !context.isDeadlineExpired();
+    assert deadline.get(context).equals("not a deadline");
+  }
+
+}
@@ -0,0 +1,143 @@
+package cc.ayakurayuki.spring.components.context.cache;
+
+import cc.ayakurayuki.spring.components.context.SimpleContext;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class BatchLoaderTest {
+
+  @Test
+  void testCoalesceKeysOfOneRequest() {
+    List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    BatchLoader<Integer, String> loader = BatchLoader.create("coalesce", users(batches), 100, Duration.ofMillis(20));
+    List<CompletableFuture<String>> futures = SimpleContext.create("test").supplier(() -> List.of(
+        loader.load(1),
+        loader.load(2),
+        loader.load(1),
+        loader.load(404)));
+    assert futures.get(0).join().equals("user-1");
+    assert futures.get(1).join().equals("user-2");
+    assert futures.get(2).join().equals("user-1");
+    // keys missing from the bulk result complete with null
+    assert futures.get(3).join() == null;
+    // duplicated keys are loaded once, in one call
+    assert batches.equals(List.of(List.of(1, 2, 404))) : batches;
+  }
+
+  @Test
+  void testRequestsNotBatchedTogether() {
+    List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    BatchLoader<Integer, String> loader = BatchLoader.create("requests", users(batches), 100, Duration.ofMillis(20));
+    CompletableFuture<String> a = SimpleContext.create("a").supplier(() -> loader.load(1));
+    CompletableFuture<String> b = SimpleContext.create("b").supplier(() -> loader.load(2));
+    assert a.join().equals("user-1");
+    assert b.join().equals("user-2");
+    assert batches.size() == 2 : batches;
+  }
+
+  @Test
+  void testFullBatchSentBeforeWindow() throws Exception {
+    List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    BatchLoader<Integer, String> loader = BatchLoader.create("max-size", users(batches), 2, Duration.ofSeconds(5));
+    List<CompletableFuture<String>> futures = SimpleContext.create("test").supplier(() -> List.of(
+        loader.load(1),
+        loader.load(2),
+        loader.load(3)));
+    // the full batch does not wait for the 5s window
+    assert futures.get(0).get(1, TimeUnit.SECONDS).equals("user-1");
+    assert futures.get(1).get(1, TimeUnit.SECONDS).equals("user-2");
+    assert !futures.get(2).isDone();
+    assert batches.equals(List.of(List.of(1, 2))) : batches;
+  }
+
+  @Test
+  void testBatchSentWhenWindowClosed() throws Exception {
+    List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    BatchLoader<Integer, String> loader = BatchLoader.create("window", users(batches), 100, Duration.ofMillis(100));
+    SimpleContext context = SimpleContext.create("test");
+    long start = System.nanoTime();
+    CompletableFuture<String> future = context.supplier(() -> loader.load(1));
+    assert !future.isDone();
+    assert future.get(1, TimeUnit.SECONDS).equals("user-1");
+    assert System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100);
+    assert batches.equals(List.of(List.of(1))) : batches;
+
+    // the next load of the same request starts a new batch
+    CompletableFuture<String> next = context.supplier(() -> loader.load(2));
+    assert next.get(1, TimeUnit.SECONDS).equals("user-2");
+    assert batches.size() == 2 : batches;
+  }
+
+  @Test
+  void testDeadlineExpired() {
+    BatchLoader<Integer, String> loader = BatchLoader.create("deadline", keys -> new CompletableFuture<>(), 100, Duration.ofMillis(1));
+
+    // the bulk call never completes, the deadline fails the batch
+    SimpleContext context = SimpleContext.create("test");
+    context.withDeadlineAfter(100, TimeUnit.MILLISECONDS);
+    CompletableFuture<String> future = context.supplier(() -> loader.load(1));
+    assertFails(future, TimeoutException.class);
+
+    // an expired deadline fails before batching
+    SimpleContext expired = SimpleContext.create("test");
+    expired.withDeadlineAfter(0, TimeUnit.MILLISECONDS);
+    CompletableFuture<String> immediate = expired.supplier(() -> loader.load(1));
+    assert immediate.isCompletedExceptionally();
+    assertFails(immediate, TimeoutException.class);
+  }
+
+  @Test
+  void testLoaderFailureFailsBatch() {
+    BatchLoader<Integer, String> thrown = BatchLoader.create("thrown", keys -> {
+      throw new IllegalStateException("boom");
+    }, 100, Duration.ofMillis(1));
+    List<CompletableFuture<String>> a = SimpleContext.create("test").supplier(() -> List.of(thrown.load(1), thrown.load(2)));
+    a.forEach(future -> assertFails(future, IllegalStateException.class));
+
+    BatchLoader<Integer, String> failed = BatchLoader.create("failed",
+        keys -> CompletableFuture.failedFuture(new IllegalArgumentException("boom")), 100, Duration.ofMillis(1));
+    List<CompletableFuture<String>> b = SimpleContext.create("test").supplier(() -> List.of(failed.load(1), failed.load(2)));
+    b.forEach(future -> assertFails(future, IllegalArgumentException.class));
+  }
+
+  @Test
+  void testLoadWithoutRequest() {
+    List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    BatchLoader<Integer, String> loader = BatchLoader.create("empty", users(batches), 100, Duration.ofSeconds(30));
+    // no request to batch with, sent at once
+    assert loader.load(1).join().equals("user-1");
+    assert loader.loadMany(List.of(2, 3)).join().equals(Map.of(2, "user-2", 3, "user-3"));
+    assert batches.size() == 3 : batches;
+  }
+
+  private static Function<List<Integer>, CompletableFuture<Map<Integer, String>>> users(List<List<Integer>> batches) {
+    return keys -> {
+      batches.add(keys);
+      Map<Integer, String> values = new HashMap<>();
+      keys.stream().filter(k -> k != 404).forEach(k -> values.put(k, "user-" + k));
+      return CompletableFuture.completedFuture(values);
+    };
+  }
+
+  private static void assertFails(CompletableFuture<?> future, Class<? extends Throwable> cause) {
+    try {
+      future.get(1, TimeUnit.SECONDS);
+      assert false : "load must fail";
+    } catch (ExecutionException e) {
+      assert cause.isInstance(e.getCause()) : e.getCause();
+    } catch (Exception e) {
+      throw new AssertionError(e);
+    }
+  }
+
+}
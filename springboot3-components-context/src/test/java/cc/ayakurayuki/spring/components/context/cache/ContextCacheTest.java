@@ -0,0 +1,154 @@
+package cc.ayakurayuki.spring.components.context.cache;
+
+import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.SimpleContext;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ContextCacheTest {
+
+  @Test
+  void testLoadOncePerRequest() {
+    AtomicInteger loads = new AtomicInteger();
+    SimpleContext context = SimpleContext.create("test");
+    context.run(() -> {
+      assert ContextCache.computeIfAbsent("user", 1, k -> "user-" + k + "-" + loads.incrementAndGet()).equals("user-1-1");
+      assert ContextCache.computeIfAbsent("user", 1, k -> "user-" + k + "-" + loads.incrementAndGet()).equals("user-1-1");
+      assert ContextCache.computeIfAbsent("user", 2, k -> "user-" + k + "-" + loads.incrementAndGet()).equals("user-2-2");
+      // key spaces do not share keys
+      assert ContextCache.computeIfAbsent("order", 1, k -> "order-" + k).equals("order-1");
+      assert ContextCache.computeIfAbsentAsync("user", 1, k -> CompletableFuture.completedFuture("async")).join().equals("user-1-1");
+    });
+    assert loads.get() == 2;
+
+    // a discarded cache loads again
+    ContextCache.discard(context);
+    context.run(() -> ContextCache.computeIfAbsent("user", 1, k -> "user-" + k + "-" + loads.incrementAndGet()));
+    assert loads.get() == 3;
+  }
+
+  @Test
+  void testFailureNotCached() {
+    AtomicInteger loads = new AtomicInteger();
+    SimpleContext.create("test").run(() -> {
+      try {
+        ContextCache.computeIfAbsent("user", 1, k -> {
+          loads.incrementAndGet();
+          throw new IllegalArgumentException("failed");
+        });
+        assert false;
+      } catch (IllegalArgumentException expected) {
+        // expected
+      }
+      assert ContextCache.computeIfAbsent("user", 1, k -> "user-" + loads.incrementAndGet()).equals("user-2");
+
+      CompletableFuture<String> failed = ContextCache.computeIfAbsentAsync("async", 1, k -> CompletableFuture.failedFuture(new IllegalStateException()));
+      assert failed.isCompletedExceptionally();
+      assert ContextCache.computeIfAbsentAsync("async", 1, k -> CompletableFuture.completedFuture("loaded")).join().equals("loaded");
+    });
+  }
+
+  @Test
+  void testNullOrThrowingAsyncLoaderNotCached() {
+    AtomicInteger loads = new AtomicInteger();
+    SimpleContext.create("test").run(() -> {
+      CompletableFuture<String> nulled = ContextCache.computeIfAbsentAsync("user", 1, k -> {
+        loads.incrementAndGet();
+        return null;
+      });
+      assertFails(nulled, NullPointerException.class);
+      CompletableFuture<String> thrown = ContextCache.computeIfAbsentAsync("user", 1, k -> {
+        loads.incrementAndGet();
+        throw new IllegalArgumentException("boom");
+      });
+      assertFails(thrown, IllegalArgumentException.class);
+      // neither is cached, the next caller loads again instead of waiting forever
+      assert ContextCache.computeIfAbsentAsync("user", 1, k -> {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture("user-1");
+      }).join().equals("user-1");
+    });
+    assert loads.get() == 3;
+  }
+
+  private static void assertFails(CompletableFuture<?> future, Class<? extends Throwable> cause) {
+    try {
+      future.get(1, TimeUnit.SECONDS);
+      assert false : "load must fail";
+    } catch (ExecutionException e) {
+      assert cause.isInstance(e.getCause()) : e.getCause();
+    } catch (Exception e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Test
+  void testRecursiveLoadFails() {
+    SimpleContext.create("test").run(() -> {
+      try {
+        ContextCache.computeIfAbsent("user", 1, k -> ContextCache.computeIfAbsent("user", k, k2 -> "inner"));
+        assert false;
+      } catch (IllegalStateException expected) {
+        // expected
+      }
+      CompletableFuture<String> async = ContextCache.computeIfAbsentAsync("async", 1, k -> CompletableFuture.completedFuture(ContextCache.computeIfAbsent("async", k, k2 -> "inner")));
+      try {
+        async.join();
+        assert false;
+      } catch (CompletionException expected) {
+        assert expected.getCause() instanceof IllegalStateException;
+      }
+      // the failed loads are not cached, another key in the loader is fine
+      assert ContextCache.computeIfAbsent("user", 1, k -> ContextCache.computeIfAbsent("user", 2, k2 -> "inner")).equals("inner");
+      assert ContextCache.computeIfAbsent("user", 2, k -> "other").equals("inner");
+    });
+  }
+
+  @Test
+  void testConcurrentLoadsWait() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    SimpleContext context = SimpleContext.create("test");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first = executor.submit(() -> context.supplier(() -> ContextCache.computeIfAbsent("user", 1, k -> {
+        loads.incrementAndGet();
+        loading.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return "loaded";
+      })));
+      assert loading.await(10, TimeUnit.SECONDS);
+      Future<String> second = executor.submit(() -> context.supplier(() -> ContextCache.computeIfAbsent("user", 1, k -> "again-" + loads.incrementAndGet())));
+      release.countDown();
+      assert first.get(10, TimeUnit.SECONDS).equals("loaded");
+      assert second.get(10, TimeUnit.SECONDS).equals("loaded");
+      assert loads.get() == 1;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testNoContextPassThrough() {
+    AtomicInteger loads = new AtomicInteger();
+    assert Context.current().isEmpty();
+    ContextCache.computeIfAbsent("user", 1, k -> loads.incrementAndGet());
+    ContextCache.computeIfAbsent("user", 1, k -> loads.incrementAndGet());
+    assert loads.get() == 2;
+    ContextCache.discard(Context.empty());
+  }
+
+}
@@ -0,0 +1,46 @@
+package cc.ayakurayuki.spring.components.context.concurrent;
+
+import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.SimpleContext;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ContextFuturesTest {
+
+  @Test
+  void testEmptyContextHandsOff() throws Exception {
+    SettableFuture<String> future = SettableFuture.create();
+    CompletableFuture<String> thread = ContextFutures.asCompletableFuture(future).thenApply(v -> Thread.currentThread().getName());
+
+    // the completing thread has the empty context too, but must not run the dependent stage
+    Thread eventLoop = new Thread(() -> future.set("done"), "event-loop");
+    eventLoop.start();
+    eventLoop.join();
+    assert !thread.get(10, TimeUnit.SECONDS).equals("event-loop");
+  }
+
+  @Test
+  void testSameContextInPlace() throws Exception {
+    SimpleContext context = SimpleContext.create("test");
+    SettableFuture<String> future = SettableFuture.create();
+    CompletableFuture<?> current = context.supplier(() -> ContextFutures.asCompletableFuture(future).thenApply(v -> Context.current()));
+
+    Thread completing = new Thread(() -> context.run(() -> future.set("done")), "completing");
+    completing.start();
+    completing.join();
+    // completed in place by the thread with the same context
+    assert current.isDone() && current.get() == context;
+  }
+
+  @Test
+  void testCallerContextRestored() throws Exception {
+    SimpleContext context = SimpleContext.create("test");
+    SettableFuture<String> future = SettableFuture.create();
+    CompletableFuture<?> current = context.supplier(() -> ContextFutures.asCompletableFuture(future).thenApply(v -> Context.current()));
+    future.set("done");
+    assert current.get(10, TimeUnit.SECONDS) == context;
+  }
+
+}
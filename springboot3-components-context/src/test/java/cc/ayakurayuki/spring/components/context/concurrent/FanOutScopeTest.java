@@ -0,0 +1,168 @@
+package cc.ayakurayuki.spring.components.context.concurrent;
+
+import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.SimpleContext;
+import cc.ayakurayuki.spring.components.context.concurrent.FanOutScope.Subtask;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class FanOutScopeTest {
+
+  private static final ContextKey<String> OTEL_KEY = ContextKey.named("fan-out-test");
+
+  @Test
+  void testResultsInForkOrder() throws Exception {
+    try (FanOutScope<Integer> scope = FanOutScope.open("test-fan-out")) {
+      for (int i = 0; i < 10; i++) {
+        int value = i;
+        scope.fork(() -> {
+          Thread.sleep(10 - value); // finish in reverse order
+          return value;
+        });
+      }
+      assert scope.join().results().equals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+      assert !scope.isTimedOut();
+    }
+  }
+
+  @Test
+  void testFirstFailureCancelsSiblings() throws Exception {
+    AtomicInteger interrupted = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(3);
+    IllegalStateException boom = new IllegalStateException("boom");
+    List<Subtask<String>> siblings = new ArrayList<>();
+    Subtask<String> failing;
+    try (FanOutScope<String> scope = FanOutScope.open("test-fan-out")) {
+      for (int i = 0; i < 3; i++) {
+        siblings.add(scope.fork(() -> {
+          started.countDown();
+          try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+          } catch (InterruptedException e) {
+            interrupted.incrementAndGet();
+            throw e;
+          }
+          return "late";
+        }));
+      }
+      failing = scope.fork(() -> {
+        assert started.await(5, TimeUnit.SECONDS);
+        throw boom;
+      });
+
+      long start = System.nanoTime();
+      try {
+        scope.join();
+        assert false : "join must fail";
+      } catch (ExecutionException e) {
+        assert e.getCause() == boom;
+      }
+      assert System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5) : "siblings are not awaited";
+    }
+    // close waits for the cancelled siblings to exit
+    assert interrupted.get() == 3;
+    assert failing.state() == Subtask.State.FAILED && failing.exception() == boom;
+    for (Subtask<String> sibling : siblings) {
+      assert sibling.state() == Subtask.State.UNAVAILABLE;
+    }
+  }
+
+  @Test
+  void testParallelismBound() throws Exception {
+    int parallelism = 3;
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    try (FanOutScope<Integer> scope = FanOutScope.open("test-fan-out", parallelism, Duration.ofSeconds(10))) {
+      for (int i = 0; i < 30; i++) {
+        int value = i;
+        scope.fork(() -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            Thread.sleep(5);
+          } finally {
+            running.decrementAndGet();
+          }
+          return value;
+        });
+      }
+      assert scope.join().results().size() == 30;
+    }
+    assert maxRunning.get() <= parallelism : "max running " + maxRunning.get();
+    assert maxRunning.get() > 0;
+  }
+
+  @Test
+  void testDeadlinePartialResults() throws Exception {
+    List<Subtask<Integer>> subtasks = new ArrayList<>();
+    try (FanOutScope<Integer> scope = FanOutScope.open("test-fan-out", 8, Duration.ofMillis(200))) {
+      for (int i = 0; i < 6; i++) {
+        int value = i;
+        subtasks.add(scope.fork(() -> {
+          if (value % 2 == 1) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10)); // the odd ones never make the deadline
+          }
+          return value;
+        }));
+      }
+      long start = System.nanoTime();
+      scope.join();
+      assert System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5);
+      assert scope.isTimedOut();
+      // the finished ones, in fork order whatever order they finished in
+      assert scope.results().equals(List.of(0, 2, 4)) : scope.results();
+    }
+    for (int i = 0; i < subtasks.size(); i++) {
+      assert subtasks.get(i).state() == (i % 2 == 0 ? Subtask.State.SUCCESS : Subtask.State.UNAVAILABLE);
+    }
+  }
+
+  @Test
+  void testContextDeadline() throws Exception {
+    SimpleContext context = SimpleContext.create("test");
+    context.withDeadlineAfter(100, TimeUnit.MILLISECONDS);
+    List<Integer> results = context.callable(() -> {
+      // the deadline of the request caps the longer timeout
+      try (FanOutScope<Integer> scope = FanOutScope.open("test-fan-out", 8, Duration.ofSeconds(10))) {
+        scope.fork(() -> 1);
+        scope.fork(() -> {
+          Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+          return 2;
+        });
+        assert scope.join().isTimedOut();
+        return scope.results();
+      }
+    });
+    assert results.equals(List.of(1));
+  }
+
+  @Test
+  void testContextPropagation() throws Exception {
+    SimpleContext context = SimpleContext.create("test");
+    io.opentelemetry.context.Context otelContext = io.opentelemetry.context.Context.root().with(OTEL_KEY, "value");
+    List<String> results;
+    try (Scope ignored = otelContext.makeCurrent()) {
+      results = context.callable(() -> {
+        try (FanOutScope<String> scope = FanOutScope.open("test-fan-out", 2, null)) {
+          for (int i = 0; i < 4; i++) {
+            scope.fork(() -> {
+              assert Context.current() == context;
+              assert Thread.currentThread().isVirtual();
+              return io.opentelemetry.context.Context.current().get(OTEL_KEY);
+            });
+          }
+          return scope.join().results();
+        }
+      });
+    }
+    assert results.equals(List.of("value", "value", "value", "value")) : results;
+  }
+
+}
@@ -0,0 +1,109 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class KeyedExecutorTest {
+
+  @Test
+  void testOrderPerKey() throws Exception {
+    KeyedExecutor executor = KeyedExecutor.create("test-keyed-order", 4);
+    int keys = 8;
+    int perKey = 1000;
+    Map<Integer, List<Integer>> runs = new ConcurrentHashMap<>();
+    List<Thread> submitters = new ArrayList<>();
+    for (int k = 0; k < keys; k++) {
+      int key = k;
+      runs.put(key, new CopyOnWriteArrayList<>());
+      Thread submitter = new Thread(() -> {
+        for (int i = 0; i < perKey; i++) {
+          int n = i;
+          executor.execute(key, () -> runs.get(key).add(n));
+        }
+      });
+      submitters.add(submitter);
+      submitter.start();
+    }
+    for (Thread submitter : submitters) {
+      submitter.join();
+    }
+    executor.shutdown();
+    assert executor.awaitTermination(30, TimeUnit.SECONDS);
+
+    for (List<Integer> run : runs.values()) {
+      assert run.size() == perKey;
+      for (int i = 0; i < perKey; i++) {
+        assert run.get(i) == i : "out of order " + run.get(i) + " at " + i;
+      }
+    }
+    assert executor.getPendingTasks() == 0 && executor.getPendingKeys() == 0;
+  }
+
+  @Test
+  void testKeysInParallel() throws Exception {
+    KeyedExecutor executor = KeyedExecutor.create("test-keyed-parallel", 2);
+    try {
+      // both tasks must run at the same time to pass the barrier
+      CyclicBarrier barrier = new CyclicBarrier(2);
+      CompletableFuture<Integer> a = executor.submit("a", () -> barrier.await(10, TimeUnit.SECONDS));
+      CompletableFuture<Integer> b = executor.submit("b", () -> barrier.await(10, TimeUnit.SECONDS));
+      a.get(10, TimeUnit.SECONDS);
+      b.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testRejectAfterShutdown() throws Exception {
+    KeyedExecutor executor = KeyedExecutor.create("test-keyed-reject", 1);
+    executor.shutdown();
+    try {
+      executor.execute("a", () -> {});
+      assert false;
+    } catch (RejectedExecutionException expected) {
+      // expected
+    }
+    try {
+      executor.submit("a", () -> 1);
+      assert false;
+    } catch (RejectedExecutionException expected) {
+      // expected
+    }
+    assert executor.getPendingTasks() == 0 && executor.getPendingKeys() == 0;
+  }
+
+  @Test
+  void testAcceptedTasksRunAfterShutdown() throws Exception {
+    KeyedExecutor executor = KeyedExecutor.create("test-keyed-drain", 1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    AtomicInteger ran = new AtomicInteger();
+    executor.execute("a", () -> {
+      try {
+        blocked.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    // more than a batch, the queue can't yield its worker to a pool shut down meanwhile
+    for (int i = 0; i < 100; i++) {
+      executor.execute("a", ran::incrementAndGet);
+    }
+    executor.shutdown();
+    blocked.countDown();
+    assert executor.awaitTermination(10, TimeUnit.SECONDS);
+    assert ran.get() == 100;
+    assert executor.getPendingTasks() == 0 && executor.getPendingKeys() == 0;
+  }
+
+}
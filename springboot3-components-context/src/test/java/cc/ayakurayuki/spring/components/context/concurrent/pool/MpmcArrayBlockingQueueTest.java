@@ -0,0 +1,139 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class MpmcArrayBlockingQueueTest {
+
+  @Test
+  void testBoundedFifo() throws InterruptedException {
+    MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(3);
+    assert queue.capacity() == 4;
+    assert queue.isEmpty() && queue.poll() == null && queue.peek() == null;
+
+    for (int i = 0; i < 4; i++) {
+      assert queue.offer(i);
+    }
+    assert !queue.offer(4);
+    assert queue.size() == 4 && queue.remainingCapacity() == 0;
+    assert !queue.offer(4, 10, TimeUnit.MILLISECONDS);
+
+    // wraps around the array for several laps
+    for (int i = 0; i < 100; i++) {
+      assert queue.peek() == i;
+      assert queue.poll() == i;
+      assert queue.offer(i + 4);
+    }
+    List<Integer> drained = new ArrayList<>();
+    assert queue.drainTo(drained) == 4;
+    assert drained.equals(List.of(100, 101, 102, 103));
+    assert queue.poll(10, TimeUnit.MILLISECONDS) == null;
+  }
+
+  @Test
+  void testConcurrentTransfer() throws Exception {
+    MpmcArrayBlockingQueue<Long> queue = new MpmcArrayBlockingQueue<>(16);
+    int producers = 8;
+    int consumers = 4;
+    int perProducer = 20_000;
+    AtomicLong sum = new AtomicLong();
+    ExecutorService threads = Executors.newFixedThreadPool(producers + consumers);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int c = 0; c < consumers; c++) {
+        futures.add(threads.submit(() -> {
+          for (int n = 0; n < producers * perProducer / consumers; n++) {
+            sum.addAndGet(queue.take());
+          }
+          return null;
+        }));
+      }
+      for (int p = 0; p < producers; p++) {
+        futures.add(threads.submit(() -> {
+          for (long n = 1; n <= perProducer; n++) {
+            queue.put(n);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      threads.shutdownNow();
+    }
+    assert sum.get() == (long) producers * perProducer * (perProducer + 1) / 2;
+    assert queue.isEmpty();
+  }
+
+  @Test
+  void testRemoveFromMiddle() {
+    MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(4);
+    for (int i = 0; i < 4; i++) {
+      assert queue.offer(i);
+    }
+    assert queue.remove(Integer.valueOf(1));
+    assert !queue.remove(Integer.valueOf(1));
+    assert !queue.remove(Integer.valueOf(9));
+    assert queue.size() == 3 && queue.contains(2) && !queue.contains(1);
+    // the removed slot holds its capacity until it reaches the head
+    assert queue.remainingCapacity() == 0 && !queue.offer(4);
+
+    assert queue.remove(Integer.valueOf(0));
+    assert queue.peek() == 2;
+    assert queue.poll() == 2;
+    assert queue.remainingCapacity() == 3 && queue.offer(4);
+
+    Iterator<Integer> iterator = queue.iterator();
+    assert iterator.next() == 3;
+    iterator.remove();
+    assert iterator.next() == 4;
+    assert !iterator.hasNext();
+    assert queue.size() == 1 && queue.poll() == 4;
+    assert queue.isEmpty() && queue.poll() == null && queue.peek() == null;
+  }
+
+  @Test
+  void testPurge() throws Exception {
+    ThreadPoolExecutor executor = ThreadPools.newFixedThreadPool("test-purge", 1, 16);
+    try {
+      CountDownLatch blocked = new CountDownLatch(1);
+      executor.execute(() -> {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      FutureTask<String> removed = new FutureTask<>(() -> "removed");
+      executor.execute(removed);
+      Future<?> cancelled = executor.submit(() -> {});
+      Future<String> kept = executor.submit(() -> "kept");
+      assert executor.getQueue().size() == 3;
+
+      assert executor.remove(removed);
+      assert !executor.remove(removed);
+      cancelled.cancel(false);
+      executor.purge();
+      assert executor.getQueue().size() == 1;
+      assert ((Executor) executor).getSubmittedCount() == 2; // the blocked and the kept one
+
+      blocked.countDown();
+      assert kept.get(10, TimeUnit.SECONDS).equals("kept");
+      assert !removed.isDone();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,126 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TaskQueueTest {
+
+  @Test
+  void testShedBySojournTime() throws Exception {
+    List<Runnable> shed = new CopyOnWriteArrayList<>();
+    ThreadPoolExecutor executor = ThreadPools.newSheddingThreadPool("test-shed", 1, 1, Duration.ofMillis(10), Duration.ofMillis(50), false, shed::add);
+    try {
+      CountDownLatch blocked = new CountDownLatch(1);
+      executor.execute(() -> await(blocked));
+      Future<?> late = executor.submit(() -> {});
+      Thread.sleep(100); // longer than the interval
+      blocked.countDown();
+
+      try {
+        late.get(10, TimeUnit.SECONDS);
+        assert false;
+      } catch (CancellationException expected) {
+        // expected
+      }
+      assert shed.size() == 1 && shed.getFirst() == late;
+      assert ((Executor) executor).getSubmittedCount() == 0;
+
+      // the queue drained, a fresh task runs
+      assert executor.submit(() -> "ok").get(10, TimeUnit.SECONDS).equals("ok");
+      assert shed.size() == 1;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testAdaptiveLifo() throws Exception {
+    List<Runnable> shed = new CopyOnWriteArrayList<>();
+    List<String> ran = new CopyOnWriteArrayList<>();
+    ThreadPoolExecutor executor = ThreadPools.newSheddingThreadPool("test-lifo", 1, 1, Duration.ofMillis(10), Duration.ofMillis(50), true, shed::add);
+    try {
+      CountDownLatch blocked = new CountDownLatch(1);
+      executor.execute(() -> await(blocked));
+      Future<?> old = executor.submit(() -> ran.add("old"));
+      Thread.sleep(100); // the queue is overloaded
+      Future<?> fresh = executor.submit(() -> ran.add("fresh"));
+      blocked.countDown();
+
+      // the newest task is served first, the backlog is shed
+      fresh.get(10, TimeUnit.SECONDS);
+      try {
+        old.get(10, TimeUnit.SECONDS);
+        assert false;
+      } catch (CancellationException expected) {
+        // expected
+      }
+      assert ran.equals(List.of("fresh"));
+      assert shed.size() == 1 && shed.getFirst() == old;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testNoSheddingWithinInterval() throws Exception {
+    List<Runnable> shed = new CopyOnWriteArrayList<>();
+    ThreadPoolExecutor executor = ThreadPools.newSheddingThreadPool("test-no-shed", 1, 1, Duration.ofMillis(10), Duration.ofSeconds(10), false, shed::add);
+    try {
+      CountDownLatch blocked = new CountDownLatch(1);
+      executor.execute(() -> await(blocked));
+      Future<String> waiting = executor.submit(() -> "ok");
+      Thread.sleep(50); // longer than the target, the queue is not overloaded
+      blocked.countDown();
+      assert waiting.get(10, TimeUnit.SECONDS).equals("ok");
+      assert shed.isEmpty();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testScalableOverMpmcQueue() throws Exception {
+    ThreadPoolExecutor executor = ThreadPools.newScalableThreadPool("test-scalable-mpmc", 1, 2, 2);
+    try {
+      CountDownLatch blocked = new CountDownLatch(1);
+      executor.execute(() -> await(blocked));
+      // threads are spawned up to the max before tasks are queued
+      executor.execute(() -> await(blocked));
+      assert executor.getPoolSize() == 2;
+      Future<String> a = executor.submit(() -> "a");
+      Future<String> b = executor.submit(() -> "b");
+      assert executor.getQueue().size() == 2;
+      // the queue is full
+      try {
+        executor.execute(() -> {});
+        assert false;
+      } catch (RejectedExecutionException expected) {
+        // expected
+      }
+      assert ((Executor) executor).getSubmittedCount() == 4;
+
+      blocked.countDown();
+      assert a.get(10, TimeUnit.SECONDS).equals("a");
+      assert b.get(10, TimeUnit.SECONDS).equals("b");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
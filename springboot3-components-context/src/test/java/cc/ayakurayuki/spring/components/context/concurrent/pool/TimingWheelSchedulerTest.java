@@ -0,0 +1,123 @@
+package cc.ayakurayuki.spring.components.context.concurrent.pool;
+
+import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.SimpleContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelSchedulerTest {
+
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  void testNeverFireEarly() throws InterruptedException {
+    ExecutorService worker = Executors.newCachedThreadPool();
+    TimingWheelScheduler scheduler = new TimingWheelScheduler("test-wheel", TICK_NANOS, worker);
+    int tasks = 2000;
+    CountDownLatch latch = new CountDownLatch(tasks);
+    AtomicInteger early = new AtomicInteger();
+    AtomicLong maxLateNanos = new AtomicLong();
+    for (int i = 0; i < tasks; i++) {
+      // delays across the first two levels of the wheel
+      long delayNanos = TimeUnit.MICROSECONDS.toNanos((i * 397L) % 600_000);
+      long due = System.nanoTime() + delayNanos;
+      scheduler.schedule(() -> {
+        long late = System.nanoTime() - due;
+        if (late < 0) {
+          early.incrementAndGet();
+        }
+        maxLateNanos.accumulateAndGet(late, Math::max);
+        latch.countDown();
+      }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+    assert latch.await(10, TimeUnit.SECONDS);
+    assert early.get() == 0;
+    System.out.printf("max late: %.3fms%n", maxLateNanos.get() / 1e6);
+
+    scheduler.shutdown();
+    assert scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    assert scheduler.getPending() == 0;
+    worker.shutdown();
+  }
+
+  @Test
+  void testCancel() throws Exception {
+    ExecutorService worker = Executors.newCachedThreadPool();
+    TimingWheelScheduler scheduler = new TimingWheelScheduler("test-wheel", TICK_NANOS, worker);
+    AtomicInteger ran = new AtomicInteger();
+    List<ScheduledFuture<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      futures.add(scheduler.schedule(ran::incrementAndGet, 5 + i % 1000, TimeUnit.SECONDS));
+    }
+    for (ScheduledFuture<?> future : futures) {
+      assert future.cancel(false);
+    }
+    assert scheduler.schedule(() -> 42, 10, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS) == 42;
+
+    scheduler.shutdown();
+    assert scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    assert ran.get() == 0;
+    assert scheduler.getPending() == 0;
+    worker.shutdown();
+  }
+
+  @Test
+  void testPeriodic() throws InterruptedException {
+    ExecutorService worker = Executors.newCachedThreadPool();
+    TimingWheelScheduler scheduler = new TimingWheelScheduler("test-wheel", TICK_NANOS, worker);
+    CountDownLatch fixedRate = new CountDownLatch(5);
+    CountDownLatch fixedDelay = new CountDownLatch(5);
+    ScheduledFuture<?> rate = scheduler.scheduleAtFixedRate(fixedRate::countDown, 0, 10, TimeUnit.MILLISECONDS);
+    ScheduledFuture<?> delay = scheduler.scheduleWithFixedDelay(fixedDelay::countDown, 0, 10, TimeUnit.MILLISECONDS);
+    assert fixedRate.await(1, TimeUnit.SECONDS);
+    assert fixedDelay.await(1, TimeUnit.SECONDS);
+
+    // periodic tasks stop with the scheduler
+    scheduler.shutdown();
+    assert scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    assert rate.isCancelled() && delay.isCancelled();
+    worker.shutdown();
+  }
+
+  @Test
+  void testPeriodicDropsRequestContext() throws Exception {
+    ExecutorService worker = Executors.newCachedThreadPool();
+    TimingWheelScheduler scheduler = new TimingWheelScheduler("test-wheel", TICK_NANOS, worker);
+    SimpleContext context = SimpleContext.create("test");
+    CompletableFuture<Context> oneShot = new CompletableFuture<>();
+    CompletableFuture<Context> periodic = new CompletableFuture<>();
+    context.run(() -> {
+      scheduler.schedule(() -> oneShot.complete(Context.current()), 1, TimeUnit.MILLISECONDS);
+      scheduler.scheduleAtFixedRate(() -> periodic.complete(Context.current()), 1, 10, TimeUnit.MILLISECONDS);
+    });
+    assert oneShot.get(5, TimeUnit.SECONDS) == context;
+    // a schedule outliving the request must not keep its context reachable
+    assert periodic.get(5, TimeUnit.SECONDS).isEmpty();
+
+    scheduler.shutdownNow();
+    worker.shutdown();
+  }
+
+  @Test
+  void testShutdownNow() throws InterruptedException {
+    ExecutorService worker = Executors.newCachedThreadPool();
+    TimingWheelScheduler scheduler = new TimingWheelScheduler("test-wheel", TICK_NANOS, worker);
+    scheduler.schedule(() -> {}, 1, TimeUnit.HOURS);
+    scheduler.schedule(() -> {}, 1, TimeUnit.DAYS);
+    List<Runnable> dropped = scheduler.shutdownNow();
+    assert dropped.size() == 2;
+    assert scheduler.awaitTermination(1, TimeUnit.SECONDS);
+    assert scheduler.getPending() == 0;
+    worker.shutdown();
+  }
+
+}
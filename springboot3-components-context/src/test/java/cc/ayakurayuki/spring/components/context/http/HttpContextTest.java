@@ -0,0 +1,78 @@
+package cc.ayakurayuki.spring.components.context.http;
+
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class HttpContextTest {
+
+  private static final Map<String, List<String>> HEADERS = Map.of(
+      "Accept", List.of("text/html", "application/json"),
+      "X-Custom", List.of("custom")
+  );
+
+  private final AtomicInteger headerReads = new AtomicInteger();
+
+  @Test
+  void testAttachDoesNotCopy() {
+    HttpContext context = HttpContext.create("/test", request());
+    ContextSnapshot.of(context, io.opentelemetry.context.Context.root()).attach().close();
+    // attaching on the thread of the request copies nothing
+    assert headerReads.get() == 0;
+  }
+
+  @Test
+  void testWrapCopies() {
+    HttpContext context = HttpContext.create("/test", request());
+    ContextSnapshot.of(context, io.opentelemetry.context.Context.root()).wrap(() -> {});
+    int reads = headerReads.get();
+    assert reads > 0;
+    context.wrap(() -> {});
+    assert headerReads.get() == reads : "copied once";
+  }
+
+  @Test
+  void testDebugHeaderAfterRelease() {
+    HttpContext context = HttpContext.create("/test", request());
+    context.wrap(() -> {});
+    context.release();
+
+    String debugHeader = context.getDebugHeader();
+    assert debugHeader != null;
+    assert debugHeader.contains("Accept=text/html,application/json") : debugHeader;
+    assert debugHeader.contains("X-Custom=custom") : debugHeader;
+    // the map view reads the first value, like the request
+    assert context.getMetadata().get("accept").equals("text/html");
+  }
+
+  @Test
+  void testReleasedWithoutCopy() {
+    HttpContext context = HttpContext.create("/test", request());
+    context.release();
+    assert context.getDebugHeader() == null;
+    assert context.getMetadata().isEmpty();
+  }
+
+  private HttpServletRequest request() {
+    return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+      return switch (method.getName()) {
+        case "getRemoteAddr" -> "127.0.0.1";
+        case "getRemotePort" -> 8080;
+        case "getParameterMap" -> Map.of();
+        case "getHeaderNames" -> {
+          headerReads.incrementAndGet();
+          yield Collections.enumeration(HEADERS.keySet());
+        }
+        case "getHeaders" -> Collections.enumeration(HEADERS.getOrDefault((String) args[0], List.of()));
+        case "getHeader" -> HEADERS.getOrDefault((String) args[0], List.of()).stream().findFirst().orElse(null);
+        default -> null;
+      };
+    });
+  }
+
+}
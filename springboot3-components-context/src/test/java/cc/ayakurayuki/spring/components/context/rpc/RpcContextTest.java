@@ -0,0 +1,91 @@
+package cc.ayakurayuki.spring.components.context.rpc;
+
+import io.grpc.Attributes;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RpcContextTest {
+
+  private static final MethodDescriptor.Marshaller<byte[]> BYTES = new MethodDescriptor.Marshaller<>() {
+    @Override
+    public InputStream stream(byte[] value) {
+      return new ByteArrayInputStream(value);
+    }
+
+    @Override
+    public byte[] parse(InputStream stream) {
+      return new byte[0];
+    }
+  };
+
+  private static final MethodDescriptor<byte[], byte[]> METHOD = MethodDescriptor.<byte[], byte[]>newBuilder()
+      .setType(MethodDescriptor.MethodType.UNARY)
+      .setFullMethodName("test.Service/Method")
+      .setRequestMarshaller(BYTES)
+      .setResponseMarshaller(BYTES)
+      .build();
+
+  @Test
+  void testMetadataView() {
+    Metadata headers = new Metadata();
+    headers.put(Metadata.Key.of(RpcHeaders.CALLER, Metadata.ASCII_STRING_MARSHALLER), "test-caller");
+    headers.put(Metadata.Key.of("x-custom", Metadata.ASCII_STRING_MARSHALLER), "custom");
+    headers.put(Metadata.Key.of("x-trace-bin", Metadata.BINARY_BYTE_MARSHALLER), new byte[]{1, 2});
+
+    RpcContext context = RpcContext.create(headers, new TestServerCall());
+    Map<String, String> metadata = context.getMetadata();
+
+    assert context.getCaller().equals("test-caller");
+    assert context.getPath().equals("test.Service/Method");
+    assert metadata.size() == 2;
+    assert !metadata.isEmpty();
+    assert metadata.get("x-custom").equals("custom");
+    assert metadata.get("x-trace-bin") == null;
+    assert metadata.entrySet().stream().noneMatch(e -> e.getKey().endsWith(Metadata.BINARY_HEADER_SUFFIX));
+    assert metadata.equals(Map.of(RpcHeaders.CALLER, "test-caller", "x-custom", "custom"));
+    assert metadata.hashCode() == Map.of(RpcHeaders.CALLER, "test-caller", "x-custom", "custom").hashCode();
+    assert metadata.toString().contains("x-custom=custom");
+
+    // the Lombok equality and string of the context include the metadata
+    assert context.toString().contains("x-custom=custom");
+    assert context.equals(context) && context.hashCode() == context.hashCode();
+  }
+
+  private static final class TestServerCall extends ServerCall<byte[], byte[]> {
+
+    @Override
+    public void request(int numMessages) {}
+
+    @Override
+    public void sendHeaders(Metadata headers) {}
+
+    @Override
+    public void sendMessage(byte[] message) {}
+
+    @Override
+    public void close(Status status, Metadata trailers) {}
+
+    @Override
+    public boolean isCancelled() {
+      return false;
+    }
+
+    @Override
+    public Attributes getAttributes() {
+      return Attributes.EMPTY;
+    }
+
+    @Override
+    public MethodDescriptor<byte[], byte[]> getMethodDescriptor() {
+      return METHOD;
+    }
+
+  }
+
+}
@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.env;
 
+import com.google.common.primitives.Doubles;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 import java.net.InetAddress;
@@ -13,6 +14,8 @@ public class Environments {
 
   public static final Marshaler<Long> LONG_MARSHALLER = Longs::tryParse;
 
+  public static final Marshaler<Double> DOUBLE_MARSHALLER = Doubles::tryParse;
+
   public static final Marshaler<Boolean> BOOLEAN_MARSHALLER = Boolean::parseBoolean;
 
   public static final String IP;
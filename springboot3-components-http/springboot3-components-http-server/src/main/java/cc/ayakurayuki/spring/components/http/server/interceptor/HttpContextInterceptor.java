@@ -1,10 +1,15 @@
 package cc.ayakurayuki.spring.components.http.server.interceptor;
 
 import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.cache.ContextCache;
 import cc.ayakurayuki.spring.components.context.http.HttpContext;
+import cc.ayakurayuki.spring.components.context.http.HttpHeaders;
+import com.google.common.base.Strings;
+import com.google.common.primitives.Longs;
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
 import org.springframework.core.Ordered;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
@@ -24,8 +29,11 @@ public class HttpContextInterceptor implements HandlerInterceptor, Ordered {
     }
     HttpContext context = HttpContext.create(patternUrl, request);
     context.setRealPath(request.getRequestURI());
-    context.attach();
-    HttpServerStats.startStats(patternUrl, request, context);
+    Long timeout = Longs.tryParse(Strings.nullToEmpty(request.getHeader(HttpHeaders.TIMEOUT)));
+    if (timeout != null && timeout > 0) {
+      context.withDeadlineAfter(timeout, TimeUnit.MILLISECONDS); // time budget left by the caller
+    }
+    HttpServerStats.startStats(patternUrl, request, context); // attaches the context
     return true;
   }
 
@@ -35,8 +43,11 @@ public class HttpContextInterceptor implements HandlerInterceptor, Ordered {
       return;
     }
     Context context = Context.current();
-    HttpServerStats.finishStats(request, response, context);
-    context.detach(null);
+    HttpServerStats.finishStats(request, response, context); // detaches the context
+    ContextCache.discard(context);
+    if (context instanceof HttpContext httpContext) {
+      httpContext.release(); // the request will be recycled by the servlet container
+    }
   }
 
   @Override
@@ -2,6 +2,11 @@ package cc.ayakurayuki.spring.components.http.server.interceptor;
 
 import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
 import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.LabelValues;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 class HttpServerMetrics {
 
@@ -42,6 +47,23 @@ class HttpServerMetrics {
       .create()
       .register();
 
+  /**
+   * bound metrics by path
+   */
+  private static final ConcurrentMap<String, PathMetrics> PATHS = new ConcurrentHashMap<>();
+
+  /**
+   * @return the metrics bound to the path, observing them allocates nothing
+   */
+  static PathMetrics of(String path) {
+    PathMetrics metrics = PATHS.get(path);
+    if (metrics == null) {
+      // raw paths of unmatched requests beyond the cardinality limit share the overflow metrics
+      metrics = PATHS.computeIfAbsent(HTTP_SERVER_DURATION.admit(path)[0], PathMetrics::new);
+    }
+    return metrics;
+  }
+
   /**
    * This method is deprecated, collector now will self register.
    * <p>
@@ -50,4 +72,27 @@ class HttpServerMetrics {
   @Deprecated
   public static void register() {}
 
+  static final class PathMetrics {
+
+    private final String                                path;
+    private final IHistogram.Child                      duration;
+    private final ConcurrentMap<String, ICounter.Child> codes = new ConcurrentHashMap<>();
+
+    private PathMetrics(String path) {
+      this.path = path;
+      this.duration = HTTP_SERVER_DURATION.bind(path);
+    }
+
+    void observe(double elapsed, int code) {
+      duration.observe(elapsed);
+      String value = LabelValues.of(code);
+      ICounter.Child counter = codes.get(value);
+      if (counter == null) {
+        counter = codes.computeIfAbsent(value, c -> HTTP_SERVER_CODE.bind(path, c));
+      }
+      counter.inc();
+    }
+
+  }
+
 }
@@ -1,12 +1,14 @@
 package cc.ayakurayuki.spring.components.http.server.interceptor;
 
 import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
 import cc.ayakurayuki.spring.components.context.concurrent.Contexts;
 import cc.ayakurayuki.spring.components.context.http.HttpContext;
 import cc.ayakurayuki.spring.components.context.rpc.RpcHeaders;
 import cc.ayakurayuki.spring.components.errors.ServerCodes;
 import cc.ayakurayuki.spring.components.http.server.utility.HttpRequestAttributes;
 import cc.ayakurayuki.spring.components.stats.metrics.AYSimpleCollector;
+import cc.ayakurayuki.spring.components.stats.metrics.LabelValues;
 import cc.ayakurayuki.spring.components.trace.CompositeOpenTelemetry;
 import cc.ayakurayuki.spring.components.trace.SpanTags;
 import cc.ayakurayuki.spring.components.utility.logging.LogUtils;
@@ -35,6 +37,10 @@ public class HttpServerStats {
 
   private static final Logger log = LoggerFactory.getLogger("http-access-log");
 
+  /**
+   * Start metrics and trace of the request, then attach the given context and the span context
+   * together, the scope is closed by {@link #finishStats(HttpServletRequest, HttpServletResponse, Context)}.
+   */
   public static void startStats(String patternUrl, HttpServletRequest request, HttpContext context) {
     HttpRequestAttributes.REQUEST_START.setAttribute(request, System.nanoTime());
     HttpRequestAttributes.REQUEST_CONTEXT.setAttribute(request, context);
@@ -44,7 +50,7 @@ public class HttpServerStats {
         .extract(io.opentelemetry.context.Context.current(), request, getGetter());
     io.opentelemetry.context.Context otelContext = withHttpContext(context, parentContext);
     Span span = starterTrace(patternUrl, request, otelContext);
-    Scope scope = otelContext.with(span).makeCurrent();
+    Scope scope = ContextSnapshot.of(context, otelContext.with(span)).attach();
     HttpRequestAttributes.REQUEST_SPAN.setAttribute(request, span);
     HttpRequestAttributes.REQUEST_SCOPE.setAttribute(request, scope);
   }
@@ -108,15 +114,14 @@ public class HttpServerStats {
     final String message = Optional.ofNullable(HttpRequestAttributes.RESPONSE_MESSAGE.getAttribute(request)).orElse("");
 
     // HttpServerMetrics.HTTP_SERVER_TOTAL.inc(path); // 已使用 http_server_requests_seconds_count 指标
-    HttpServerMetrics.HTTP_SERVER_DURATION.observe(elapsed, path);
-    HttpServerMetrics.HTTP_SERVER_CODE.inc(path, String.valueOf(code));
-    MDC.put("http_status", String.valueOf(status));
+    HttpServerMetrics.of(path).observe(elapsed, code);
+    MDC.put("http_status", LabelValues.of(status));
     MDC.put("http_method", request.getMethod());
     MDC.put("http_referer", LogUtils.separatorProcess(request.getHeader("Referer")));
     MDC.put("http_user_agent", LogUtils.separatorProcess(request.getHeader("User-Agent")));
     MDC.put("error", String.valueOf(error));
     MDC.put("biz_msg", LogUtils.separatorProcess(message));
-    MDC.put("biz_code", String.valueOf(code));
+    MDC.put("biz_code", LabelValues.of(code));
     MDC.put("ts", String.valueOf(BigDecimal.valueOf(elapsed / 1000)
                                      .setScale(3, RoundingMode.HALF_UP)
                                      .floatValue()));
@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.rpc.client;
 
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import cc.ayakurayuki.spring.components.rpc.core.NettyUtils;
 import io.grpc.ClientInterceptor;
 import io.grpc.CompressorRegistry;
@@ -18,7 +19,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ChannelBuilder extends io.grpc.ManagedChannelBuilder<ChannelBuilder> {
 
-  private static final EventLoopGroup LOOP_GROUP = NettyUtils.eventLoopGroup("RPC-client", Runtime.getRuntime().availableProcessors() * 2, true);
+  private static final EventLoopGroup LOOP_GROUP = NettyUtils.eventLoopGroup("RPC-client", PoolSizing.report("RPC-client", PoolSizing.threads(2)), true);
 
   static {
     if (NettyUtils.isEpollAvailable()) {
@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.rpc.client;
 
+import cc.ayakurayuki.spring.components.context.Context;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.ClientCall;
@@ -9,6 +10,13 @@ import io.grpc.MethodDescriptor;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Apply the call timeout, the deadline of a call is the earliest of the deadline in call options,
+ * the configured {@link CallOptionKeys#TIMEOUT_KEY} timeout, and the deadline of the current {@link Context}.
+ * <p>
+ * A call whose context deadline is already expired fails with {@code DEADLINE_EXCEEDED} before
+ * anything is sent.
+ */
 public class RpcClientCallInterceptor implements ClientInterceptor {
 
   private final String name;
@@ -26,7 +34,16 @@ public class RpcClientCallInterceptor implements ClientInterceptor {
     Deadline deadline = callOptions.getDeadline();
     // with timeout and without deadline
     if (duration != null && deadline == null) {
-      callOptions = callOptions.withDeadlineAfter(duration.toNanos(), TimeUnit.NANOSECONDS);
+      deadline = Deadline.after(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+    // budget left by the inbound request
+    long remaining = Context.current().remainingNanos();
+    if (remaining != Long.MAX_VALUE) {
+      Deadline budget = Deadline.after(remaining, TimeUnit.NANOSECONDS);
+      deadline = deadline == null ? budget : deadline.minimum(budget);
+    }
+    if (deadline != null && deadline != callOptions.getDeadline()) {
+      callOptions = callOptions.withDeadline(deadline); // an expired deadline fails the call without sending it
     }
     return new RpcClientCall<>(name, next.newCall(method, callOptions), method.getFullMethodName());
   }
@@ -33,7 +33,7 @@ class RpcClientCallListener<S> extends ForwardingClientCallListener.SimpleForwar
     RpcUtils.observeCallMetrics(
         this.name,
         this.method,
-        String.valueOf(code),
+        code,
         AYSimpleCollector.escapeMillisFromNanos(this.startNano, System.nanoTime())
     );
     if (this.span != null) {
@@ -2,6 +2,11 @@ package cc.ayakurayuki.spring.components.rpc.client;
 
 import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
 import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.LabelValues;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 class RpcClientMetrics {
 
@@ -39,4 +44,47 @@ class RpcClientMetrics {
       .create()
       .register();
 
+  // bound metrics by client name and method
+  private static final ConcurrentMap<String, ConcurrentMap<String, CallMetrics>> CALLS = new ConcurrentHashMap<>();
+
+  /**
+   * @return the metrics bound to the client name and method, observing them allocates nothing
+   */
+  static CallMetrics of(String name, String method) {
+    ConcurrentMap<String, CallMetrics> methods = CALLS.get(name);
+    if (methods == null) {
+      methods = CALLS.computeIfAbsent(name, n -> new ConcurrentHashMap<>());
+    }
+    CallMetrics metrics = methods.get(method);
+    if (metrics == null) {
+      metrics = methods.computeIfAbsent(method, m -> new CallMetrics(name, m));
+    }
+    return metrics;
+  }
+
+  static final class CallMetrics {
+
+    private final String                                name;
+    private final String                                method;
+    private final IHistogram.Child                      duration;
+    private final ConcurrentMap<String, ICounter.Child> codes = new ConcurrentHashMap<>();
+
+    private CallMetrics(String name, String method) {
+      this.name = name;
+      this.method = method;
+      this.duration = RPC_CLIENT_DURATION.bind(method);
+    }
+
+    void observe(double duration, int code) {
+      this.duration.observe(duration);
+      String value = LabelValues.of(code);
+      ICounter.Child counter = codes.get(value);
+      if (counter == null) {
+        counter = codes.computeIfAbsent(value, c -> RPC_CLIENT_CODE.bind(method, c, name));
+      }
+      counter.inc();
+    }
+
+  }
+
 }
@@ -25,10 +25,9 @@ public class RpcUtils {
       ServerCode.LIMIT_EXCEEDED.code()
   );
 
-  static void observeCallMetrics(@Nonnull String name, @Nonnull String method, @Nonnull String code, double duration) {
+  static void observeCallMetrics(@Nonnull String name, @Nonnull String method, int code, double duration) {
     try {
-      RpcClientMetrics.RPC_CLIENT_DURATION.observe(duration, method);
-      RpcClientMetrics.RPC_CLIENT_CODE.inc(method, code, name);
+      RpcClientMetrics.of(name, method).observe(duration, code);
     } catch (Exception e) {
       log.error("call metrics error", e);
     }
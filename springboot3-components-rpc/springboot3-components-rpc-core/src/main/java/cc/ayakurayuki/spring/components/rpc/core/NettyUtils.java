@@ -1,7 +1,7 @@
 package cc.ayakurayuki.spring.components.rpc.core;
 
 import cc.ayakurayuki.spring.components.stats.model.ThreadPool;
-import cc.ayakurayuki.spring.components.stats.stats.ScheduledStats;
+import cc.ayakurayuki.spring.components.stats.stats.MonitoredExecutors;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MultithreadEventLoopGroup;
 import io.netty.channel.epoll.Epoll;
@@ -16,8 +16,6 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
-import java.lang.ref.WeakReference;
-import java.util.concurrent.TimeUnit;
 
 public class NettyUtils {
 
@@ -45,26 +43,19 @@ public class NettyUtils {
   }
 
   private static void monitor(String name, MultithreadEventLoopGroup group) {
-    WeakReference<MultithreadEventLoopGroup> reference = new WeakReference<>(group);
-    ScheduledStats.scheduleWithFixedDelay(
-        () -> {
-          MultithreadEventLoopGroup loopGroup = reference.get();
-          if (loopGroup == null) {
-            throw new IllegalStateException("reference is null");
-          }
-          int waiting = 0;
-          for (EventExecutor executor : loopGroup) {
-            if (executor instanceof SingleThreadEventExecutor) {
-              waiting += ((SingleThreadEventExecutor) executor).pendingTasks();
-            }
-          }
-          ThreadPool.POOL_STATE_ACTIVE.set(loopGroup.executorCount(), name);
-          ThreadPool.POOL_STATE_TASK_WAITING.set(waiting, name);
-        },
-        1,
-        1,
-        TimeUnit.SECONDS
-    );
+    MonitoredExecutors.monitor(name, group)
+        .gauge(ThreadPool.POOL_STATE_ACTIVE, MultithreadEventLoopGroup::executorCount)
+        .gauge(ThreadPool.POOL_STATE_TASK_WAITING, NettyUtils::pendingTasks);
+  }
+
+  private static int pendingTasks(MultithreadEventLoopGroup group) {
+    int waiting = 0;
+    for (EventExecutor executor : group) {
+      if (executor instanceof SingleThreadEventExecutor) {
+        waiting += ((SingleThreadEventExecutor) executor).pendingTasks();
+      }
+    }
+    return waiting;
   }
 
 }
@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.rpc.server;
 
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import cc.ayakurayuki.spring.components.rpc.core.NettyUtils;
 import io.grpc.BindableService;
 import io.grpc.CompressorRegistry;
@@ -34,7 +35,7 @@ public class RpcServerBuilder extends io.grpc.ServerBuilder<RpcServerBuilder> {
   private RpcServerBuilder(int port) {
     // eventloop groups
     EventLoopGroup boosGroup = NettyUtils.eventLoopGroup("RPC-server-boss", 1, true);
-    EventLoopGroup workerGroup = NettyUtils.eventLoopGroup("RPC-server-worker", Runtime.getRuntime().availableProcessors() * 2, true);
+    EventLoopGroup workerGroup = NettyUtils.eventLoopGroup("RPC-server-worker", PoolSizing.report("RPC-server-worker", PoolSizing.threads(2)), true);
 
     this.delegateBuilder = NettyServerBuilder.forPort(port);
     this.delegateBuilder.channelType(NettyUtils.serverSocketChannel())
@@ -1,23 +1,24 @@
 package cc.ayakurayuki.spring.components.rpc.server;
 
 import cc.ayakurayuki.spring.components.context.Context;
+import cc.ayakurayuki.spring.components.context.ContextSnapshot;
+import cc.ayakurayuki.spring.components.context.cache.ContextCache;
 import cc.ayakurayuki.spring.components.context.rpc.RpcContext;
 import cc.ayakurayuki.spring.components.errors.ServerCode;
 import cc.ayakurayuki.spring.components.errors.ServerCodes;
 import cc.ayakurayuki.spring.components.rpc.core.StatusCode;
 import cc.ayakurayuki.spring.components.stats.metrics.AYSimpleCollector;
+import cc.ayakurayuki.spring.components.stats.metrics.LabelValues;
 import cc.ayakurayuki.spring.components.trace.CompositeOpenTelemetry;
 import cc.ayakurayuki.spring.components.trace.SpanTags;
 import com.google.common.base.Strings;
 import com.google.protobuf.Message;
-import com.google.protobuf.TextFormat;
 import io.grpc.ForwardingServerCall;
 import io.grpc.Metadata;
 import io.grpc.ServerCall;
 import io.grpc.Status;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanKind;
-import io.opentelemetry.context.Scope;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import java.io.ByteArrayOutputStream;
@@ -33,8 +34,6 @@ import org.slf4j.MDC;
 
 class RpcServerCall<R, S> extends ForwardingServerCall.SimpleForwardingServerCall<R, S> {
 
-  private static final TextFormat.Printer PRINTER = TextFormat.printer().escapingNonAscii(false);
-
   private static final Logger log = LoggerFactory.getLogger("grpc-access-log");
 
   private final    LongAdder                         receivedBytes = new LongAdder();
@@ -44,6 +43,7 @@ class RpcServerCall<R, S> extends ForwardingServerCall.SimpleForwardingServerCal
   private final    RpcContext                        context;
   private final    io.opentelemetry.api.trace.Tracer tracer;
   private final    io.opentelemetry.context.Context  spanContext;
+  private final    ContextSnapshot                   snapshot;
   private final    long                              startNano;
   private volatile boolean                           closed        = false;
 
@@ -58,6 +58,7 @@ class RpcServerCall<R, S> extends ForwardingServerCall.SimpleForwardingServerCal
     this.exceptionResolver = exceptionResolver;
     this.startNano = System.nanoTime();
     this.spanContext = startContext(this.method, otelContext);
+    this.snapshot = ContextSnapshot.of(ctx, this.spanContext);
   }
 
   private io.opentelemetry.context.Context startContext(String method, io.opentelemetry.context.Context otelContext) {
@@ -71,7 +72,7 @@ class RpcServerCall<R, S> extends ForwardingServerCall.SimpleForwardingServerCal
 
   public final void runInContext(@Nonnull Runnable runnable) {
     try {
-      this.context.run(this.spanContext.wrap(runnable));
+      this.snapshot.run(runnable);
     } catch (Exception e) {
       if (this.exceptionResolver != null && this.exceptionResolver.resolveException(this, this.context, e)) {
         io.grpc.Context ctx = io.grpc.Context.current();
@@ -86,8 +87,7 @@ class RpcServerCall<R, S> extends ForwardingServerCall.SimpleForwardingServerCal
 
   public void onReceiveMessage(R received) {
     if (received instanceof Message message) {
-      this.context.setParameter(message.getAllFields());
-      this.context.setDebugParameter(PRINTER.emittingSingleLine(true).printToString(message));
+      this.context.setRequest(message);
       this.receivedBytes.add(message.getSerializedSize());
     }
   }
@@ -103,12 +103,13 @@ class RpcServerCall<R, S> extends ForwardingServerCall.SimpleForwardingServerCal
   @Override
   public final void close(Status status, Metadata trailers) {
     this.closed = true;
-    this.context.run(() -> {
-      try (Scope ignored = this.spanContext.makeCurrent()) {
+    this.snapshot.run(() -> {
+      try {
         super.close(status, trailers);
         accessLog(status, trailers, AYSimpleCollector.escapeMillisFromNanos(this.startNano, System.nanoTime()));
       } finally {
         finishContext(status);
+        ContextCache.discard(this.context);
       }
     });
   }
@@ -124,18 +125,15 @@ class RpcServerCall<R, S> extends ForwardingServerCall.SimpleForwardingServerCal
       return;
     }
 
-    RpcServerMetrics.RPC_SERVER_DURATION.observe(escapeMillis, this.method, ctx.getCaller());
-    RpcServerMetrics.RPC_SERVER_TOTAL.inc(this.method, ctx.getCaller());
-
     final ServerCode sc = StatusCode.toServerCode(status, trailers);
     final int code = sc.code();
     final String msg = sc.message();
     final int error = ctx.getError();
-    RpcServerMetrics.RPC_SERVER_CODE.inc(this.method, ctx.getCaller(), String.valueOf(code));
+    RpcServerMetrics.of(this.method, ctx.getCaller()).observe(escapeMillis, code);
 
-    MDC.put("error", String.valueOf(error));
+    MDC.put("error", LabelValues.of(error));
     MDC.put("biz_msg", msg);
-    MDC.put("biz_code", String.valueOf(code));
+    MDC.put("biz_code", LabelValues.of(code));
     final float ts = BigDecimal.valueOf(escapeMillis / 1000)
         .setScale(3, RoundingMode.HALF_UP)
         .floatValue();
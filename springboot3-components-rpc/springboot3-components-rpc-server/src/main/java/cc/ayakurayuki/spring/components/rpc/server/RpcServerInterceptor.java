@@ -4,6 +4,7 @@ import cc.ayakurayuki.spring.components.context.rpc.RpcContext;
 import cc.ayakurayuki.spring.components.context.rpc.RpcHeaders;
 import cc.ayakurayuki.spring.components.trace.CompositeOpenTelemetry;
 import io.grpc.Context;
+import io.grpc.Deadline;
 import io.grpc.Metadata;
 import io.grpc.ServerCall;
 import io.grpc.ServerCall.Listener;
@@ -15,6 +16,7 @@ import io.opentelemetry.api.baggage.BaggageEntry;
 import jakarta.annotation.Nullable;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,6 +34,10 @@ public class RpcServerInterceptor implements ServerInterceptor {
   @Override
   public <ReqT, RespT> Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> serverCall, Metadata metadata, ServerCallHandler<ReqT, RespT> next) {
     final RpcContext context = RpcContext.create(metadata, serverCall);
+    Deadline deadline = Context.current().getDeadline(); // parsed from grpc-timeout by the server
+    if (deadline != null) {
+      context.withDeadlineAfter(deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
     io.opentelemetry.context.Context otelContext = CompositeOpenTelemetry.get()
         .getPropagators()
         .getTextMapPropagator()
@@ -2,6 +2,11 @@ package cc.ayakurayuki.spring.components.rpc.server;
 
 import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
 import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.LabelValues;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 class RpcServerMetrics {
 
@@ -39,4 +44,52 @@ class RpcServerMetrics {
       .create()
       .register();
 
+  // bound metrics by method and caller
+  private static final ConcurrentMap<String, ConcurrentMap<String, CallMetrics>> CALLS = new ConcurrentHashMap<>();
+
+  /**
+   * @return the metrics bound to the method and caller, observing them allocates nothing
+   */
+  static CallMetrics of(String method, String caller) {
+    ConcurrentMap<String, CallMetrics> callers = CALLS.get(method);
+    if (callers != null) {
+      CallMetrics metrics = callers.get(caller);
+      if (metrics != null) {
+        return metrics;
+      }
+    }
+    // callers beyond the cardinality limit share the overflow metrics
+    String[] admitted = RPC_SERVER_DURATION.admit(method, caller);
+    callers = CALLS.computeIfAbsent(admitted[0], m -> new ConcurrentHashMap<>());
+    return callers.computeIfAbsent(admitted[1], c -> new CallMetrics(admitted[0], c));
+  }
+
+  static final class CallMetrics {
+
+    private final String                                method;
+    private final String                                caller;
+    private final IHistogram.Child                      duration;
+    private final ICounter.Child                        total;
+    private final ConcurrentMap<String, ICounter.Child> codes = new ConcurrentHashMap<>();
+
+    private CallMetrics(String method, String caller) {
+      this.method = method;
+      this.caller = caller;
+      this.duration = RPC_SERVER_DURATION.bind(method, caller);
+      this.total = RPC_SERVER_TOTAL.bind(method, caller);
+    }
+
+    void observe(double escapeMillis, int code) {
+      duration.observe(escapeMillis);
+      total.inc();
+      String value = LabelValues.of(code);
+      ICounter.Child counter = codes.get(value);
+      if (counter == null) {
+        counter = codes.computeIfAbsent(value, c -> RPC_SERVER_CODE.bind(method, caller, c));
+      }
+      counter.inc();
+    }
+
+  }
+
 }
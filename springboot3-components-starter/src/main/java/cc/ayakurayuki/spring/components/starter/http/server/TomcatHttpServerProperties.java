@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.starter.http.server;
 
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -15,12 +16,12 @@ public class TomcatHttpServerProperties {
   /**
    * HTTP server minimum execute threads
    */
-  private int minThreads = Runtime.getRuntime().availableProcessors() * 2;
+  private int minThreads = PoolSizing.threads(2);
 
   /**
    * HTTP server maximum execute threads
    */
-  private int maxThreads = Runtime.getRuntime().availableProcessors() * 50; // e.g.: (4 cores) * 50 = (200 threads)
+  private int maxThreads = PoolSizing.threads(50); // e.g.: (4 container cpus) * 50 = (200 threads)
 
   /**
    * HTTP server NIO accept count
@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.starter.http.server;
 
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import java.time.Duration;
 import org.apache.coyote.AbstractProtocol;
 import org.apache.coyote.ProtocolHandler;
@@ -19,8 +20,8 @@ public class TomcatWebServerCustomizer implements WebServerFactoryCustomizer<Con
   @Override
   public void customize(ConfigurableTomcatWebServerFactory factory) {
     factory.setPort(properties.getPort());
-    customizeMinThreads(factory, properties.getMinThreads()); // minimum spare threads
-    customizeMaxThreads(factory, properties.getMaxThreads()); // maximum threads
+    customizeMinThreads(factory, PoolSizing.report("tomcat-min", properties.getMinThreads())); // minimum spare threads
+    customizeMaxThreads(factory, PoolSizing.report("tomcat-max", properties.getMaxThreads())); // maximum threads
     customizeAcceptCount(factory, properties.getAcceptCount()); // wait queue accept count
     customizeMaxConnections(factory, properties.getMaxConnections()); // maximum connection
     customizeKeepAliveTimeout(factory, Duration.ofSeconds(20)); // keepalive timeout
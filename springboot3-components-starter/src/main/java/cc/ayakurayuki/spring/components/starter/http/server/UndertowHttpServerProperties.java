@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.starter.http.server;
 
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -18,13 +19,13 @@ public class UndertowHttpServerProperties {
   private int bufferSize = 0;
 
   /**
-   * Undertow io threads
+   * Undertow io threads, one per container cpu by default
    */
-  private int ioThreads = Math.max(Runtime.getRuntime().availableProcessors(), 2);
+  private int ioThreads = Math.max(PoolSizing.cpus(), 2);
 
   /**
-   * Undertow worker threads
+   * Undertow worker threads, 8 per container cpu by default
    */
-  private int workerThreads = Math.max(Runtime.getRuntime().availableProcessors(), 2) * 8;
+  private int workerThreads = Math.min(Math.max(PoolSizing.cpus(), 2) * 8, PoolSizing.maxThreads());
 
 }
@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.starter.http.server;
 
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import org.springframework.boot.web.embedded.undertow.ConfigurableUndertowWebServerFactory;
 import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.core.Ordered;
@@ -21,11 +22,11 @@ public class UndertowWebServerCustomizer implements WebServerFactoryCustomizer<C
     }
 
     if (properties.getIoThreads() > 0) {
-      factory.setIoThreads(properties.getIoThreads());
+      factory.setIoThreads(PoolSizing.report("undertow-io", properties.getIoThreads()));
     }
 
     if (properties.getWorkerThreads() > 0) {
-      factory.setWorkerThreads(properties.getWorkerThreads());
+      factory.setWorkerThreads(PoolSizing.report("undertow-worker", properties.getWorkerThreads()));
     }
   }
 
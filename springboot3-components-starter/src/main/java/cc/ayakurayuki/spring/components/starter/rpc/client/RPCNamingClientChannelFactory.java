@@ -1,6 +1,10 @@
 package cc.ayakurayuki.spring.components.starter.rpc.client;
 
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import cc.ayakurayuki.spring.components.context.concurrent.pool.ThreadPools;
+import cc.ayakurayuki.spring.components.env.Environment;
+import cc.ayakurayuki.spring.components.env.Environments;
+import cc.ayakurayuki.spring.components.env.Key;
 import cc.ayakurayuki.spring.components.rpc.client.ChannelBuilder;
 import cc.ayakurayuki.spring.components.rpc.client.RpcClientCallInterceptor;
 import com.google.common.base.Strings;
@@ -21,8 +25,13 @@ public class RPCNamingClientChannelFactory {
   // scalable thread executor
   // private static final Executor CLIENT_WORKER = ThreadPools.newScalableThreadPool("RPC-Client-exec", 1, Runtime.getRuntime().availableProcessors() * 2);
 
-  // virtual thread executor
-  private static final Executor CLIENT_WORKER = ThreadPools.newVirtualExecutor("RPC-Client-exec");
+  /**
+   * max RPC client callbacks running at the same time, no limit by default
+   */
+  private static final Key<Integer> RPC_CLIENT_MAX_CONCURRENCY = Environment.key("rpc_client_max_concurrency", Environments.INT_MARSHALLER);
+
+  // virtual thread executor, with an admission limit once configured
+  private static final Executor CLIENT_WORKER = newClientWorker();
 
   private final RPCChannelsProperties channelsProperties;
 
@@ -110,4 +119,15 @@ public class RPCNamingClientChannelFactory {
     log.info("RPC service %s requests channel connection, state: %s".formatted(name, currentChannelState));
   }
 
+  /**
+   * A virtual thread per callback, or with an admission limit once {@code rpc_client_max_concurrency} is set.
+   */
+  private static Executor newClientWorker() {
+    Environment<Integer> maxConcurrency = Environment.ofNullable(RPC_CLIENT_MAX_CONCURRENCY);
+    if (maxConcurrency.isEmpty() || maxConcurrency.get() <= 0) {
+      return ThreadPools.newVirtualExecutor("RPC-Client-exec");
+    }
+    return ThreadPools.newBoundedVirtualExecutor("RPC-Client-exec", PoolSizing.report("RPC-Client-exec", maxConcurrency.get()));
+  }
+
 }
@@ -1,5 +1,6 @@
 package cc.ayakurayuki.spring.components.starter.rpc.server;
 
+import cc.ayakurayuki.spring.components.context.concurrent.pool.PoolSizing;
 import cc.ayakurayuki.spring.components.context.concurrent.pool.ThreadPools;
 import cc.ayakurayuki.spring.components.env.Environment;
 import cc.ayakurayuki.spring.components.env.Environments;
@@ -27,11 +28,22 @@ import lombok.extern.slf4j.Slf4j;
 public class RPCServiceServer {
 
   @SuppressWarnings("unused")
-  private static final int CORE_POOL_SIZE    = Runtime.getRuntime().availableProcessors() * 2;
+  private static final int CORE_POOL_SIZE    = PoolSizing.cpus() * 2;
   @SuppressWarnings("unused")
-  private static final int MAXIMUM_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 50;
+  private static final int MAXIMUM_POOL_SIZE = PoolSizing.cpus() * 50;
 
-  private static final Executor WORKER_EXECUTOR = ThreadPools.newVirtualExecutor("RPC-server-exec");
+  /**
+   * max RPC server tasks running at the same time, protects the connection pools behind the handlers,
+   * no limit by default
+   */
+  private static final Key<Integer> RPC_SERVER_MAX_CONCURRENCY = Environment.key("rpc_server_max_concurrency", Environments.INT_MARSHALLER);
+
+  /**
+   * max RPC server tasks waiting for a slot when the concurrency is limited, unbounded by default
+   */
+  private static final Key<Integer> RPC_SERVER_MAX_QUEUED = Environment.key("rpc_server_max_queued", Environments.INT_MARSHALLER);
+
+  private static final Executor WORKER_EXECUTOR = newWorkerExecutor();
 
   /**
    * gRPC service port from discovery
@@ -100,4 +112,19 @@ public class RPCServiceServer {
         .build();
   }
 
+  /**
+   * A virtual thread per task, or with an admission limit once {@code rpc_server_max_concurrency} is set.
+   */
+  private static Executor newWorkerExecutor() {
+    Environment<Integer> maxConcurrency = Environment.ofNullable(RPC_SERVER_MAX_CONCURRENCY);
+    if (maxConcurrency.isEmpty() || maxConcurrency.get() <= 0) {
+      return ThreadPools.newVirtualExecutor("RPC-server-exec");
+    }
+    return ThreadPools.newBoundedVirtualExecutor(
+        "RPC-server-exec",
+        PoolSizing.report("RPC-server-exec", maxConcurrency.get()),
+        Environment.ofNullable(RPC_SERVER_MAX_QUEUED).orElse(Integer.MAX_VALUE)
+    );
+  }
+
 }
@@ -1,12 +1,16 @@
 package cc.ayakurayuki.spring.components.starter.trace;
 
 import cc.ayakurayuki.spring.components.opentelemetry.OpenTelemetrySimpleBuilder;
+import cc.ayakurayuki.spring.components.stats.metrics.factory.MetricLoader;
+import cc.ayakurayuki.spring.components.stats.metrics.opentelemetry.OpenTelemetryMetricFactory;
+import cc.ayakurayuki.spring.components.stats.metrics.opentelemetry.OpenTelemetryMetricPipeline;
 import cc.ayakurayuki.spring.components.trace.CompositeOpenTelemetry;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.context.propagation.TextMapPropagator;
 import io.opentelemetry.extension.trace.propagation.JaegerPropagator;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.OpenTelemetrySdkBuilder;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.samplers.Sampler;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -68,10 +72,14 @@ public class OpenTelemetryAutoConfiguration {
           // W3CTraceContextPropagator.getInstance() // W3CTraceContextPropagator provides `traceparent` and `tracestate` in gRPC Metadata, from `opentelemetry-trace-span-key`
       );
       ContextPropagators contextPropagators = ContextPropagators.create(textMapPropagator);
-      OpenTelemetrySdk openTelemetrySdk = OpenTelemetrySdk.builder()
+      OpenTelemetrySdkBuilder builder = OpenTelemetrySdk.builder()
           .setTracerProvider(tracerProvider)
-          .setPropagators(contextPropagators)
-          .build();
+          .setPropagators(contextPropagators);
+      if (MetricLoader.metricFactory instanceof OpenTelemetryMetricFactory) {
+        // the AY* collectors record on this meter provider, share it with the spans
+        builder.setMeterProvider(OpenTelemetryMetricPipeline.meterProvider());
+      }
+      OpenTelemetrySdk openTelemetrySdk = builder.build();
       CompositeOpenTelemetry.get().registerIfAbsent(openTelemetrySdk);
       return openTelemetrySdk;
     }
@@ -0,0 +1,73 @@
+package cc.ayakurayuki.spring.components.stats.metrics.prometheus;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import io.prometheus.client.Summary;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the CKMS estimator of {@link PrometheusSummary} with {@link PrometheusSketchSummary}, 8
+ * threads observe latencies of the same label values, like the request duration of a hot path.
+ * <p>
+ * Run with {@code ./gradlew :springboot3-components-stats:jmh -Pjmh.includes=SummaryBenchmark}
+ *
+ * @author Ayakura Yuki
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class SummaryBenchmark {
+
+  @Param({"ckms", "sketch"})
+  String backend;
+
+  ISummary summary;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    if ("ckms".equals(backend)) {
+      summary = new PrometheusSummary(Summary.build()
+                                          .name("bench_ckms")
+                                          .help("bench")
+                                          .labelNames("method")
+                                          .quantile(0.5, 0.05)
+                                          .quantile(0.99, 0.001)
+                                          .create());
+    } else {
+      summary = new PrometheusSketchSummary(AYSummary.build()
+                                                .namespace("bench")
+                                                .subsystem("sketch")
+                                                .name("duration_ms")
+                                                .help("bench")
+                                                .labelNames("method")
+                                                .quantile(0.5, 0.05)
+                                                .quantile(0.99, 0.001)
+                                                .relativeAccuracy(0.01)
+                                                .create());
+    }
+  }
+
+  @Benchmark
+  public void observe() {
+    summary.observe(Math.exp(ThreadLocalRandom.current().nextGaussian() + 3), "/api/query");
+  }
+
+}
@@ -32,17 +32,26 @@ public class AYCounter extends AYSimpleCollector<ICounter, AYCounter> {
 
   public void inc(String... labelValues) {
     checkState();
-    iVector.inc(labelValues);
+    iVector.inc(admit(labelValues));
   }
 
   public void inc(double amount, String... labelValues) {
     checkState();
-    iVector.inc(amount, labelValues);
+    iVector.inc(amount, admit(labelValues));
   }
 
   public double get(String... labelValues) {
     checkState();
-    return iVector.get(labelValues);
+    return iVector.get(admit(labelValues));
+  }
+
+  /**
+   * Bind the label values to a child handle, cached by the counter. Keep the handle to count on
+   * hot paths, it skips the label lookup and allocates nothing.
+   */
+  public ICounter.Child bind(String... labelValues) {
+    checkState();
+    return bound(labelValues, iVector::bind);
   }
 
   public static class Builder extends AYSimpleCollector.Builder<Builder, AYCounter> {
@@ -2,6 +2,7 @@ package cc.ayakurayuki.spring.components.stats.metrics;
 
 import cc.ayakurayuki.spring.components.stats.metrics.factory.MetricLoader;
 import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
+import java.util.function.DoubleSupplier;
 import lombok.Getter;
 
 /**
@@ -32,31 +33,61 @@ public class AYGauge extends AYSimpleCollector<IGauge, AYGauge> {
 
   public void inc(String... labelValues) {
     checkState();
-    iVector.inc(labelValues);
+    iVector.inc(admit(labelValues));
   }
 
   public void inc(double amount, String... labelValues) {
     checkState();
-    iVector.inc(amount, labelValues);
+    iVector.inc(amount, admit(labelValues));
   }
 
   public void dec(String... labelValues) {
     checkState();
-    iVector.dec(labelValues);
+    iVector.dec(admit(labelValues));
   }
 
   public void dec(double amount, String... labelValues) {
     checkState();
-    iVector.dec(amount, labelValues);
+    iVector.dec(amount, admit(labelValues));
   }
 
   public void set(double value, String... labelValues) {
     checkState();
-    iVector.set(value, labelValues);
+    iVector.set(value, admit(labelValues));
   }
 
   public double get(String... labelValues) {
-    return iVector.get(labelValues);
+    return iVector.get(admit(labelValues));
+  }
+
+  /**
+   * Report the value of the callback for the label values, evaluated only when the metric is scraped.
+   * <p>
+   * The callback runs in the scraping thread, keep it cheap and never block in it.
+   */
+  public void setCallback(DoubleSupplier callback, String... labelValues) {
+    checkState();
+    iVector.setCallback(callback, admit(labelValues));
+  }
+
+  /**
+   * Remove the series of the label values, e.g. of a closed resource.
+   */
+  public void remove(String... labelValues) {
+    checkState();
+    unbind(labelValues);
+    iVector.remove(labelValues);
+  }
+
+  /**
+   * Bind the label values to a child handle, cached by the gauge. Keep the handle to set on hot
+   * paths, it skips the label lookup and allocates nothing.
+   * <p>
+   * A handle bound before {@link #remove(String...)} no longer reports, bind again afterward.
+   */
+  public IGauge.Child bind(String... labelValues) {
+    checkState();
+    return bound(labelValues, iVector::bind);
   }
 
   public static class Builder extends AYSimpleCollector.Builder<Builder, AYGauge> {
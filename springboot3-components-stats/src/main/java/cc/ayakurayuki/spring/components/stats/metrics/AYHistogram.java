@@ -35,13 +35,22 @@ public class AYHistogram extends AYSimpleCollector<IHistogram, AYHistogram> {
 
   public AYHistogram observe(double duration, String... labelValues) {
     checkState();
-    iVector.observe(duration, labelValues);
+    iVector.observe(duration, admit(labelValues));
     return this;
   }
 
   public double[] get(String... labelValues) {
     checkState();
-    return iVector.get(labelValues);
+    return iVector.get(admit(labelValues));
+  }
+
+  /**
+   * Bind the label values to a child handle, cached by the histogram. Keep the handle to observe on
+   * hot paths, it skips the label lookup and allocates nothing.
+   */
+  public IHistogram.Child bind(String... labelValues) {
+    checkState();
+    return bound(labelValues, iVector::bind);
   }
 
   public static class Builder extends AYSimpleCollector.Builder<Builder, AYHistogram> {
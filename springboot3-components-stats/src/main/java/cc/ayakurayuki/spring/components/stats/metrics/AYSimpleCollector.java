@@ -2,6 +2,11 @@ package cc.ayakurayuki.spring.components.stats.metrics;
 
 import cc.ayakurayuki.spring.components.stats.metrics.vector.IVector;
 import com.google.common.base.Preconditions;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 /**
@@ -19,6 +24,18 @@ public abstract class AYSimpleCollector<V extends IVector, C extends AYSimpleCol
 
   protected V iVector;
 
+  /**
+   * distinct label values admitted so far
+   */
+  @Getter(AccessLevel.NONE)
+  private final CardinalityLimit cardinality;
+
+  /**
+   * bound children by label values
+   */
+  @Getter(AccessLevel.NONE)
+  private final ConcurrentMap<List<String>, Object> children = new ConcurrentHashMap<>();
+
   @SuppressWarnings({"rawtypes"})
   AYSimpleCollector(Builder b) {
     namespace = b.namespace;
@@ -27,6 +44,7 @@ public abstract class AYSimpleCollector<V extends IVector, C extends AYSimpleCol
     metricName = String.format("%s_%s_%s", b.namespace, b.subsystem, b.name);
     help = b.help;
     labelNames = b.labelNames;
+    cardinality = new CardinalityLimit(metricName, b.maxCardinality, b.labelNames == null ? 0 : b.labelNames.length);
   }
 
   public static double escapeMillisFromNanos(long start, long end) {
@@ -45,14 +63,60 @@ public abstract class AYSimpleCollector<V extends IVector, C extends AYSimpleCol
     Preconditions.checkState(iVector != null, String.format("%s must call register() method", getVectorName()));
   }
 
+  /**
+   * Admit the label values within the cardinality limit of the collector. Call sites caching their
+   * own handles by label values key them by the admitted values, so their cache stays bounded too.
+   *
+   * @return the label values, or every label set to {@code __overflow__} once the limit is reached
+   */
+  public String[] admit(String... labelValues) {
+    return cardinality.admit(labelValues);
+  }
+
+  /**
+   * @return max distinct label values, zero or negative for no limit
+   */
+  public int getMaxCardinality() {
+    return cardinality.getMax();
+  }
+
+  /**
+   * @return times label values folded into the overflow series
+   */
+  public long getOverflowCount() {
+    return cardinality.getOverflowCount();
+  }
+
+  /**
+   * @return the child bound to the admitted label values, bound once by the binder and cached afterward
+   */
+  @SuppressWarnings("unchecked")
+  <T> T bound(String[] labelValues, Function<String[], T> binder) {
+    List<String> key = List.of(admit(labelValues));
+    Object child = children.get(key);
+    if (child == null) {
+      child = children.computeIfAbsent(key, k -> binder.apply(k.toArray(String[]::new)));
+    }
+    return (T) child;
+  }
+
+  /**
+   * drop the cached child of the label values, e.g. when the series is removed
+   */
+  void unbind(String[] labelValues) {
+    children.remove(List.of(labelValues));
+    cardinality.release(labelValues);
+  }
+
   @SuppressWarnings({"rawtypes", "unchecked"})
   public abstract static class Builder<B extends Builder<B, C>, C extends AYSimpleCollector> {
 
-    String   namespace  = "";
-    String   subsystem  = "";
-    String   name       = "";
-    String   help       = "";
-    String[] labelNames = new String[]{};
+    String   namespace      = "";
+    String   subsystem      = "";
+    String   name           = "";
+    String   help           = "";
+    String[] labelNames     = new String[]{};
+    Integer  maxCardinality = null;
 
     public B namespace(String namespace) {
       this.namespace = namespace;
@@ -79,6 +143,17 @@ public abstract class AYSimpleCollector<V extends IVector, C extends AYSimpleCol
       return (B) this;
     }
 
+    /**
+     * Limit the distinct label values, the values beyond it fold into one {@code __overflow__}
+     * series. Environment {@code metric_max_cardinality} applies if not set.
+     *
+     * @param maxCardinality max distinct label values, zero or negative for no limit
+     */
+    public B maxCardinality(int maxCardinality) {
+      this.maxCardinality = maxCardinality;
+      return (B) this;
+    }
+
     public abstract C create();
 
   }
@@ -2,6 +2,7 @@ package cc.ayakurayuki.spring.components.stats.metrics;
 
 import cc.ayakurayuki.spring.components.stats.metrics.factory.MetricLoader;
 import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import cc.ayakurayuki.spring.components.stats.stats.QuantileSketch;
 import com.google.common.collect.Lists;
 import java.util.List;
 import lombok.Getter;
@@ -15,12 +16,14 @@ public class AYSummary extends AYSimpleCollector<ISummary, AYSummary> {
   private final Long             maxAgeSeconds;
   private final Integer          ageBuckets;
   private final List<AYQuantile> quantiles;
+  private final Double           relativeAccuracy;
 
   public AYSummary(Builder b) {
     super(b);
     maxAgeSeconds = b.maxAgeSeconds;
     ageBuckets = b.ageBuckets;
     quantiles = b.quantiles;
+    relativeAccuracy = b.relativeAccuracy;
   }
 
   public static Builder build() {
@@ -41,15 +44,25 @@ public class AYSummary extends AYSimpleCollector<ISummary, AYSummary> {
 
   public void observe(double duration, String... labelValues) {
     checkState();
-    iVector.observe(duration, labelValues);
+    iVector.observe(duration, admit(labelValues));
+  }
+
+  /**
+   * Bind the label values to a child handle, cached by the summary. Keep the handle to observe on
+   * hot paths, it skips the label lookup and allocates nothing.
+   */
+  public ISummary.Child bind(String... labelValues) {
+    checkState();
+    return bound(labelValues, iVector::bind);
   }
 
   public static class Builder extends AYSimpleCollector.Builder<Builder, AYSummary> {
 
     private final List<AYQuantile> quantiles = Lists.newArrayList();
 
-    private Long    maxAgeSeconds = null;
-    private Integer ageBuckets    = null;
+    private Long    maxAgeSeconds    = null;
+    private Integer ageBuckets       = null;
+    private Double  relativeAccuracy = null;
 
     public Builder quantile(double quantile, double error) {
       quantiles.add(new AYQuantile(quantile, error));
@@ -66,6 +79,19 @@ public class AYSummary extends AYSimpleCollector<ISummary, AYSummary> {
       return this;
     }
 
+    /**
+     * Record into a {@link QuantileSketch} with the relative accuracy rather than the CKMS estimator
+     * of the Prometheus summary. Recording takes no lock, and the buckets of the sketch are exported
+     * as a {@code <name>_sketch} histogram, which merges across instances. The error of the
+     * quantiles is ignored then.
+     *
+     * @param relativeAccuracy max relative error of the quantiles, e.g. {@code 0.01}
+     */
+    public Builder relativeAccuracy(double relativeAccuracy) {
+      this.relativeAccuracy = relativeAccuracy;
+      return this;
+    }
+
     @Override
     public AYSummary create() {
       return new AYSummary(this);
@@ -0,0 +1,130 @@
+package cc.ayakurayuki.spring.components.stats.metrics;
+
+import cc.ayakurayuki.spring.components.env.Environment;
+import cc.ayakurayuki.spring.components.env.Environments;
+import cc.ayakurayuki.spring.components.env.Key;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limit of the distinct label values of a collector.
+ * <p>
+ * Label values beyond the limit fold into one series with every label set to {@value #OVERFLOW},
+ * so a label fed by user input, e.g. the raw path of unmatched requests, cannot grow the series
+ * without bound. Folded values count in {@code stats_metrics_cardinality_overflow_total} by metric,
+ * and the first one of a collector is logged.
+ * <p>
+ * Environment {@code metric_max_cardinality} sets the limit of the collectors without one, 10000 as
+ * default, zero or negative for no limit.
+ *
+ * @author Ayakura Yuki
+ */
+@Slf4j
+final class CardinalityLimit {
+
+  static final String OVERFLOW = "__overflow__";
+
+  private static final Key<Integer> MAX_CARDINALITY     = Environment.key("metric_max_cardinality", Environments.INT_MARSHALLER);
+  private static final int          DEFAULT_CARDINALITY = 10_000;
+
+  private final String   metricName;
+  private final int      max;
+  private final String[] overflowValues;
+
+  private final    Set<List<String>> series    = ConcurrentHashMap.newKeySet();
+  private final    LongAdder         overflows = new LongAdder();
+  private final    AtomicBoolean     logged    = new AtomicBoolean();
+  private volatile int               size;
+  private volatile ICounter.Child    overflowCounter;
+
+  CardinalityLimit(String metricName, Integer max, int labels) {
+    this.metricName = metricName;
+    this.max = max != null ? max : Environment.ofNullable(MAX_CARDINALITY).orElse(DEFAULT_CARDINALITY);
+    this.overflowValues = new String[labels];
+    Arrays.fill(overflowValues, OVERFLOW);
+  }
+
+  int getMax() {
+    return max;
+  }
+
+  long getOverflowCount() {
+    return overflows.sum();
+  }
+
+  /**
+   * @return the label values if they are known or within the limit, otherwise the overflow label values
+   */
+  String[] admit(String[] labelValues) {
+    if (max <= 0 || labelValues.length == 0 || labelValues.length != overflowValues.length) {
+      return labelValues; // a wrong number of labels is left to the vector to reject
+    }
+    List<String> key = Arrays.asList(labelValues);
+    if (series.contains(key)) {
+      return labelValues;
+    }
+    if (size < max) {
+      synchronized (series) {
+        if (size < max) {
+          if (series.add(Arrays.asList(labelValues.clone()))) {
+            size++;
+          }
+          return labelValues;
+        }
+      }
+    }
+    if (series.contains(key)) {
+      return labelValues; // admitted by another thread meanwhile
+    }
+    overflow(labelValues);
+    return overflowValues;
+  }
+
+  /**
+   * free the slot of the label values, e.g. when the series is removed
+   */
+  void release(String[] labelValues) {
+    if (max <= 0) {
+      return;
+    }
+    synchronized (series) {
+      if (series.remove(Arrays.asList(labelValues))) {
+        size--;
+      }
+    }
+  }
+
+  private void overflow(String[] labelValues) {
+    overflows.increment();
+    ICounter.Child counter = overflowCounter;
+    if (counter == null) {
+      counter = overflowCounter = Holder.OVERFLOW_TOTAL.bind(metricName);
+    }
+    counter.inc();
+    if (logged.compareAndSet(false, true)) {
+      log.warn("metric %s reached its cardinality limit %d, label values beyond it fold into %s, first folded %s".formatted(metricName, max, OVERFLOW, Arrays.toString(labelValues)));
+    }
+  }
+
+  private static class Holder {
+
+    // one series per collector, never limited itself
+    private static final AYCounter OVERFLOW_TOTAL = AYCounter.build()
+        .namespace("stats")
+        .subsystem("metrics")
+        .name("cardinality_overflow_total")
+        .help("label values folded into the overflow series, by metric")
+        .labelNames("metric")
+        .maxCardinality(0)
+        .create()
+        .register();
+
+  }
+
+}
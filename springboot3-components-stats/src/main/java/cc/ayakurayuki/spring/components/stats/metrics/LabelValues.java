@@ -0,0 +1,65 @@
+package cc.ayakurayuki.spring.components.stats.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interned label values, so observing a metric doesn't allocate a label string every time, e.g. a
+ * status code.
+ * <pre>{@code
+ * codes.computeIfAbsent(LabelValues.of(code), c -> CODE_TOTAL.bind(path, c)).inc();
+ * }</pre>
+ *
+ * @author Ayakura Yuki
+ */
+public final class LabelValues {
+
+  /**
+   * ints cached up front, covers the HTTP status codes and the common server codes
+   */
+  private static final int      MIN_INT = -1024;
+  private static final int      MAX_INT = 1024;
+  private static final String[] INTS    = new String[MAX_INT - MIN_INT];
+
+  /**
+   * max interned strings, values beyond it are returned as is
+   */
+  private static final int MAX_INTERNED = 10_000;
+
+  private static final ConcurrentMap<String, String> INTERNED = new ConcurrentHashMap<>();
+
+  static {
+    for (int i = MIN_INT; i < MAX_INT; i++) {
+      INTS[i - MIN_INT] = String.valueOf(i);
+    }
+  }
+
+  private LabelValues() {
+  }
+
+  /**
+   * @return the label value of an int, cached for small ints
+   */
+  public static String of(int value) {
+    if (value >= MIN_INT && value < MAX_INT) {
+      return INTS[value - MIN_INT];
+    }
+    return intern(String.valueOf(value));
+  }
+
+  /**
+   * @return the canonical instance of the label value, equal values share one string
+   */
+  public static String intern(String value) {
+    String interned = INTERNED.get(value);
+    if (interned != null) {
+      return interned;
+    }
+    if (INTERNED.size() >= MAX_INTERNED) {
+      return value;
+    }
+    interned = INTERNED.putIfAbsent(value, value);
+    return interned != null ? interned : value;
+  }
+
+}
@@ -22,4 +22,11 @@ public interface MetricFactory {
 
   ISummary summary(AYSummary summary);
 
+  /**
+   * @return false if the factory is only used when picked by environment {@code metric_factory}
+   */
+  default boolean isDefaultCandidate() {
+    return true;
+  }
+
 }
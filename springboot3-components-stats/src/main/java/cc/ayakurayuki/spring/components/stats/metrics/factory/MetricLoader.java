@@ -1,27 +1,69 @@
 package cc.ayakurayuki.spring.components.stats.metrics.factory;
 
+import cc.ayakurayuki.spring.components.env.Environment;
+import cc.ayakurayuki.spring.components.env.Environments;
+import cc.ayakurayuki.spring.components.env.Key;
 import cc.ayakurayuki.spring.components.stats.metrics.noop.NoopMetricFactory;
-import java.util.Iterator;
+import com.google.common.base.Strings;
+import java.util.List;
 import java.util.ServiceLoader;
+import java.util.ServiceLoader.Provider;
 import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Load the {@link MetricFactory} registered by {@link ServiceLoader}.
+ * <p>
+ * With several registered factories, environment {@code metric_factory} picks the one whose class
+ * name starts with it, ignoring case, e.g. {@code prometheus}, {@code micrometer} or
+ * {@code opentelemetry}. Otherwise the first one that is a {@link MetricFactory#isDefaultCandidate()
+ * default candidate} is used.
+ *
  * @author Ayakura Yuki
  */
 @Slf4j
 public class MetricLoader {
 
+  private static final Key<String> METRIC_FACTORY = Environment.key("metric_factory", Environments.STRING_MARSHALLER);
+
   public static final MetricFactory metricFactory;
 
   static {
-    ServiceLoader<MetricFactory> metricFactories = ServiceLoader.load(MetricFactory.class);
-    Iterator<MetricFactory> metricFactoryIterator = metricFactories.iterator();
-    if (metricFactoryIterator.hasNext()) {
-      metricFactory = metricFactoryIterator.next();
-    } else {
-      metricFactory = new NoopMetricFactory();
+    String wanted = Environment.ofNullable(METRIC_FACTORY).orElse(null);
+    metricFactory = choose(wanted, ServiceLoader.load(MetricFactory.class).stream().toList());
+  }
+
+  /**
+   * @param wanted    value of environment {@code metric_factory}, nullable
+   * @param providers registered factories, in the order of registration
+   *
+   * @return the factory picked by the wanted name, otherwise the first default candidate, otherwise noop
+   */
+  static MetricFactory choose(String wanted, List<Provider<MetricFactory>> providers) {
+    String prefix = Strings.nullToEmpty(wanted).toLowerCase();
+    MetricFactory chosen = null;
+    if (!prefix.isEmpty()) {
+      // match by type, so the factories not picked are never instantiated
+      chosen = providers.stream()
+          .filter(provider -> provider.type().getSimpleName().toLowerCase().startsWith(prefix))
+          .findFirst()
+          .map(Provider::get)
+          .orElse(null);
+    }
+    if (chosen == null) {
+      chosen = providers.stream()
+          .map(Provider::get)
+          .filter(MetricFactory::isDefaultCandidate)
+          .findFirst()
+          .orElse(null);
+      if (!prefix.isEmpty()) {
+        log.warn("metric factory %s is not registered, falls back to %s".formatted(prefix, chosen == null ? "noop" : chosen.getClass().getSimpleName()));
+      }
+    }
+    if (chosen == null) {
+      chosen = new NoopMetricFactory();
       log.warn("found noop metric implementation, please be warned to check the service registration of interface MetricFactory");
     }
+    return chosen;
   }
 
 }
@@ -0,0 +1,63 @@
+package cc.ayakurayuki.spring.components.stats.metrics.micrometer;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.util.List;
+
+/**
+ * @author Ayakura Yuki
+ */
+public class MicrometerCounter extends MicrometerMeters<ICounter.Child> implements ICounter {
+
+  MicrometerCounter(MeterRegistry registry, AYCounter counter) {
+    super(registry, counter);
+  }
+
+  @Override
+  ICounter.Child create(List<Tag> tags) {
+    Counter counter = Counter.builder(name)
+        .description(help)
+        .tags(tags)
+        .register(registry);
+    return new ICounter.Child() {
+      @Override
+      public void inc() {
+        counter.increment();
+      }
+
+      @Override
+      public void inc(double amount) {
+        counter.increment(amount);
+      }
+
+      @Override
+      public double get() {
+        return counter.count();
+      }
+    };
+  }
+
+  @Override
+  public void inc(String... labelValues) {
+    meter(labelValues).inc();
+  }
+
+  @Override
+  public void inc(double amount, String... labelValues) {
+    meter(labelValues).inc(amount);
+  }
+
+  @Override
+  public double get(String... labelValues) {
+    return meter(labelValues).get();
+  }
+
+  @Override
+  public ICounter.Child bind(String... labelValues) {
+    return meter(labelValues);
+  }
+
+}
@@ -0,0 +1,126 @@
+package cc.ayakurayuki.spring.components.stats.metrics.micrometer;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
+import com.google.common.util.concurrent.AtomicDouble;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Gauge reading a value of its own, or the callback set for the label values.
+ *
+ * @author Ayakura Yuki
+ */
+public class MicrometerGauge extends MicrometerMeters<MicrometerGauge.GaugeChild> implements IGauge {
+
+  MicrometerGauge(MeterRegistry registry, AYGauge gauge) {
+    super(registry, gauge);
+  }
+
+  @Override
+  GaugeChild create(List<Tag> tags) {
+    GaugeChild child = new GaugeChild();
+    // the registry only holds a weak reference to the state by default
+    child.gauge = Gauge.builder(name, child, GaugeChild::read)
+        .description(help)
+        .tags(tags)
+        .strongReference(true)
+        .register(registry);
+    return child;
+  }
+
+  @Override
+  public void inc(String... labelValues) {
+    meter(labelValues).inc();
+  }
+
+  @Override
+  public void inc(double amount, String... labelValues) {
+    meter(labelValues).inc(amount);
+  }
+
+  @Override
+  public void dec(String... labelValues) {
+    meter(labelValues).dec();
+  }
+
+  @Override
+  public void dec(double amount, String... labelValues) {
+    meter(labelValues).dec(amount);
+  }
+
+  @Override
+  public void set(double value, String... labelValues) {
+    meter(labelValues).set(value);
+  }
+
+  @Override
+  public double get(String... labelValues) {
+    return meter(labelValues).get();
+  }
+
+  @Override
+  public void setCallback(DoubleSupplier callback, String... labelValues) {
+    meter(labelValues).callback = callback;
+  }
+
+  @Override
+  public void remove(String... labelValues) {
+    GaugeChild child = forget(labelValues);
+    if (child != null) {
+      registry.remove(child.gauge);
+    }
+  }
+
+  @Override
+  public IGauge.Child bind(String... labelValues) {
+    return meter(labelValues);
+  }
+
+  static final class GaugeChild implements IGauge.Child {
+
+    private final    AtomicDouble   value = new AtomicDouble();
+    private volatile DoubleSupplier callback;
+    private          Gauge          gauge;
+
+    private double read() {
+      DoubleSupplier c = callback;
+      return c != null ? c.getAsDouble() : value.get();
+    }
+
+    @Override
+    public void inc() {
+      value.addAndGet(1);
+    }
+
+    @Override
+    public void inc(double amount) {
+      value.addAndGet(amount);
+    }
+
+    @Override
+    public void dec() {
+      value.addAndGet(-1);
+    }
+
+    @Override
+    public void dec(double amount) {
+      value.addAndGet(-amount);
+    }
+
+    @Override
+    public void set(double value) {
+      this.value.set(value);
+    }
+
+    @Override
+    public double get() {
+      return read();
+    }
+
+  }
+
+}
@@ -0,0 +1,70 @@
+package cc.ayakurayuki.spring.components.stats.metrics.micrometer;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import java.util.List;
+
+/**
+ * Histogram as a {@link DistributionSummary} with the buckets as service level objectives.
+ *
+ * @author Ayakura Yuki
+ */
+public class MicrometerHistogram extends MicrometerMeters<IHistogram.Child> implements IHistogram {
+
+  /**
+   * default buckets of the Prometheus histogram
+   */
+  private static final double[] DEFAULT_BUCKETS = {.005, .01, .025, .05, .075, .1, .25, .5, .75, 1, 2.5, 5, 7.5, 10};
+
+  private final double[] buckets;
+
+  MicrometerHistogram(MeterRegistry registry, AYHistogram histogram) {
+    super(registry, histogram);
+    this.buckets = histogram.getBuckets() != null && histogram.getBuckets().length > 0 ? histogram.getBuckets() : DEFAULT_BUCKETS;
+  }
+
+  @Override
+  IHistogram.Child create(List<Tag> tags) {
+    DistributionSummary summary = DistributionSummary.builder(name)
+        .description(help)
+        .tags(tags)
+        .serviceLevelObjectives(buckets)
+        .register(registry);
+    return new IHistogram.Child() {
+      @Override
+      public void observe(double duration) {
+        summary.record(duration);
+      }
+
+      @Override
+      public double[] get() {
+        CountAtBucket[] counts = summary.takeSnapshot().histogramCounts();
+        double[] result = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+          result[i] = counts[i].count();
+        }
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public void observe(double duration, String... labelValues) {
+    meter(labelValues).observe(duration);
+  }
+
+  @Override
+  public double[] get(String... labelValues) {
+    return meter(labelValues).get();
+  }
+
+  @Override
+  public IHistogram.Child bind(String... labelValues) {
+    return meter(labelValues);
+  }
+
+}
@@ -0,0 +1,58 @@
+package cc.ayakurayuki.spring.components.stats.metrics.micrometer;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYSimpleCollector;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Meters of a collector by label values, each registered once.
+ *
+ * @author Ayakura Yuki
+ */
+abstract class MicrometerMeters<M> {
+
+  final MeterRegistry registry;
+  final String        name;
+  final String        help;
+  final String[]      labelNames;
+
+  private final ConcurrentMap<List<String>, M> meters = new ConcurrentHashMap<>();
+
+  MicrometerMeters(MeterRegistry registry, AYSimpleCollector<?, ?> collector) {
+    this.registry = registry;
+    this.name = MicrometerMetricFactory.nameOf(collector);
+    this.help = collector.getHelp();
+    this.labelNames = collector.getLabelNames();
+  }
+
+  /**
+   * register the meter of the label values
+   */
+  abstract M create(List<Tag> tags);
+
+  M meter(String... labelValues) {
+    List<String> key = List.of(labelValues);
+    M meter = meters.get(key);
+    if (meter == null) {
+      meter = meters.computeIfAbsent(key, k -> create(MicrometerMetricFactory.tagsOf(labelNames, k)));
+    }
+    return meter;
+  }
+
+  M forget(String... labelValues) {
+    return meters.remove(List.of(labelValues));
+  }
+
+  /**
+   * Register the meter without labels up front, so it is exported before the first use.
+   */
+  public void register() {
+    if (labelNames == null || labelNames.length == 0) {
+      meter();
+    }
+  }
+
+}
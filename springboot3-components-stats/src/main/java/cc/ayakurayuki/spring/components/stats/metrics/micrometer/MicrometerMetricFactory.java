@@ -0,0 +1,87 @@
+package cc.ayakurayuki.spring.components.stats.metrics.micrometer;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
+import cc.ayakurayuki.spring.components.stats.metrics.AYGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSimpleCollector;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary;
+import cc.ayakurayuki.spring.components.stats.metrics.factory.MetricFactory;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metric factory registering the collectors to the Micrometer {@link Metrics#globalRegistry global registry}.
+ * <p>
+ * Spring Boot actuator adds its registries to the global registry, so the collectors are exported
+ * by {@code /actuator/prometheus} next to {@code http_server_requests_seconds}, from one
+ * collection. Meters registered before the application context starts are replayed to the
+ * registries added later.
+ * <p>
+ * Every label values map to a meter with the label names as tag keys, registered on first use and
+ * cached, {@code bind(labelValues...)} hands out the meter itself. Names join the namespace,
+ * subsystem and name with dots, the Prometheus naming convention turns them back into underscores.
+ *
+ * @author Ayakura Yuki
+ */
+public class MicrometerMetricFactory implements MetricFactory {
+
+  private final MeterRegistry registry;
+
+  public MicrometerMetricFactory() {
+    this(Metrics.globalRegistry);
+  }
+
+  public MicrometerMetricFactory(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public ICounter counter(AYCounter counter) {
+    return new MicrometerCounter(registry, counter);
+  }
+
+  @Override
+  public IGauge gauge(AYGauge gauge) {
+    return new MicrometerGauge(registry, gauge);
+  }
+
+  @Override
+  public IHistogram histogram(AYHistogram histogram) {
+    return new MicrometerHistogram(registry, histogram);
+  }
+
+  @Override
+  public ISummary summary(AYSummary summary) {
+    return new MicrometerSummary(registry, summary);
+  }
+
+  static String nameOf(AYSimpleCollector<?, ?> collector) {
+    return Joiner.on('.').skipNulls().join(
+        Strings.emptyToNull(collector.getNamespace()),
+        Strings.emptyToNull(collector.getSubsystem()),
+        Strings.emptyToNull(collector.getName())
+    );
+  }
+
+  static List<Tag> tagsOf(String[] labelNames, List<String> labelValues) {
+    int expected = labelNames == null ? 0 : labelNames.length;
+    if (labelValues.size() != expected) {
+      throw new IllegalArgumentException("Incorrect number of labels, expected %d but got %d".formatted(expected, labelValues.size()));
+    }
+    List<Tag> tags = new ArrayList<>(expected);
+    for (int i = 0; i < expected; i++) {
+      tags.add(Tag.of(labelNames[i], labelValues.get(i)));
+    }
+    return tags;
+  }
+
+}
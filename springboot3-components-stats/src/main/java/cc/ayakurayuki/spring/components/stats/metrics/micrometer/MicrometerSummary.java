@@ -0,0 +1,61 @@
+package cc.ayakurayuki.spring.components.stats.metrics.micrometer;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary.AYQuantile;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Summary as a {@link DistributionSummary} publishing the quantiles.
+ * <p>
+ * Micrometer computes the quantiles from its own histogram, the error of the quantiles and the
+ * relative accuracy are not used. {@code maxAgeSeconds} and {@code ageBuckets} map to the expiry and
+ * buffer length of the distribution statistics.
+ *
+ * @author Ayakura Yuki
+ */
+public class MicrometerSummary extends MicrometerMeters<ISummary.Child> implements ISummary {
+
+  private final double[] quantiles;
+  private final Long     maxAgeSeconds;
+  private final Integer  ageBuckets;
+
+  MicrometerSummary(MeterRegistry registry, AYSummary summary) {
+    super(registry, summary);
+    this.quantiles = summary.getQuantiles() == null ? new double[0] : summary.getQuantiles().stream().mapToDouble(AYQuantile::quantile).toArray();
+    this.maxAgeSeconds = summary.getMaxAgeSeconds();
+    this.ageBuckets = summary.getAgeBuckets();
+  }
+
+  @Override
+  ISummary.Child create(List<Tag> tags) {
+    DistributionSummary.Builder builder = DistributionSummary.builder(name)
+        .description(help)
+        .tags(tags);
+    if (quantiles.length > 0) {
+      builder.publishPercentiles(quantiles);
+    }
+    if (maxAgeSeconds != null) {
+      builder.distributionStatisticExpiry(Duration.ofSeconds(maxAgeSeconds));
+    }
+    if (ageBuckets != null) {
+      builder.distributionStatisticBufferLength(ageBuckets);
+    }
+    return builder.register(registry)::record;
+  }
+
+  @Override
+  public void observe(double duration, String... labelValues) {
+    meter(labelValues).observe(duration);
+  }
+
+  @Override
+  public ISummary.Child bind(String... labelValues) {
+    return meter(labelValues);
+  }
+
+}
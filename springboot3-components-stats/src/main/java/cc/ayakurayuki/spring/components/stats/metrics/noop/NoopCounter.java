@@ -7,6 +7,19 @@ import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
  */
 public class NoopCounter implements ICounter {
 
+  private static final Child CHILD = new Child() {
+    @Override
+    public void inc() {}
+
+    @Override
+    public void inc(double amount) {}
+
+    @Override
+    public double get() {
+      return 0;
+    }
+  };
+
   @Override
   public void inc(String... labelValues) {}
 
@@ -18,6 +31,11 @@ public class NoopCounter implements ICounter {
     return 0;
   }
 
+  @Override
+  public Child bind(String... labelValues) {
+    return CHILD;
+  }
+
   @Override
   public void register() {}
 
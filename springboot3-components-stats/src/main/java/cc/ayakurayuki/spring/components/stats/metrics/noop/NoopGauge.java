@@ -1,12 +1,35 @@
 package cc.ayakurayuki.spring.components.stats.metrics.noop;
 
 import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
+import java.util.function.DoubleSupplier;
 
 /**
  * @author Ayakura Yuki
  */
 public class NoopGauge implements IGauge {
 
+  private static final Child CHILD = new Child() {
+    @Override
+    public void inc() {}
+
+    @Override
+    public void inc(double amount) {}
+
+    @Override
+    public void dec() {}
+
+    @Override
+    public void dec(double amount) {}
+
+    @Override
+    public void set(double value) {}
+
+    @Override
+    public double get() {
+      return 0;
+    }
+  };
+
   @Override
   public void inc(String... labelValues) {}
 
@@ -27,6 +50,17 @@ public class NoopGauge implements IGauge {
     return 0;
   }
 
+  @Override
+  public void setCallback(DoubleSupplier callback, String... labelValues) {}
+
+  @Override
+  public void remove(String... labelValues) {}
+
+  @Override
+  public Child bind(String... labelValues) {
+    return CHILD;
+  }
+
   @Override
   public void register() {}
 
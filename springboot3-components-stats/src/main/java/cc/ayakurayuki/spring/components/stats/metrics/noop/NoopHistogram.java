@@ -7,6 +7,16 @@ import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
  */
 public class NoopHistogram implements IHistogram {
 
+  private static final Child CHILD = new Child() {
+    @Override
+    public void observe(double duration) {}
+
+    @Override
+    public double[] get() {
+      return new double[0];
+    }
+  };
+
   @Override
   public void observe(double duration, String... labelValues) {}
 
@@ -15,6 +25,11 @@ public class NoopHistogram implements IHistogram {
     return new double[labelValues.length];
   }
 
+  @Override
+  public Child bind(String... labelValues) {
+    return CHILD;
+  }
+
   @Override
   public void register() {}
 
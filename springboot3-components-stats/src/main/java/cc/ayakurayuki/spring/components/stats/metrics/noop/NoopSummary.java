@@ -7,9 +7,16 @@ import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
  */
 public class NoopSummary implements ISummary {
 
+  private static final Child CHILD = duration -> {};
+
   @Override
   public void observe(double duration, String... labelValues) {}
 
+  @Override
+  public Child bind(String... labelValues) {
+    return CHILD;
+  }
+
   @Override
   public void register() {}
 
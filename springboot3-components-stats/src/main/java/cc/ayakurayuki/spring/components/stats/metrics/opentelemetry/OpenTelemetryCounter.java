@@ -0,0 +1,70 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleCounter;
+import io.opentelemetry.api.metrics.Meter;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Counter as a {@link DoubleCounter}, the SDK cannot be read back, so every child keeps its own
+ * total for {@link #get(String...)}.
+ *
+ * @author Ayakura Yuki
+ */
+public class OpenTelemetryCounter extends OpenTelemetryInstruments<ICounter.Child> implements ICounter {
+
+  private final DoubleCounter counter;
+
+  OpenTelemetryCounter(Meter meter, AYCounter counter) {
+    super(counter);
+    this.counter = meter.counterBuilder(name)
+        .setDescription(help)
+        .ofDoubles()
+        .build();
+  }
+
+  @Override
+  ICounter.Child create(Attributes attributes) {
+    DoubleAdder total = new DoubleAdder();
+    return new ICounter.Child() {
+      @Override
+      public void inc() {
+        inc(1);
+      }
+
+      @Override
+      public void inc(double amount) {
+        counter.add(amount, attributes);
+        total.add(amount);
+      }
+
+      @Override
+      public double get() {
+        return total.sum();
+      }
+    };
+  }
+
+  @Override
+  public void inc(String... labelValues) {
+    child(labelValues).inc();
+  }
+
+  @Override
+  public void inc(double amount, String... labelValues) {
+    child(labelValues).inc(amount);
+  }
+
+  @Override
+  public double get(String... labelValues) {
+    return child(labelValues).get();
+  }
+
+  @Override
+  public ICounter.Child bind(String... labelValues) {
+    return child(labelValues);
+  }
+
+}
@@ -0,0 +1,126 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
+import com.google.common.util.concurrent.AtomicDouble;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Gauge as one asynchronous gauge, observing the value of every child, or the callback set for its
+ * label values, on collection. Removed children are no longer observed.
+ *
+ * @author Ayakura Yuki
+ */
+public class OpenTelemetryGauge extends OpenTelemetryInstruments<OpenTelemetryGauge.GaugeChild> implements IGauge {
+
+  OpenTelemetryGauge(Meter meter, AYGauge gauge) {
+    super(gauge);
+    meter.gaugeBuilder(name)
+        .setDescription(help)
+        .buildWithCallback(measurement -> {
+          for (GaugeChild child : children()) {
+            measurement.record(child.read(), child.attributes);
+          }
+        });
+  }
+
+  @Override
+  GaugeChild create(Attributes attributes) {
+    return new GaugeChild(attributes);
+  }
+
+  @Override
+  public void inc(String... labelValues) {
+    child(labelValues).inc();
+  }
+
+  @Override
+  public void inc(double amount, String... labelValues) {
+    child(labelValues).inc(amount);
+  }
+
+  @Override
+  public void dec(String... labelValues) {
+    child(labelValues).dec();
+  }
+
+  @Override
+  public void dec(double amount, String... labelValues) {
+    child(labelValues).dec(amount);
+  }
+
+  @Override
+  public void set(double value, String... labelValues) {
+    child(labelValues).set(value);
+  }
+
+  @Override
+  public double get(String... labelValues) {
+    return child(labelValues).get();
+  }
+
+  @Override
+  public void setCallback(DoubleSupplier callback, String... labelValues) {
+    child(labelValues).callback = callback;
+  }
+
+  @Override
+  public void remove(String... labelValues) {
+    forget(labelValues);
+  }
+
+  @Override
+  public IGauge.Child bind(String... labelValues) {
+    return child(labelValues);
+  }
+
+  static final class GaugeChild implements IGauge.Child {
+
+    private final    Attributes     attributes;
+    private final    AtomicDouble   value = new AtomicDouble();
+    private volatile DoubleSupplier callback;
+
+    private GaugeChild(Attributes attributes) {
+      this.attributes = attributes;
+    }
+
+    private double read() {
+      DoubleSupplier c = callback;
+      return c != null ? c.getAsDouble() : value.get();
+    }
+
+    @Override
+    public void inc() {
+      value.addAndGet(1);
+    }
+
+    @Override
+    public void inc(double amount) {
+      value.addAndGet(amount);
+    }
+
+    @Override
+    public void dec() {
+      value.addAndGet(-1);
+    }
+
+    @Override
+    public void dec(double amount) {
+      value.addAndGet(-amount);
+    }
+
+    @Override
+    public void set(double value) {
+      this.value.set(value);
+    }
+
+    @Override
+    public double get() {
+      return read();
+    }
+
+  }
+
+}
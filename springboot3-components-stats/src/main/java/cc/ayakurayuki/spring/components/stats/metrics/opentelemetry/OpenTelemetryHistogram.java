@@ -0,0 +1,60 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Histogram as a {@link DoubleHistogram}, aggregated into a base2 exponential histogram by
+ * {@link OpenTelemetryMetricPipeline}, the buckets of the collector are not used.
+ * <p>
+ * The SDK cannot be read back, {@link #get(String...)} returns no buckets.
+ *
+ * @author Ayakura Yuki
+ */
+public class OpenTelemetryHistogram extends OpenTelemetryInstruments<IHistogram.Child> implements IHistogram {
+
+  private static final double[] NO_BUCKETS = new double[0];
+
+  private final DoubleHistogram histogram;
+
+  OpenTelemetryHistogram(Meter meter, AYHistogram histogram) {
+    super(histogram);
+    this.histogram = meter.histogramBuilder(name)
+        .setDescription(help)
+        .build();
+  }
+
+  @Override
+  IHistogram.Child create(Attributes attributes) {
+    return new IHistogram.Child() {
+      @Override
+      public void observe(double duration) {
+        histogram.record(duration, attributes);
+      }
+
+      @Override
+      public double[] get() {
+        return NO_BUCKETS;
+      }
+    };
+  }
+
+  @Override
+  public void observe(double duration, String... labelValues) {
+    child(labelValues).observe(duration);
+  }
+
+  @Override
+  public double[] get(String... labelValues) {
+    return child(labelValues).get();
+  }
+
+  @Override
+  public IHistogram.Child bind(String... labelValues) {
+    return child(labelValues);
+  }
+
+}
@@ -0,0 +1,76 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYSimpleCollector;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Children of an instrument by label values.
+ * <p>
+ * The OpenTelemetry API has no bound instruments, a child holds the {@link Attributes} of its label
+ * values instead, so recording through a bound child skips building and hashing them again.
+ *
+ * @author Ayakura Yuki
+ */
+abstract class OpenTelemetryInstruments<C> {
+
+  final String name;
+  final String help;
+
+  private final List<AttributeKey<String>>     keys;
+  private final ConcurrentMap<List<String>, C> children = new ConcurrentHashMap<>();
+
+  OpenTelemetryInstruments(AYSimpleCollector<?, ?> collector) {
+    this.name = OpenTelemetryMetricFactory.nameOf(collector);
+    this.help = collector.getHelp();
+    this.keys = collector.getLabelNames() == null ? List.of() : Arrays.stream(collector.getLabelNames()).map(AttributeKey::stringKey).toList();
+  }
+
+  /**
+   * create the child recording with the attributes of the label values
+   */
+  abstract C create(Attributes attributes);
+
+  C child(String... labelValues) {
+    List<String> key = List.of(labelValues);
+    C child = children.get(key);
+    if (child == null) {
+      child = children.computeIfAbsent(key, k -> create(attributesOf(k)));
+    }
+    return child;
+  }
+
+  C forget(String... labelValues) {
+    return children.remove(List.of(labelValues));
+  }
+
+  Iterable<C> children() {
+    return children.values();
+  }
+
+  private Attributes attributesOf(List<String> labelValues) {
+    if (labelValues.size() != keys.size()) {
+      throw new IllegalArgumentException("Incorrect number of labels, expected %d but got %d".formatted(keys.size(), labelValues.size()));
+    }
+    AttributesBuilder builder = Attributes.builder();
+    for (int i = 0; i < keys.size(); i++) {
+      builder.put(keys.get(i), labelValues.get(i));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Create the child without labels up front, so it is exported before the first use.
+   */
+  public void register() {
+    if (keys.isEmpty()) {
+      child();
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
+import cc.ayakurayuki.spring.components.stats.metrics.AYGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSimpleCollector;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary;
+import cc.ayakurayuki.spring.components.stats.metrics.factory.MetricFactory;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+
+/**
+ * Metric factory recording the collectors with the OpenTelemetry metrics SDK, on the meter provider
+ * of {@link OpenTelemetryMetricPipeline}.
+ * <p>
+ * The starter builds the OpenTelemetry SDK of {@code CompositeOpenTelemetry} with the same meter
+ * provider, so the collectors, the spans and any other instrumentation of the SDK share one
+ * resource and one exporter configuration.
+ * <p>
+ * Only used when picked by environment {@code metric_factory=opentelemetry}.
+ *
+ * @author Ayakura Yuki
+ */
+public class OpenTelemetryMetricFactory implements MetricFactory {
+
+  public static final String INSTRUMENTATION_SCOPE = "cc.ayakurayuki.spring.components.stats";
+
+  private final Meter meter;
+
+  public OpenTelemetryMetricFactory() {
+    this(OpenTelemetryMetricPipeline.meterProvider());
+  }
+
+  public OpenTelemetryMetricFactory(MeterProvider meterProvider) {
+    this.meter = meterProvider.get(INSTRUMENTATION_SCOPE);
+  }
+
+  @Override
+  public ICounter counter(AYCounter counter) {
+    return new OpenTelemetryCounter(meter, counter);
+  }
+
+  @Override
+  public IGauge gauge(AYGauge gauge) {
+    return new OpenTelemetryGauge(meter, gauge);
+  }
+
+  @Override
+  public IHistogram histogram(AYHistogram histogram) {
+    return new OpenTelemetryHistogram(meter, histogram);
+  }
+
+  @Override
+  public ISummary summary(AYSummary summary) {
+    return new OpenTelemetrySummary(meter, summary);
+  }
+
+  @Override
+  public boolean isDefaultCandidate() {
+    return false;
+  }
+
+  static String nameOf(AYSimpleCollector<?, ?> collector) {
+    return Joiner.on('.').skipNulls().join(
+        Strings.emptyToNull(collector.getNamespace()),
+        Strings.emptyToNull(collector.getSubsystem()),
+        Strings.emptyToNull(collector.getName())
+    );
+  }
+
+}
@@ -0,0 +1,89 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import cc.ayakurayuki.spring.components.env.Environment;
+import cc.ayakurayuki.spring.components.env.Environments;
+import cc.ayakurayuki.spring.components.env.Key;
+import io.opentelemetry.exporter.otlp.metrics.OtlpGrpcMetricExporter;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import java.time.Duration;
+
+/**
+ * The meter provider shared by {@link OpenTelemetryMetricFactory} and the OpenTelemetry SDK of the
+ * starter, exporting with a periodic reader.
+ * <p>
+ * Environments:
+ * <ul>
+ *   <li>{@code otel_metrics_exporter}: {@code otlp} as default, or {@code none}</li>
+ *   <li>{@code otel_exporter_otlp_metrics_endpoint}: gRPC endpoint of the OTLP exporter, {@code http://localhost:4317} as default</li>
+ *   <li>{@code otel_metric_export_interval}: export interval in millis, 60000 as default</li>
+ * </ul>
+ * Tests replace the exporter with {@link #setExporter(MetricExporter)}, e.g. with an in-memory
+ * exporter, and export with {@link #flush()}.
+ *
+ * @author Ayakura Yuki
+ */
+public final class OpenTelemetryMetricPipeline {
+
+  private static final Key<String> METRICS_EXPORTER = Environment.key("otel_metrics_exporter", Environments.STRING_MARSHALLER);
+  private static final Key<String> METRICS_ENDPOINT = Environment.key("otel_exporter_otlp_metrics_endpoint", Environments.STRING_MARSHALLER);
+  private static final Key<Long>   EXPORT_INTERVAL  = Environment.key("otel_metric_export_interval", Environments.LONG_MARSHALLER);
+
+  private static final String DEFAULT_ENDPOINT        = "http://localhost:4317";
+  private static final long   DEFAULT_EXPORT_INTERVAL = 60_000;
+
+  private OpenTelemetryMetricPipeline() {
+  }
+
+  /**
+   * @return the meter provider, built on first use
+   */
+  public static SdkMeterProvider meterProvider() {
+    return Holder.METER_PROVIDER;
+  }
+
+  /**
+   * Replace the exporter, from the next export on.
+   *
+   * @param exporter the exporter, or null to drop the metrics
+   *
+   * @return the exporter replaced, not shut down
+   */
+  public static MetricExporter setExporter(MetricExporter exporter) {
+    return Holder.EXPORTER.set(exporter);
+  }
+
+  /**
+   * Export the metrics collected since the last export now.
+   */
+  public static CompletableResultCode flush() {
+    return meterProvider().forceFlush();
+  }
+
+  private static MetricExporter defaultExporter() {
+    String exporter = Environment.ofNullable(METRICS_EXPORTER).orElse("otlp");
+    if ("none".equalsIgnoreCase(exporter)) {
+      return null;
+    }
+    if (!"otlp".equalsIgnoreCase(exporter)) {
+      throw new IllegalArgumentException("Unsupported otel_metrics_exporter %s, expected otlp or none".formatted(exporter));
+    }
+    return OtlpGrpcMetricExporter.builder()
+        .setEndpoint(Environment.ofNullable(METRICS_ENDPOINT).orElse(DEFAULT_ENDPOINT))
+        .build();
+  }
+
+  private static class Holder {
+
+    private static final SwitchableMetricExporter EXPORTER       = new SwitchableMetricExporter(defaultExporter());
+    private static final SdkMeterProvider         METER_PROVIDER = SdkMeterProvider.builder()
+        .registerMetricReader(PeriodicMetricReader.builder(EXPORTER)
+                                  .setInterval(Duration.ofMillis(Environment.ofNullable(EXPORT_INTERVAL).orElse(DEFAULT_EXPORT_INTERVAL)))
+                                  .build())
+        .build();
+
+  }
+
+}
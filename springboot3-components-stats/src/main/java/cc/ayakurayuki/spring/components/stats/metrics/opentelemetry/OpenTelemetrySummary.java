@@ -0,0 +1,44 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Summary as a {@link DoubleHistogram}, OpenTelemetry has no summary instrument.
+ * <p>
+ * The base2 exponential histogram of {@link OpenTelemetryMetricPipeline} keeps a relative error, so
+ * the backend computes the quantiles from it, across instances as well. The quantiles and the
+ * sliding window of the collector are not used.
+ *
+ * @author Ayakura Yuki
+ */
+public class OpenTelemetrySummary extends OpenTelemetryInstruments<ISummary.Child> implements ISummary {
+
+  private final DoubleHistogram histogram;
+
+  OpenTelemetrySummary(Meter meter, AYSummary summary) {
+    super(summary);
+    this.histogram = meter.histogramBuilder(name)
+        .setDescription(help)
+        .build();
+  }
+
+  @Override
+  ISummary.Child create(Attributes attributes) {
+    return duration -> histogram.record(duration, attributes);
+  }
+
+  @Override
+  public void observe(double duration, String... labelValues) {
+    child(labelValues).observe(duration);
+  }
+
+  @Override
+  public ISummary.Child bind(String... labelValues) {
+    return child(labelValues);
+  }
+
+}
@@ -0,0 +1,67 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.AggregationTemporalitySelector;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exporter of the periodic reader, forwarding to an exporter replaceable at any time.
+ * <p>
+ * The reader asks for the temporality and the aggregation once per instrument, so they are fixed
+ * here rather than by the current exporter: delta temporality where the instrument allows it, and
+ * base2 exponential histograms.
+ *
+ * @author Ayakura Yuki
+ */
+final class SwitchableMetricExporter implements MetricExporter {
+
+  private static final AggregationTemporalitySelector TEMPORALITY = AggregationTemporalitySelector.deltaPreferred();
+
+  private final AtomicReference<MetricExporter> delegate;
+
+  SwitchableMetricExporter(MetricExporter delegate) {
+    this.delegate = new AtomicReference<>(delegate);
+  }
+
+  /**
+   * @return the exporter replaced, not shut down
+   */
+  MetricExporter set(MetricExporter exporter) {
+    return delegate.getAndSet(exporter);
+  }
+
+  @Override
+  public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+    return TEMPORALITY.getAggregationTemporality(instrumentType);
+  }
+
+  @Override
+  public Aggregation getDefaultAggregation(InstrumentType instrumentType) {
+    return instrumentType == InstrumentType.HISTOGRAM ? Aggregation.base2ExponentialBucketHistogram() : Aggregation.defaultAggregation();
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<MetricData> metrics) {
+    MetricExporter exporter = delegate.get();
+    return exporter == null ? CompletableResultCode.ofSuccess() : exporter.export(metrics);
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    MetricExporter exporter = delegate.get();
+    return exporter == null ? CompletableResultCode.ofSuccess() : exporter.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    MetricExporter exporter = delegate.get();
+    return exporter == null ? CompletableResultCode.ofSuccess() : exporter.shutdown();
+  }
+
+}
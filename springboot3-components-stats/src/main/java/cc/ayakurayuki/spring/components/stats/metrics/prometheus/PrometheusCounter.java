@@ -29,6 +29,27 @@ public class PrometheusCounter implements ICounter {
     return counter.labels(labelValues).get();
   }
 
+  @Override
+  public Child bind(String... labelValues) {
+    Counter.Child child = counter.labels(labelValues);
+    return new Child() {
+      @Override
+      public void inc() {
+        child.inc();
+      }
+
+      @Override
+      public void inc(double amount) {
+        child.inc(amount);
+      }
+
+      @Override
+      public double get() {
+        return child.get();
+      }
+    };
+  }
+
   @Override
   public void register() {
     counter.register();
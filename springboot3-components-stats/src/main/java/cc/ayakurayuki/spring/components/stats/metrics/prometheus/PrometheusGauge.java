@@ -2,6 +2,7 @@ package cc.ayakurayuki.spring.components.stats.metrics.prometheus;
 
 import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
 import io.prometheus.client.Gauge;
+import java.util.function.DoubleSupplier;
 
 /**
  * @author Ayakura Yuki
@@ -44,9 +45,73 @@ public class PrometheusGauge implements IGauge {
     return gauge.labels(labelValues).get();
   }
 
+  @Override
+  public void setCallback(DoubleSupplier callback, String... labelValues) {
+    gauge.setChild(new CallbackChild(callback), labelValues);
+  }
+
+  @Override
+  public void remove(String... labelValues) {
+    gauge.remove(labelValues);
+  }
+
+  @Override
+  public Child bind(String... labelValues) {
+    Gauge.Child child = gauge.labels(labelValues);
+    return new Child() {
+      @Override
+      public void inc() {
+        child.inc();
+      }
+
+      @Override
+      public void inc(double amount) {
+        child.inc(amount);
+      }
+
+      @Override
+      public void dec() {
+        child.dec();
+      }
+
+      @Override
+      public void dec(double amount) {
+        child.dec(amount);
+      }
+
+      @Override
+      public void set(double value) {
+        child.set(value);
+      }
+
+      @Override
+      public double get() {
+        return child.get();
+      }
+    };
+  }
+
   @Override
   public void register() {
     gauge.register();
   }
 
+  /**
+   * child reading its value from the callback on every collect
+   */
+  private static class CallbackChild extends Gauge.Child {
+
+    private final DoubleSupplier callback;
+
+    private CallbackChild(DoubleSupplier callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public double get() {
+      return callback.getAsDouble();
+    }
+
+  }
+
 }
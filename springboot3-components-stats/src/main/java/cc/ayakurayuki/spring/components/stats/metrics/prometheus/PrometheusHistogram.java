@@ -24,6 +24,22 @@ public class PrometheusHistogram implements IHistogram {
     return histogram.labels(labelValues).get().buckets;
   }
 
+  @Override
+  public Child bind(String... labelValues) {
+    Histogram.Child child = histogram.labels(labelValues);
+    return new Child() {
+      @Override
+      public void observe(double duration) {
+        child.observe(duration);
+      }
+
+      @Override
+      public double[] get() {
+        return child.get().buckets;
+      }
+    };
+  }
+
   @Override
   public void register() {
     histogram.register();
@@ -65,6 +65,9 @@ public class PrometheusMetricFactory implements MetricFactory {
 
   @Override
   public ISummary summary(AYSummary summary) {
+    if (summary.getRelativeAccuracy() != null) {
+      return new PrometheusSketchSummary(summary);
+    }
     Summary.Builder builder = Summary.build()
         .namespace(summary.getNamespace())
         .subsystem(summary.getSubsystem())
@@ -0,0 +1,136 @@
+package cc.ayakurayuki.spring.components.stats.metrics.prometheus;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary.AYQuantile;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import cc.ayakurayuki.spring.components.stats.stats.QuantileSketch;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import io.prometheus.client.Collector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Summary recording into a {@link QuantileSketch} per label values, instead of the CKMS estimator
+ * of {@link io.prometheus.client.Summary}.
+ * <p>
+ * Exports two families:
+ * <ul>
+ *   <li>{@code <name>}, a summary with the quantiles of the sliding window, and the total count and sum;</li>
+ *   <li>{@code <name>_sketch}, a histogram with the cumulative counts of every bucket of the sketch
+ *   from the lowest to the highest non-empty one. Bucket bounds only depend on the accuracy, so the
+ *   series of every instance add up, e.g.
+ *   {@code histogram_quantile(0.99, sum by (le) (rate(<name>_sketch_bucket[5m])))}.</li>
+ * </ul>
+ * <p>
+ * A bucket once exported stays exported, so its {@code le} series never goes stale, but every label
+ * values can export hundreds of bucket series: about 115 per decade of values at an accuracy of 1%,
+ * e.g. some 460 for latencies between 1ms and 10s, and about 23 per decade at 5%. Keep the accuracy
+ * coarse and the labels few.
+ *
+ * @author Ayakura Yuki
+ */
+public class PrometheusSketchSummary implements ISummary {
+
+  private static final long DEFAULT_MAX_AGE_SECONDS = 600;
+  private static final int  DEFAULT_AGE_BUCKETS     = 5;
+
+  private final String           name;
+  private final String           help;
+  private final List<String>     labelNames;
+  private final List<AYQuantile> quantiles;
+  private final double           relativeAccuracy;
+  private final long             maxAgeSeconds;
+  private final int              ageBuckets;
+
+  private final ConcurrentMap<List<String>, QuantileSketch> children = new ConcurrentHashMap<>();
+  private final Collector                                   collector = new SketchCollector();
+
+  PrometheusSketchSummary(AYSummary summary) {
+    this.name = Joiner.on('_').skipNulls().join(
+        Strings.emptyToNull(summary.getNamespace()),
+        Strings.emptyToNull(summary.getSubsystem()),
+        Strings.emptyToNull(summary.getName())
+    );
+    this.help = summary.getHelp();
+    this.labelNames = summary.getLabelNames() != null ? List.of(summary.getLabelNames()) : List.of();
+    this.quantiles = summary.getQuantiles() != null ? List.copyOf(summary.getQuantiles()) : List.of();
+    this.relativeAccuracy = summary.getRelativeAccuracy();
+    this.maxAgeSeconds = summary.getMaxAgeSeconds() != null ? summary.getMaxAgeSeconds() : DEFAULT_MAX_AGE_SECONDS;
+    this.ageBuckets = summary.getAgeBuckets() != null ? summary.getAgeBuckets() : DEFAULT_AGE_BUCKETS;
+  }
+
+  @Override
+  public void observe(double duration, String... labelValues) {
+    child(labelValues).record(duration);
+  }
+
+  @Override
+  public Child bind(String... labelValues) {
+    return child(labelValues)::record;
+  }
+
+  @Override
+  public void register() {
+    collector.register();
+  }
+
+  private QuantileSketch child(String[] labelValues) {
+    if (labelValues.length != labelNames.size()) {
+      throw new IllegalArgumentException("Incorrect number of labels, expected %d but got %d".formatted(labelNames.size(), labelValues.length));
+    }
+    List<String> key = List.of(labelValues);
+    QuantileSketch sketch = children.get(key);
+    if (sketch == null) {
+      sketch = children.computeIfAbsent(key, k -> new QuantileSketch(relativeAccuracy, maxAgeSeconds, ageBuckets));
+    }
+    return sketch;
+  }
+
+  private static List<String> with(List<String> list, String element) {
+    List<String> result = new ArrayList<>(list.size() + 1);
+    result.addAll(list);
+    result.add(element);
+    return result;
+  }
+
+  private class SketchCollector extends Collector {
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+      List<MetricFamilySamples.Sample> summarySamples = new ArrayList<>();
+      List<MetricFamilySamples.Sample> sketchSamples = new ArrayList<>();
+      List<String> quantileLabels = with(labelNames, "quantile");
+      List<String> bucketLabels = with(labelNames, "le");
+      children.forEach((labelValues, sketch) -> {
+        QuantileSketch.Snapshot total = sketch.snapshot();
+        if (!quantiles.isEmpty()) {
+          QuantileSketch.Snapshot window = sketch.window();
+          for (AYQuantile q : quantiles) {
+            summarySamples.add(new MetricFamilySamples.Sample(name, quantileLabels, with(labelValues, doubleToGoString(q.quantile())), window.quantile(q.quantile())));
+          }
+        }
+        summarySamples.add(new MetricFamilySamples.Sample(name + "_count", labelNames, labelValues, total.getCount()));
+        summarySamples.add(new MetricFamilySamples.Sample(name + "_sum", labelNames, labelValues, total.getSum()));
+
+        long[] cumulative = {0};
+        total.forEachSpannedBucket((upperBound, count) -> {
+          cumulative[0] += count;
+          sketchSamples.add(new MetricFamilySamples.Sample(name + "_sketch_bucket", bucketLabels, with(labelValues, doubleToGoString(upperBound)), cumulative[0]));
+        });
+        sketchSamples.add(new MetricFamilySamples.Sample(name + "_sketch_bucket", bucketLabels, with(labelValues, "+Inf"), total.getCount()));
+        sketchSamples.add(new MetricFamilySamples.Sample(name + "_sketch_count", labelNames, labelValues, total.getCount()));
+        sketchSamples.add(new MetricFamilySamples.Sample(name + "_sketch_sum", labelNames, labelValues, total.getSum()));
+      });
+      return Arrays.asList(
+          new MetricFamilySamples(name, Type.SUMMARY, help, summarySamples),
+          new MetricFamilySamples(name + "_sketch", Type.HISTOGRAM, help + " (sketch buckets, relative accuracy %s)".formatted(relativeAccuracy), sketchSamples)
+      );
+    }
+
+  }
+
+}
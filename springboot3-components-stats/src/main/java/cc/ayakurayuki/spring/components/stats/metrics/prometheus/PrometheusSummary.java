@@ -19,6 +19,12 @@ public class PrometheusSummary implements ISummary {
     summary.labels(labelValues).observe(duration);
   }
 
+  @Override
+  public Child bind(String... labelValues) {
+    Summary.Child child = summary.labels(labelValues);
+    return child::observe;
+  }
+
   @Override
   public void register() {
     summary.register();
@@ -11,4 +11,43 @@ public interface ICounter extends IVector {
 
   double get(String... labelValues);
 
+  /**
+   * Bind the label values to their child, counting through the child skips the label lookup.
+   * <p>
+   * The default child goes through the label lookup of this vector on every call, backends override
+   * it with a child holding the series.
+   */
+  default Child bind(String... labelValues) {
+    String[] values = labelValues.clone();
+    return new Child() {
+      @Override
+      public void inc() {
+        ICounter.this.inc(values);
+      }
+
+      @Override
+      public void inc(double amount) {
+        ICounter.this.inc(amount, values);
+      }
+
+      @Override
+      public double get() {
+        return ICounter.this.get(values);
+      }
+    };
+  }
+
+  /**
+   * counter of one label values
+   */
+  interface Child {
+
+    void inc();
+
+    void inc(double amount);
+
+    double get();
+
+  }
+
 }
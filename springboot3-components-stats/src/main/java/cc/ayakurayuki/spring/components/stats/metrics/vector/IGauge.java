@@ -1,5 +1,7 @@
 package cc.ayakurayuki.spring.components.stats.metrics.vector;
 
+import java.util.function.DoubleSupplier;
+
 /**
  * @author Ayakura Yuki
  */
@@ -17,4 +19,82 @@ public interface IGauge extends IVector {
 
   double get(String... labelValues);
 
+  /**
+   * Bind the child of the label values to a callback, evaluated when the metric is collected.
+   * <p>
+   * The default reads the callback once and sets its value, it is not evaluated again on collection,
+   * backends override it to evaluate the callback on every collection.
+   */
+  default void setCallback(DoubleSupplier callback, String... labelValues) {
+    set(callback.getAsDouble(), labelValues);
+  }
+
+  /**
+   * Remove the child of the label values.
+   * <p>
+   * Does nothing by default, backends holding children override it.
+   */
+  default void remove(String... labelValues) {
+  }
+
+  /**
+   * Bind the label values to their child, setting through the child skips the label lookup.
+   * <p>
+   * The default child goes through the label lookup of this vector on every call, backends override
+   * it with a child holding the series.
+   */
+  default Child bind(String... labelValues) {
+    String[] values = labelValues.clone();
+    return new Child() {
+      @Override
+      public void inc() {
+        IGauge.this.inc(values);
+      }
+
+      @Override
+      public void inc(double amount) {
+        IGauge.this.inc(amount, values);
+      }
+
+      @Override
+      public void dec() {
+        IGauge.this.dec(values);
+      }
+
+      @Override
+      public void dec(double amount) {
+        IGauge.this.dec(amount, values);
+      }
+
+      @Override
+      public void set(double value) {
+        IGauge.this.set(value, values);
+      }
+
+      @Override
+      public double get() {
+        return IGauge.this.get(values);
+      }
+    };
+  }
+
+  /**
+   * gauge of one label values
+   */
+  interface Child {
+
+    void inc();
+
+    void inc(double amount);
+
+    void dec();
+
+    void dec(double amount);
+
+    void set(double value);
+
+    double get();
+
+  }
+
 }
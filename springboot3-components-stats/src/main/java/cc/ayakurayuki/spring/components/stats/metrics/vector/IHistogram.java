@@ -9,4 +9,36 @@ public interface IHistogram extends IVector {
 
   double[] get(String... labelValues);
 
+  /**
+   * Bind the label values to their child, observing through the child skips the label lookup.
+   * <p>
+   * The default child goes through the label lookup of this vector on every call, backends override
+   * it with a child holding the series.
+   */
+  default Child bind(String... labelValues) {
+    String[] values = labelValues.clone();
+    return new Child() {
+      @Override
+      public void observe(double duration) {
+        IHistogram.this.observe(duration, values);
+      }
+
+      @Override
+      public double[] get() {
+        return IHistogram.this.get(values);
+      }
+    };
+  }
+
+  /**
+   * histogram of one label values
+   */
+  interface Child {
+
+    void observe(double duration);
+
+    double[] get();
+
+  }
+
 }
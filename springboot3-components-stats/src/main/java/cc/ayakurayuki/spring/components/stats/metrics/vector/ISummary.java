@@ -7,4 +7,24 @@ public interface ISummary extends IVector {
 
   void observe(double duration, String... labelValues);
 
+  /**
+   * Bind the label values to their child, observing through the child skips the label lookup.
+   * <p>
+   * The default child goes through the label lookup of this vector on every call, backends override
+   * it with a child holding the series.
+   */
+  default Child bind(String... labelValues) {
+    String[] values = labelValues.clone();
+    return duration -> ISummary.this.observe(duration, values);
+  }
+
+  /**
+   * summary of one label values
+   */
+  interface Child {
+
+    void observe(double duration);
+
+  }
+
 }
@@ -0,0 +1,61 @@
+package cc.ayakurayuki.spring.components.stats.model;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
+import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+
+/**
+ * @author Ayakura Yuki
+ */
+public class RequestCache {
+
+  private static final String NAMESPACE = "request_cache";
+
+  /**
+   * 请求内缓存命中总数
+   */
+  public static final AYCounter REQUEST_CACHE_HIT = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("lookups")
+      .name("hit_total")
+      .help("request cache hit total")
+      .labelNames("name")
+      .create()
+      .register();
+
+  /**
+   * 请求内缓存未命中总数
+   */
+  public static final AYCounter REQUEST_CACHE_MISS = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("lookups")
+      .name("miss_total")
+      .help("request cache miss total")
+      .labelNames("name")
+      .create()
+      .register();
+
+  /**
+   * 单个请求的缓存命中数
+   */
+  public static final AYHistogram REQUEST_CACHE_HIT_PER_REQUEST = AYHistogram.build()
+      .namespace(NAMESPACE)
+      .subsystem("requests")
+      .name("hits")
+      .help("request cache hits per request")
+      .buckets(0, 1, 2, 5, 10, 20, 50, 100)
+      .create()
+      .register();
+
+  /**
+   * 单个请求的缓存未命中数
+   */
+  public static final AYHistogram REQUEST_CACHE_MISS_PER_REQUEST = AYHistogram.build()
+      .namespace(NAMESPACE)
+      .subsystem("requests")
+      .name("misses")
+      .help("request cache misses per request")
+      .buckets(0, 1, 2, 5, 10, 20, 50, 100)
+      .create()
+      .register();
+
+}
@@ -1,6 +1,8 @@
 package cc.ayakurayuki.spring.components.stats.model;
 
+import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
 import cc.ayakurayuki.spring.components.stats.metrics.AYGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
 
 /**
  * @author Ayakura Yuki
@@ -27,4 +29,159 @@ public class ThreadPool {
       .create()
       .register();
 
+  public static final AYGauge POOL_STATE_ACTIVE_PEAK = AYGauge.build()
+      .namespace(NAMESPACE)
+      .subsystem("threads")
+      .name("active_peak")
+      .help("thread pool peak active within the last one to two minutes")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYGauge POOL_STATE_TASK_WAITING_PEAK = AYGauge.build()
+      .namespace(NAMESPACE)
+      .subsystem("threads")
+      .name("task_waiting_peak")
+      .help("thread pool peak task waiting within the last one to two minutes")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYCounter POOL_FORK_JOIN_COMPENSATED = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("threads")
+      .name("compensated_total")
+      .help("fork join threads created over the parallelism to compensate blocked workers")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYCounter POOL_VIRTUAL_PINNED = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("threads")
+      .name("pinned_total")
+      .help("virtual threads pinned to the carrier while blocking")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYGauge POOL_SIZE_CORE = AYGauge.build()
+      .namespace(NAMESPACE)
+      .subsystem("size")
+      .name("core")
+      .help("thread pool current core size")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYGauge POOL_SIZE_MAX = AYGauge.build()
+      .namespace(NAMESPACE)
+      .subsystem("size")
+      .name("max")
+      .help("thread pool current max size")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYGauge POOL_SIZE_CURRENT = AYGauge.build()
+      .namespace(NAMESPACE)
+      .subsystem("size")
+      .name("current")
+      .help("thread pool current threads, including compensation threads of fork join pools")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYGauge POOL_SIZING_RESOURCE = AYGauge.build()
+      .namespace(NAMESPACE)
+      .subsystem("sizing")
+      .name("resource")
+      .help("container resources the default pool sizes come from, e.g. cpu_limit, memory_limit_bytes, blocking_coefficient")
+      .labelNames("resource")
+      .create()
+      .register();
+
+  public static final AYGauge POOL_SIZING_DEFAULT = AYGauge.build()
+      .namespace(NAMESPACE)
+      .subsystem("sizing")
+      .name("default")
+      .help("default pool size chosen from the container resources")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYHistogram POOL_TASK_WAIT = AYHistogram.build()
+      .namespace(NAMESPACE)
+      .subsystem("tasks")
+      .name("wait_ms")
+      .help("thread pool task queue wait time")
+      .labelNames("name")
+      .buckets(0.1, 0.5, 1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000)
+      .create()
+      .register();
+
+  public static final AYHistogram POOL_TASK_RUN = AYHistogram.build()
+      .namespace(NAMESPACE)
+      .subsystem("tasks")
+      .name("run_ms")
+      .help("thread pool task run time")
+      .labelNames("name")
+      .buckets(0.1, 0.5, 1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000)
+      .create()
+      .register();
+
+  public static final AYCounter POOL_TASK_COMPLETED = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("tasks")
+      .name("completed_total")
+      .help("thread pool completed tasks")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYCounter POOL_TASK_REJECTED = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("tasks")
+      .name("rejected_total")
+      .help("thread pool rejected tasks")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYCounter POOL_TASK_MANAGED_BLOCK = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("tasks")
+      .name("managed_blocks_total")
+      .help("blocking sections run as fork join managed blocks")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYCounter POOL_TASK_SHED = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("tasks")
+      .name("shed_total")
+      .help("thread pool tasks shed for waiting too long in the queue")
+      .labelNames("name")
+      .create()
+      .register();
+
+  public static final AYCounter POOL_TASK_TIMEOUT = AYCounter.build()
+      .namespace(NAMESPACE)
+      .subsystem("tasks")
+      .name("timeout_total")
+      .help("thread pool tasks over their deadline, dropped while queued or interrupted while running")
+      .labelNames("name", "stage")
+      .create()
+      .register();
+
+  public static final AYGauge POOL_QUEUE_OVERLOADED = AYGauge.build()
+      .namespace(NAMESPACE)
+      .subsystem("queue")
+      .name("overloaded")
+      .help("thread pool queue not empty for a whole interval, 1 for overloaded")
+      .labelNames("name")
+      .create()
+      .register();
+
 }
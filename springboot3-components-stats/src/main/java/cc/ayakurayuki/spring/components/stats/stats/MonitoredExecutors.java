@@ -0,0 +1,100 @@
+package cc.ayakurayuki.spring.components.stats.stats;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYGauge;
+import com.google.common.base.Preconditions;
+import jakarta.annotation.Nonnull;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Registry of monitored executors, reporting their state by scrape-time callback gauges.
+ * <p>
+ * Executors are held by weak references, so the registry never keeps an executor alive. Nothing
+ * is polled in background, the values are read from the executor only when the metrics are
+ * scraped, and the series of a collected executor are removed on the next scrape.
+ * <pre>{@code
+ * MonitoredExecutors.monitor(name, executor)
+ *     .gauge(ThreadPool.POOL_STATE_ACTIVE, ThreadPoolExecutor::getActiveCount)
+ *     .gauge(ThreadPool.POOL_STATE_TASK_WAITING, e -> e.getQueue().size());
+ * }</pre>
+ * The value functions get the executor as argument, they must not capture it.
+ *
+ * @author Ayakura Yuki
+ */
+public final class MonitoredExecutors {
+
+  private static final ReferenceQueue<Object>        COLLECTED     = new ReferenceQueue<>();
+  private static final Map<String, Registration<?>> REGISTRATIONS = new ConcurrentHashMap<>();
+
+  private MonitoredExecutors() {}
+
+  /**
+   * Monitor an executor by name, a later executor of the same name takes over the series.
+   */
+  public static <T> Registration<T> monitor(@Nonnull String name, @Nonnull T executor) {
+    Preconditions.checkNotNull(executor, "executor");
+    expunge();
+    Registration<T> registration = new Registration<>(name, executor);
+    REGISTRATIONS.put(name, registration);
+    return registration;
+  }
+
+  /**
+   * @return count of executors being monitored
+   */
+  public static int size() {
+    expunge();
+    return REGISTRATIONS.size();
+  }
+
+  /**
+   * drop the series of collected executors
+   */
+  private static void expunge() {
+    Reference<?> reference;
+    while ((reference = COLLECTED.poll()) != null) {
+      Registration<?> registration = (Registration<?>) reference;
+      // only the latest executor of a name owns the series
+      if (REGISTRATIONS.remove(registration.name, registration)) {
+        for (AYGauge gauge : registration.gauges) {
+          gauge.remove(registration.name);
+        }
+      }
+    }
+  }
+
+  /**
+   * gauges bound to a monitored executor
+   */
+  public static final class Registration<T> extends WeakReference<T> {
+
+    private final String        name;
+    private final List<AYGauge> gauges = new CopyOnWriteArrayList<>();
+
+    private Registration(String name, T executor) {
+      super(executor, COLLECTED);
+      this.name = name;
+    }
+
+    /**
+     * Report {@code value} of the executor to the gauge, labeled by the executor name.
+     */
+    public Registration<T> gauge(@Nonnull AYGauge gauge, @Nonnull ToDoubleFunction<? super T> value) {
+      gauges.add(gauge);
+      gauge.setCallback(() -> {
+        expunge();
+        T executor = get();
+        return executor == null ? 0 : value.applyAsDouble(executor);
+      }, name);
+      return this;
+    }
+
+  }
+
+}
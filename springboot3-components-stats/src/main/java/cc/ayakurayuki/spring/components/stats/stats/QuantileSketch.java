@@ -0,0 +1,359 @@
+package cc.ayakurayuki.spring.components.stats.stats;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Lock-free quantile sketch with a relative accuracy, in the way of DDSketch.
+ * <p>
+ * Values fall into logarithmic buckets, bucket {@code i} holds {@code (gamma^(i-1), gamma^i]} with
+ * {@code gamma = (1 + accuracy) / (1 - accuracy)}, so any quantile is within the relative accuracy
+ * of the true value. Values up to {@value #MIN_VALUE} (zero and negatives) share one bucket, and
+ * values above {@value #MAX_VALUE} count in the last one.
+ * <p>
+ * Recording is a single atomic increment in a stripe of the recording thread, there is no lock and
+ * no buffer to flush. Stripes and their bucket chunks are allocated on first use, so a sketch only
+ * costs memory for the range its values span.
+ * <p>
+ * Bucket boundaries only depend on the accuracy, so the buckets of sketches with the same accuracy,
+ * e.g. of every pod of a service, merge by adding the counts. Quantiles of a sliding window of
+ * {@code maxAgeSeconds} come from the difference to a snapshot taken {@code ageBuckets} rotations
+ * ago.
+ *
+ * @author Ayakura Yuki
+ */
+public final class QuantileSketch {
+
+  public static final double MIN_VALUE = 1e-9;
+  public static final double MAX_VALUE = 1e12;
+
+  private static final int CHUNK_BITS = 6;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int STRIPES    = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1), 16);
+
+  private final double gamma;
+  private final double logGamma;
+  private final int    minIndex;
+  private final int    buckets; // zero bucket included
+  private final int    chunks;
+
+  private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+  private final DoubleAdder                  sum     = new DoubleAdder();
+
+  // sliding window
+  private final long                           rotationNanos;
+  private final AtomicLong                     nextRotation;
+  private final AtomicReferenceArray<Snapshot> ring;
+  private volatile int                         rotations;
+
+  /**
+   * Create a sketch with a sliding window of 10 minutes in 5 age buckets, like a Prometheus summary.
+   */
+  public QuantileSketch(double relativeAccuracy) {
+    this(relativeAccuracy, TimeUnit.MINUTES.toSeconds(10), 5);
+  }
+
+  /**
+   * @param relativeAccuracy max relative error of the quantiles, in {@code (0, 1)}
+   * @param maxAgeSeconds    length of the sliding window of {@link #window()}
+   * @param ageBuckets       rotations within the window, the window slides by {@code maxAgeSeconds / ageBuckets}
+   */
+  public QuantileSketch(double relativeAccuracy, long maxAgeSeconds, int ageBuckets) {
+    Preconditions.checkArgument(relativeAccuracy > 0 && relativeAccuracy < 1, "relativeAccuracy must be in (0, 1)");
+    Preconditions.checkArgument(maxAgeSeconds > 0, "maxAgeSeconds must be positive");
+    Preconditions.checkArgument(ageBuckets > 0, "ageBuckets must be positive");
+    this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+    this.logGamma = StrictMath.log(gamma);
+    this.minIndex = index(MIN_VALUE);
+    this.buckets = index(MAX_VALUE) - minIndex + 2;
+    this.chunks = (buckets + CHUNK_MASK) >>> CHUNK_BITS;
+
+    this.rotationNanos = Math.max(1, TimeUnit.SECONDS.toNanos(maxAgeSeconds) / ageBuckets);
+    this.nextRotation = new AtomicLong(System.nanoTime() + rotationNanos);
+    this.ring = new AtomicReferenceArray<>(ageBuckets);
+    Snapshot empty = new Snapshot(new long[chunks][], 0);
+    for (int i = 0; i < ageBuckets; i++) {
+      ring.set(i, empty);
+    }
+  }
+
+  public void record(double value) {
+    rotate();
+    int bucket = bucketOf(value);
+    AtomicLongArray chunk = stripe().chunk(bucket >>> CHUNK_BITS);
+    chunk.incrementAndGet(bucket & CHUNK_MASK);
+    sum.add(value);
+  }
+
+  /**
+   * @return counts of everything recorded so far
+   */
+  public Snapshot snapshot() {
+    long[][] counts = new long[chunks][];
+    for (int s = 0; s < STRIPES; s++) {
+      Stripe stripe = stripes.get(s);
+      if (stripe == null) {
+        continue;
+      }
+      for (int c = 0; c < chunks; c++) {
+        AtomicLongArray chunk = stripe.chunks.get(c);
+        if (chunk == null) {
+          continue;
+        }
+        if (counts[c] == null) {
+          counts[c] = new long[CHUNK_SIZE];
+        }
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+          counts[c][i] += chunk.get(i);
+        }
+      }
+    }
+    return new Snapshot(counts, sum.sum());
+  }
+
+  /**
+   * @return counts recorded within the sliding window, its sum is not tracked
+   */
+  public Snapshot window() {
+    rotate();
+    Snapshot oldest = ring.get(rotations % ring.length());
+    return snapshot().minus(oldest);
+  }
+
+  public double getRelativeAccuracy() {
+    return (gamma - 1) / (gamma + 1);
+  }
+
+  private void rotate() {
+    long next = nextRotation.get();
+    long now = System.nanoTime();
+    if (now - next < 0) {
+      return;
+    }
+    long missed = (now - next) / rotationNanos + 1;
+    if (!nextRotation.compareAndSet(next, next + missed * rotationNanos)) {
+      return; // rotated by another thread
+    }
+    // nothing was recorded in the missed rotations, they all share the current counts
+    Snapshot current = snapshot();
+    int r = rotations;
+    for (long i = 0; i < Math.min(missed, ring.length()); i++) {
+      ring.set(r % ring.length(), current);
+      r++;
+    }
+    rotations = r;
+  }
+
+  private Stripe stripe() {
+    long id = Thread.currentThread().threadId();
+    int s = (int) (id ^ (id >>> 16)) * 0x9E3779B9 >>> 16 & (STRIPES - 1);
+    Stripe stripe = stripes.get(s);
+    if (stripe == null) {
+      stripes.compareAndSet(s, null, new Stripe(chunks));
+      stripe = stripes.get(s);
+    }
+    return stripe;
+  }
+
+  private int index(double value) {
+    return (int) Math.ceil(Math.log(value) / logGamma);
+  }
+
+  private int bucketOf(double value) {
+    if (!(value > MIN_VALUE)) {
+      return 0; // zero, negative and NaN
+    }
+    if (value >= MAX_VALUE) {
+      return buckets - 1;
+    }
+    return Math.clamp(index(value) - minIndex + 1, 1, buckets - 1);
+  }
+
+  /**
+   * @return upper bound of the bucket, computed with {@link StrictMath} so every JVM reports the same bounds
+   */
+  private double upperBound(int bucket) {
+    return bucket == 0 ? MIN_VALUE : StrictMath.pow(gamma, bucket - 1 + minIndex);
+  }
+
+  /**
+   * @return value reported for the bucket, within the relative accuracy of all its values
+   */
+  private double valueOf(int bucket) {
+    return bucket == 0 ? 0 : 2 * upperBound(bucket) / (gamma + 1);
+  }
+
+  /**
+   * buckets of the threads hashing to the stripe
+   */
+  private static final class Stripe {
+
+    private final AtomicReferenceArray<AtomicLongArray> chunks;
+
+    private Stripe(int chunks) {
+      this.chunks = new AtomicReferenceArray<>(chunks);
+    }
+
+    private AtomicLongArray chunk(int c) {
+      AtomicLongArray chunk = chunks.get(c);
+      if (chunk == null) {
+        chunks.compareAndSet(c, null, new AtomicLongArray(CHUNK_SIZE));
+        chunk = chunks.get(c);
+      }
+      return chunk;
+    }
+
+  }
+
+  /**
+   * Visitor of the buckets, in ascending order.
+   */
+  @FunctionalInterface
+  public interface BucketVisitor {
+
+    /**
+     * @param upperBound upper bound of the bucket, inclusive
+     * @param count      count of the bucket, not cumulative
+     */
+    void visit(double upperBound, long count);
+
+  }
+
+  /**
+   * Immutable counts of the sketch at a moment.
+   */
+  public final class Snapshot {
+
+    private final long[][] counts;
+    private final long     count;
+    private final double   sum;
+
+    private Snapshot(long[][] counts, double sum) {
+      this.counts = counts;
+      this.sum = sum;
+      long total = 0;
+      for (long[] chunk : counts) {
+        if (chunk != null) {
+          for (long c : chunk) {
+            total += c;
+          }
+        }
+      }
+      this.count = total;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getSum() {
+      return sum;
+    }
+
+    /**
+     * @param q quantile in {@code [0, 1]}
+     *
+     * @return value of the quantile, {@link Double#NaN} if empty
+     */
+    public double quantile(double q) {
+      Preconditions.checkArgument(q >= 0 && q <= 1, "quantile must be in [0, 1]");
+      if (count == 0) {
+        return Double.NaN;
+      }
+      double rank = q * (count - 1);
+      long seen = 0;
+      for (int c = 0; c < counts.length; c++) {
+        if (counts[c] == null) {
+          continue;
+        }
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+          seen += counts[c][i];
+          if (seen > rank) {
+            return valueOf((c << CHUNK_BITS) + i);
+          }
+        }
+      }
+      return valueOf(buckets - 1);
+    }
+
+    /**
+     * Visit the non-empty buckets.
+     */
+    public void forEachBucket(BucketVisitor visitor) {
+      for (int c = 0; c < counts.length; c++) {
+        if (counts[c] == null) {
+          continue;
+        }
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+          if (counts[c][i] != 0) {
+            visitor.visit(upperBound((c << CHUNK_BITS) + i), counts[c][i]);
+          }
+        }
+      }
+    }
+
+    /**
+     * Visit every bucket from the lowest to the highest non-empty one, the empty ones between
+     * included. Counts only grow, so the buckets of successive snapshots of a sketch never shrink.
+     */
+    public void forEachSpannedBucket(BucketVisitor visitor) {
+      int lowest = -1;
+      int highest = -1;
+      for (int bucket = 0; bucket < buckets; bucket++) {
+        if (countOf(bucket) != 0) {
+          if (lowest < 0) {
+            lowest = bucket;
+          }
+          highest = bucket;
+        }
+      }
+      for (int bucket = lowest; lowest >= 0 && bucket <= highest; bucket++) {
+        visitor.visit(upperBound(bucket), countOf(bucket));
+      }
+    }
+
+    private long countOf(int bucket) {
+      long[] chunk = counts[bucket >>> CHUNK_BITS];
+      return chunk == null ? 0 : chunk[bucket & CHUNK_MASK];
+    }
+
+    /**
+     * @return counts of both snapshots added, both of sketches with the same accuracy
+     */
+    public Snapshot merge(Snapshot other) {
+      Preconditions.checkArgument(other.owner().gamma == gamma, "snapshots of sketches with different accuracy");
+      return combine(other, 1, sum + other.sum);
+    }
+
+    private Snapshot minus(Snapshot older) {
+      return combine(older, -1, Double.NaN);
+    }
+
+    private Snapshot combine(Snapshot other, long sign, double sum) {
+      long[][] combined = new long[chunks][];
+      for (int c = 0; c < chunks; c++) {
+        long[] a = counts[c];
+        long[] b = other.counts[c];
+        if (a == null && b == null) {
+          continue;
+        }
+        combined[c] = new long[CHUNK_SIZE];
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+          combined[c][i] = (a == null ? 0 : a[i]) + sign * (b == null ? 0 : b[i]);
+        }
+      }
+      return new Snapshot(combined, sum);
+    }
+
+    private QuantileSketch owner() {
+      return QuantileSketch.this;
+    }
+
+  }
+
+}
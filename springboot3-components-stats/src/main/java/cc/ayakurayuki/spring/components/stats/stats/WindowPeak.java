@@ -0,0 +1,58 @@
+package cc.ayakurayuki.spring.components.stats.stats;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Peak of a value within a fixed time window, so a short burst between two scrapes still shows up.
+ * <p>
+ * The reported peak is the one of the last complete window and the window in progress, a burst is
+ * visible for one to two windows whoever reads it, reading never resets it, so several scrapers
+ * see the same peak. The window should be longer than the scrape interval, 1 minute as default.
+ * <p>
+ * Updated on the hot path, the common case (no new peak) is a single volatile read.
+ *
+ * @author Ayakura Yuki
+ */
+public final class WindowPeak {
+
+  private static final long DEFAULT_WINDOW_SECONDS = 60;
+
+  private final long       windowNanos;
+  private final AtomicLong peak = new AtomicLong(); // peak of the window in progress
+  private       long       previous;                // peak of the last complete window, guarded by this
+  private       long       windowEnd;               // end of the window in progress, guarded by this
+
+  public WindowPeak() {
+    this(DEFAULT_WINDOW_SECONDS, TimeUnit.SECONDS);
+  }
+
+  public WindowPeak(long window, TimeUnit unit) {
+    Preconditions.checkArgument(window > 0, "window must be positive");
+    this.windowNanos = unit.toNanos(window);
+    this.windowEnd = System.nanoTime() + windowNanos;
+  }
+
+  public void update(long value) {
+    long current = peak.get();
+    while (value > current && !peak.compareAndSet(current, value)) {
+      current = peak.get();
+    }
+  }
+
+  /**
+   * Peak of the last complete window and the one in progress, windows roll over when read.
+   *
+   * @param current value at the moment, the peak is never below it
+   */
+  public synchronized long get(long current) {
+    long now = System.nanoTime();
+    if (now - windowEnd >= 0) {
+      previous = peak.getAndSet(0);
+      windowEnd = now + windowNanos;
+    }
+    return Math.max(Math.max(previous, peak.get()), current);
+  }
+
+}
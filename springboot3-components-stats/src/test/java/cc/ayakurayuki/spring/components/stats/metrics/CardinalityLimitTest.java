@@ -0,0 +1,77 @@
+package cc.ayakurayuki.spring.components.stats.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CardinalityLimitTest {
+
+  private static final String[] OVERFLOW = {CardinalityLimit.OVERFLOW, CardinalityLimit.OVERFLOW};
+
+  @Test
+  void testFoldBeyondLimit() {
+    CardinalityLimit limit = new CardinalityLimit("test_limit", 2, 2);
+    assert Arrays.equals(limit.admit(new String[]{"/a", "200"}), new String[]{"/a", "200"});
+    assert Arrays.equals(limit.admit(new String[]{"/b", "200"}), new String[]{"/b", "200"});
+    assert Arrays.equals(limit.admit(new String[]{"/c", "200"}), OVERFLOW);
+    assert Arrays.equals(limit.admit(new String[]{"/d", "404"}), OVERFLOW);
+    // admitted values stay admitted
+    assert Arrays.equals(limit.admit(new String[]{"/a", "200"}), new String[]{"/a", "200"});
+    assert limit.getOverflowCount() == 2;
+  }
+
+  @Test
+  void testRelease() {
+    CardinalityLimit limit = new CardinalityLimit("test_release", 1, 2);
+    limit.admit(new String[]{"/a", "200"});
+    assert Arrays.equals(limit.admit(new String[]{"/b", "200"}), OVERFLOW);
+    limit.release(new String[]{"/a", "200"});
+    assert Arrays.equals(limit.admit(new String[]{"/b", "200"}), new String[]{"/b", "200"});
+  }
+
+  @Test
+  void testUnlimited() {
+    CardinalityLimit limit = new CardinalityLimit("test_unlimited", 0, 1);
+    for (int i = 0; i < 1000; i++) {
+      assert limit.admit(new String[]{"/" + i})[0].equals("/" + i);
+    }
+    assert limit.getOverflowCount() == 0;
+  }
+
+  @Test
+  void testWrongNumberOfLabelsPassThrough() {
+    CardinalityLimit limit = new CardinalityLimit("test_labels", 1, 2);
+    String[] labelValues = {"/a"};
+    assert limit.admit(labelValues) == labelValues;
+  }
+
+  @Test
+  void testConcurrentAdmit() throws InterruptedException {
+    int max = 100;
+    CardinalityLimit limit = new CardinalityLimit("test_concurrent", max, 1);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch latch = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      executor.execute(() -> {
+        for (int i = 0; i < 1000; i++) {
+          limit.admit(new String[]{"/" + i});
+        }
+        latch.countDown();
+      });
+    }
+    assert latch.await(10, TimeUnit.SECONDS);
+    executor.shutdown();
+    int admitted = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (!limit.admit(new String[]{"/" + i})[0].equals(CardinalityLimit.OVERFLOW)) {
+        admitted++;
+      }
+    }
+    assert admitted == max : "admitted " + admitted;
+  }
+
+}
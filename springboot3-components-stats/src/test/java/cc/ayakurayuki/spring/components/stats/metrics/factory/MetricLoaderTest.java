@@ -0,0 +1,57 @@
+package cc.ayakurayuki.spring.components.stats.metrics.factory;
+
+import cc.ayakurayuki.spring.components.stats.metrics.micrometer.MicrometerMetricFactory;
+import cc.ayakurayuki.spring.components.stats.metrics.noop.NoopMetricFactory;
+import cc.ayakurayuki.spring.components.stats.metrics.opentelemetry.OpenTelemetryMetricFactory;
+import cc.ayakurayuki.spring.components.stats.metrics.prometheus.PrometheusMetricFactory;
+import java.util.List;
+import java.util.ServiceLoader.Provider;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class MetricLoaderTest {
+
+  private static final List<Provider<MetricFactory>> PROVIDERS = List.of(
+      provider(PrometheusMetricFactory.class, PrometheusMetricFactory::new),
+      provider(MicrometerMetricFactory.class, MicrometerMetricFactory::new),
+      provider(OpenTelemetryMetricFactory.class, () -> {
+        throw new AssertionError("factories not picked must not be instantiated");
+      })
+  );
+
+  @Test
+  void testPickByName() {
+    assert MetricLoader.choose("micrometer", PROVIDERS) instanceof MicrometerMetricFactory;
+    assert MetricLoader.choose("MicroMeter", PROVIDERS) instanceof MicrometerMetricFactory;
+    assert MetricLoader.choose("prometheus", PROVIDERS) instanceof PrometheusMetricFactory;
+  }
+
+  @Test
+  void testDefaultCandidate() {
+    assert MetricLoader.choose(null, PROVIDERS) instanceof PrometheusMetricFactory;
+    assert MetricLoader.choose("", PROVIDERS) instanceof PrometheusMetricFactory;
+    // an unknown name falls back to the first default candidate
+    assert MetricLoader.choose("statsd", PROVIDERS) instanceof PrometheusMetricFactory;
+  }
+
+  @Test
+  void testNoop() {
+    assert MetricLoader.choose(null, List.of()) instanceof NoopMetricFactory;
+    assert MetricLoader.choose("micrometer", List.of()) instanceof NoopMetricFactory;
+  }
+
+  private static Provider<MetricFactory> provider(Class<? extends MetricFactory> type, Supplier<MetricFactory> factory) {
+    return new Provider<>() {
+      @Override
+      public Class<? extends MetricFactory> type() {
+        return type;
+      }
+
+      @Override
+      public MetricFactory get() {
+        return factory.get();
+      }
+    };
+  }
+
+}
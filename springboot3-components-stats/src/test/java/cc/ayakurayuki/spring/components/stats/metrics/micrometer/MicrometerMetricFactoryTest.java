@@ -0,0 +1,155 @@
+package cc.ayakurayuki.spring.components.stats.metrics.micrometer;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
+import cc.ayakurayuki.spring.components.stats.metrics.AYGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class MicrometerMetricFactoryTest {
+
+  private final SimpleMeterRegistry     registry = new SimpleMeterRegistry();
+  private final MicrometerMetricFactory factory  = new MicrometerMetricFactory(registry);
+
+  @Test
+  void testCounter() {
+    ICounter counter = factory.counter(AYCounter.build()
+        .namespace("test")
+        .subsystem("micrometer")
+        .name("requests_total")
+        .help("requests")
+        .labelNames("path", "code")
+        .create());
+    counter.register();
+    counter.inc("/a", "200");
+    counter.inc(2, "/a", "200");
+    counter.inc("/b", "500");
+
+    assert counter.get("/a", "200") == 3;
+    assert registry.get("test.micrometer.requests_total").tags("path", "/a", "code", "200").counter().count() == 3;
+    assert registry.get("test.micrometer.requests_total").tags("path", "/b", "code", "500").counter().count() == 1;
+    assert registry.get("test.micrometer.requests_total").counters().size() == 2;
+
+    try {
+      counter.inc("/a");
+      assert false : "wrong number of labels must fail";
+    } catch (IllegalArgumentException ignored) {
+    }
+  }
+
+  @Test
+  void testGauge() {
+    IGauge gauge = factory.gauge(AYGauge.build()
+        .namespace("test")
+        .subsystem("micrometer")
+        .name("in_flight")
+        .help("in flight")
+        .labelNames("pool")
+        .create());
+    gauge.register();
+    gauge.set(5, "a");
+    gauge.inc("a");
+    gauge.dec(2, "a");
+    assert gauge.get("a") == 4;
+    assert registry.get("test.micrometer.in_flight").tag("pool", "a").gauge().value() == 4;
+
+    AtomicInteger source = new AtomicInteger(7);
+    gauge.setCallback(source::get, "a");
+    assert registry.get("test.micrometer.in_flight").tag("pool", "a").gauge().value() == 7;
+    source.set(8);
+    assert registry.get("test.micrometer.in_flight").tag("pool", "a").gauge().value() == 8;
+
+    gauge.remove("a");
+    assert registry.find("test.micrometer.in_flight").tag("pool", "a").gauge() == null;
+    // a later use registers a fresh gauge
+    gauge.set(1, "a");
+    assert registry.get("test.micrometer.in_flight").tag("pool", "a").gauge().value() == 1;
+  }
+
+  @Test
+  void testHistogramBuckets() {
+    IHistogram histogram = factory.histogram(AYHistogram.build()
+        .namespace("test")
+        .subsystem("micrometer")
+        .name("latency")
+        .help("latency")
+        .labelNames("path")
+        .buckets(0.1, 1, 5)
+        .create());
+    histogram.register();
+    for (double value : new double[]{0.05, 0.5, 0.7, 3, 10}) {
+      histogram.observe(value, "/a");
+    }
+
+    CountAtBucket[] counts = registry.get("test.micrometer.latency").tag("path", "/a").summary().takeSnapshot().histogramCounts();
+    assert counts.length == 3;
+    assert counts[0].bucket() == 0.1 && counts[0].count() == 1;
+    assert counts[1].bucket() == 1 && counts[1].count() == 3;
+    assert counts[2].bucket() == 5 && counts[2].count() == 4;
+    double[] cumulative = histogram.get("/a");
+    assert cumulative.length == 3 && cumulative[0] == 1 && cumulative[1] == 3 && cumulative[2] == 4;
+    assert registry.get("test.micrometer.latency").tag("path", "/a").summary().count() == 5;
+  }
+
+  @Test
+  void testSummaryPercentiles() {
+    ISummary summary = factory.summary(AYSummary.build()
+        .namespace("test")
+        .subsystem("micrometer")
+        .name("size")
+        .help("size")
+        .quantile(0.5, 0.05)
+        .quantile(0.99, 0.001)
+        .create());
+    summary.register();
+    for (int i = 1; i <= 1000; i++) {
+      summary.observe(i);
+    }
+
+    ValueAtPercentile[] percentiles = registry.get("test.micrometer.size").summary().takeSnapshot().percentileValues();
+    assert percentiles.length == 2;
+    assert percentiles[0].percentile() == 0.5;
+    assert Math.abs(percentiles[0].value() - 500) <= 100 : "p50 " + percentiles[0].value();
+    assert percentiles[1].percentile() == 0.99;
+    assert Math.abs(percentiles[1].value() - 990) <= 100 : "p99 " + percentiles[1].value();
+  }
+
+  @Test
+  void testBindReturnsTheMeter() {
+    ICounter counter = factory.counter(AYCounter.build()
+        .namespace("test")
+        .subsystem("micrometer")
+        .name("bound_total")
+        .help("bound")
+        .labelNames("path")
+        .create());
+    ICounter.Child child = counter.bind("/a");
+    assert child == counter.bind("/a");
+    assert child != counter.bind("/b");
+    child.inc();
+    counter.inc("/a");
+    assert child.get() == 2;
+    assert registry.get("test.micrometer.bound_total").tag("path", "/a").counter().count() == 2;
+
+    IGauge gauge = factory.gauge(AYGauge.build()
+        .namespace("test")
+        .subsystem("micrometer")
+        .name("bound")
+        .help("bound")
+        .labelNames("pool")
+        .create());
+    IGauge.Child gaugeChild = gauge.bind("a");
+    assert gaugeChild == gauge.bind("a");
+    gaugeChild.set(3);
+    assert registry.get("test.micrometer.bound").tag("pool", "a").gauge().value() == 3;
+  }
+
+}
@@ -0,0 +1,161 @@
+package cc.ayakurayuki.spring.components.stats.metrics.opentelemetry;
+
+import cc.ayakurayuki.spring.components.stats.metrics.AYCounter;
+import cc.ayakurayuki.spring.components.stats.metrics.AYGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.AYHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.AYSummary;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ICounter;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IGauge;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.IHistogram;
+import cc.ayakurayuki.spring.components.stats.metrics.vector.ISummary;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricExporter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpenTelemetryMetricFactoryTest {
+
+  private final OpenTelemetryMetricFactory factory  = new OpenTelemetryMetricFactory();
+  private final InMemoryMetricExporter     exporter = InMemoryMetricExporter.create();
+
+  private MetricExporter replaced;
+
+  @BeforeEach
+  void setUp() {
+    replaced = OpenTelemetryMetricPipeline.setExporter(exporter);
+    export(); // drop what other tests left in the shared meter provider
+  }
+
+  @AfterEach
+  void tearDown() {
+    OpenTelemetryMetricPipeline.setExporter(replaced);
+  }
+
+  @Test
+  void testDeltaCounter() {
+    ICounter counter = factory.counter(AYCounter.build()
+        .namespace("test")
+        .subsystem("otel")
+        .name("requests_total")
+        .help("requests")
+        .labelNames("path")
+        .create());
+    counter.register();
+    counter.inc("/a");
+    counter.inc(2, "/a");
+    counter.bind("/b").inc();
+
+    MetricData metric = metric(export(), "test.otel.requests_total");
+    assert metric.getType() == MetricDataType.DOUBLE_SUM;
+    assert metric.getDoubleSumData().isMonotonic();
+    assert metric.getDoubleSumData().getAggregationTemporality() == AggregationTemporality.DELTA;
+    Map<String, Double> values = values(metric.getDoubleSumData().getPoints(), "path");
+    assert values.equals(Map.of("/a", 3D, "/b", 1D)) : values;
+
+    // the next export only holds what was counted since
+    counter.inc(4, "/a");
+    metric = metric(export(), "test.otel.requests_total");
+    assert values(metric.getDoubleSumData().getPoints(), "path").get("/a") == 4;
+    // the counter keeps its own total
+    assert counter.get("/a") == 7;
+  }
+
+  @Test
+  void testExponentialHistogram() {
+    IHistogram histogram = factory.histogram(AYHistogram.build()
+        .namespace("test")
+        .subsystem("otel")
+        .name("latency")
+        .help("latency")
+        .labelNames("path")
+        .buckets(0.1, 1, 5)
+        .create());
+    ISummary summary = factory.summary(AYSummary.build()
+        .namespace("test")
+        .subsystem("otel")
+        .name("size")
+        .help("size")
+        .quantile(0.99, 0.001)
+        .create());
+    histogram.register();
+    summary.register();
+    for (int i = 1; i <= 100; i++) {
+      histogram.observe(i, "/a");
+      summary.observe(i);
+    }
+
+    List<MetricData> metrics = export();
+    for (String name : List.of("test.otel.latency", "test.otel.size")) {
+      MetricData metric = metric(metrics, name);
+      // the buckets of the collector are not used
+      assert metric.getType() == MetricDataType.EXPONENTIAL_HISTOGRAM : name + " " + metric.getType();
+      assert metric.getExponentialHistogramData().getAggregationTemporality() == AggregationTemporality.DELTA;
+      assert metric.getExponentialHistogramData().getPoints().size() == 1;
+      ExponentialHistogramPointData point = metric.getExponentialHistogramData().getPoints().iterator().next();
+      assert point.getCount() == 100;
+      assert point.getSum() == 5050;
+      assert point.getMin() == 1 && point.getMax() == 100;
+      assert point.getPositiveBuckets().getTotalCount() == 100;
+    }
+  }
+
+  @Test
+  void testGaugeCallbackAndRemove() {
+    IGauge gauge = factory.gauge(AYGauge.build()
+        .namespace("test")
+        .subsystem("otel")
+        .name("in_flight")
+        .help("in flight")
+        .labelNames("pool")
+        .create());
+    gauge.register();
+    gauge.set(5, "a");
+    gauge.bind("a").inc();
+    AtomicInteger source = new AtomicInteger(7);
+    gauge.setCallback(source::get, "b");
+
+    MetricData metric = metric(export(), "test.otel.in_flight");
+    assert metric.getType() == MetricDataType.DOUBLE_GAUGE;
+    Map<String, Double> values = values(metric.getDoubleGaugeData().getPoints(), "pool");
+    assert values.equals(Map.of("a", 6D, "b", 7D)) : values;
+
+    // the callback is read on every collection, a removed child is no longer observed
+    source.set(8);
+    gauge.remove("a");
+    metric = metric(export(), "test.otel.in_flight");
+    values = values(metric.getDoubleGaugeData().getPoints(), "pool");
+    assert values.equals(Map.of("b", 8D)) : values;
+  }
+
+  private List<MetricData> export() {
+    assert OpenTelemetryMetricPipeline.flush().join(10, TimeUnit.SECONDS).isSuccess();
+    List<MetricData> metrics = List.copyOf(exporter.getFinishedMetricItems());
+    exporter.reset();
+    return metrics;
+  }
+
+  private static MetricData metric(List<MetricData> metrics, String name) {
+    List<MetricData> found = metrics.stream().filter(m -> m.getName().equals(name)).toList();
+    assert found.size() == 1 : "%s exported %d times".formatted(name, found.size());
+    return found.getFirst();
+  }
+
+  private static Map<String, Double> values(Collection<DoublePointData> points, String label) {
+    return points.stream()
+        .collect(Collectors.toMap(p -> p.getAttributes().get(AttributeKey.stringKey(label)), DoublePointData::getValue));
+  }
+
+}
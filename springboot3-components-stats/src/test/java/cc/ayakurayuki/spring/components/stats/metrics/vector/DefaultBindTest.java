@@ -0,0 +1,94 @@
+package cc.ayakurayuki.spring.components.stats.metrics.vector;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class DefaultBindTest {
+
+  @Test
+  void testDefaultChildDelegates() {
+    Map<List<String>, Double> values = new HashMap<>();
+    ICounter counter = new ICounter() {
+      @Override
+      public void register() {}
+
+      @Override
+      public void inc(String... labelValues) {
+        inc(1, labelValues);
+      }
+
+      @Override
+      public void inc(double amount, String... labelValues) {
+        values.merge(Arrays.asList(labelValues), amount, Double::sum);
+      }
+
+      @Override
+      public double get(String... labelValues) {
+        return values.getOrDefault(Arrays.asList(labelValues), 0D);
+      }
+    };
+
+    String[] labelValues = {"/a", "200"};
+    ICounter.Child child = counter.bind(labelValues);
+    // the child keeps its own copy of the label values
+    labelValues[0] = "/b";
+    child.inc();
+    child.inc(2);
+    assert child.get() == 3;
+    assert counter.get("/a", "200") == 3;
+    assert counter.get("/b", "200") == 0;
+  }
+
+  @Test
+  void testDefaultGaugeCallbackReadOnce() {
+    Map<List<String>, Double> values = new HashMap<>();
+    // a gauge implementing only the basic operations
+    IGauge gauge = new IGauge() {
+      @Override
+      public void register() {}
+
+      @Override
+      public void inc(String... labelValues) {
+        inc(1, labelValues);
+      }
+
+      @Override
+      public void inc(double amount, String... labelValues) {
+        values.merge(Arrays.asList(labelValues), amount, Double::sum);
+      }
+
+      @Override
+      public void dec(String... labelValues) {
+        dec(1, labelValues);
+      }
+
+      @Override
+      public void dec(double amount, String... labelValues) {
+        inc(-amount, labelValues);
+      }
+
+      @Override
+      public void set(double value, String... labelValues) {
+        values.put(Arrays.asList(labelValues), value);
+      }
+
+      @Override
+      public double get(String... labelValues) {
+        return values.getOrDefault(Arrays.asList(labelValues), 0D);
+      }
+    };
+
+    double[] source = {5};
+    gauge.setCallback(() -> source[0], "queue");
+    source[0] = 7;
+    // the default reads the callback at the call only
+    assert gauge.get("queue") == 5;
+    // and removing is a no-op
+    gauge.remove("queue");
+    assert gauge.get("queue") == 5;
+  }
+
+}
@@ -0,0 +1,134 @@
+package cc.ayakurayuki.spring.components.stats.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+
+  private static final double ACCURACY = 0.01;
+
+  @Test
+  void testRelativeAccuracy() {
+    QuantileSketch sketch = new QuantileSketch(ACCURACY);
+    Random random = new Random(42);
+    double[] values = new double[100_000];
+    for (int i = 0; i < values.length; i++) {
+      // log-normal, like request latencies in millis
+      values[i] = Math.exp(random.nextGaussian() * 2 + 3);
+      sketch.record(values[i]);
+    }
+    Arrays.sort(values);
+    QuantileSketch.Snapshot snapshot = sketch.snapshot();
+    assert snapshot.getCount() == values.length;
+    for (double q : new double[]{0, 0.5, 0.9, 0.99, 0.999, 1}) {
+      double expected = values[(int) (q * (values.length - 1))];
+      double actual = snapshot.quantile(q);
+      assert Math.abs(actual - expected) <= expected * ACCURACY + 1e-12 : "q%s: expected %s, actual %s".formatted(q, expected, actual);
+    }
+  }
+
+  @Test
+  void testZeroAndEmpty() {
+    QuantileSketch sketch = new QuantileSketch(ACCURACY);
+    assert Double.isNaN(sketch.snapshot().quantile(0.5));
+    sketch.record(0);
+    sketch.record(-1);
+    sketch.record(1);
+    QuantileSketch.Snapshot snapshot = sketch.snapshot();
+    assert snapshot.getCount() == 3;
+    assert snapshot.quantile(0.5) == 0;
+    assert snapshot.getSum() == 0;
+  }
+
+  @Test
+  void testMerge() {
+    QuantileSketch a = new QuantileSketch(ACCURACY);
+    QuantileSketch b = new QuantileSketch(ACCURACY);
+    QuantileSketch all = new QuantileSketch(ACCURACY);
+    for (int i = 1; i <= 1000; i++) {
+      (i % 2 == 0 ? a : b).record(i);
+      all.record(i);
+    }
+    QuantileSketch.Snapshot merged = a.snapshot().merge(b.snapshot());
+    QuantileSketch.Snapshot expected = all.snapshot();
+    assert merged.getCount() == expected.getCount();
+    assert merged.getSum() == expected.getSum();
+    for (double q : new double[]{0.1, 0.5, 0.99}) {
+      assert merged.quantile(q) == expected.quantile(q);
+    }
+  }
+
+  @Test
+  void testSpannedBuckets() {
+    QuantileSketch sketch = new QuantileSketch(ACCURACY);
+    List<Double> empty = new ArrayList<>();
+    sketch.snapshot().forEachSpannedBucket((upperBound, count) -> empty.add(upperBound));
+    assert empty.isEmpty();
+
+    sketch.record(1);
+    sketch.record(10);
+    List<Double> bounds = new ArrayList<>();
+    long[] total = {0};
+    sketch.snapshot().forEachSpannedBucket((upperBound, count) -> {
+      assert bounds.isEmpty() || upperBound > bounds.getLast();
+      bounds.add(upperBound);
+      total[0] += count;
+    });
+    assert total[0] == 2;
+    // every bucket between the two values, about 115 per decade at 1%
+    assert bounds.size() > 100 && bounds.size() < 130 : "buckets " + bounds.size();
+    assert bounds.getFirst() >= 1 && bounds.getLast() >= 10;
+
+    // a later value within the range keeps the same buckets
+    sketch.record(5);
+    List<Double> after = new ArrayList<>();
+    sketch.snapshot().forEachSpannedBucket((upperBound, count) -> after.add(upperBound));
+    assert after.equals(bounds);
+  }
+
+  @Test
+  void testConcurrentRecord() throws InterruptedException {
+    QuantileSketch sketch = new QuantileSketch(ACCURACY);
+    int threads = 8;
+    int perThread = 100_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch latch = new CountDownLatch(threads);
+    for (int t = 0; t < threads; t++) {
+      executor.execute(() -> {
+        for (int i = 0; i < perThread; i++) {
+          sketch.record(1 + i % 100);
+        }
+        latch.countDown();
+      });
+    }
+    assert latch.await(10, TimeUnit.SECONDS);
+    executor.shutdown();
+    assert sketch.snapshot().getCount() == (long) threads * perThread;
+  }
+
+  @Test
+  void testWindow() throws InterruptedException {
+    // a window of 1 second in 2 age buckets, rotates every 500ms
+    QuantileSketch sketch = new QuantileSketch(ACCURACY, 1, 2);
+    for (int i = 0; i < 100; i++) {
+      sketch.record(1000);
+    }
+    assert sketch.window().getCount() == 100;
+    Thread.sleep(1200);
+    for (int i = 0; i < 10; i++) {
+      sketch.record(1);
+    }
+    QuantileSketch.Snapshot window = sketch.window();
+    assert window.getCount() == 10 : "window count " + window.getCount();
+    assert Math.abs(window.quantile(0.99) - 1) <= ACCURACY;
+    assert sketch.snapshot().getCount() == 110;
+  }
+
+}
@@ -0,0 +1,34 @@
+package cc.ayakurayuki.spring.components.stats.stats;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class WindowPeakTest {
+
+  @Test
+  void testReadDoesNotReset() {
+    WindowPeak peak = new WindowPeak();
+    peak.update(3);
+    peak.update(7);
+    peak.update(5);
+    // every scraper sees the same peak within the window
+    assert peak.get(0) == 7;
+    assert peak.get(0) == 7;
+    assert peak.get(9) == 9;
+  }
+
+  @Test
+  void testRollOver() throws InterruptedException {
+    WindowPeak peak = new WindowPeak(50, TimeUnit.MILLISECONDS);
+    peak.update(7);
+    Thread.sleep(60);
+    // the last complete window is still reported
+    assert peak.get(0) == 7;
+    peak.update(2);
+    Thread.sleep(60);
+    assert peak.get(0) == 2;
+    Thread.sleep(60);
+    assert peak.get(1) == 1;
+  }
+
+}
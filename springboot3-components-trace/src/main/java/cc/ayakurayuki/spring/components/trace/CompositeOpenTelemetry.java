@@ -1,6 +1,7 @@
 package cc.ayakurayuki.spring.components.trace;
 
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.MeterProvider;
 import io.opentelemetry.api.trace.TracerProvider;
 import io.opentelemetry.context.propagation.ContextPropagators;
 import java.util.Objects;
@@ -30,6 +31,11 @@ public class CompositeOpenTelemetry implements OpenTelemetry {
     return this.activeOpenTelemetryRef.get().getTracerProvider();
   }
 
+  @Override
+  public MeterProvider getMeterProvider() {
+    return this.activeOpenTelemetryRef.get().getMeterProvider();
+  }
+
   @Override
   public ContextPropagators getPropagators() {
     return this.activeOpenTelemetryRef.get().getPropagators();